@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.felix.utils.manifest.Clause;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegion;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegions;
+import org.apache.sling.feature.maven.mojos.apis.ApisJarContext.ArtifactInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the lookups on the {@link ApisJarContext} done per region
+ * and for the package scan of archive entries with {@link ApisUtil}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApisJarContextBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int bundles;
+
+    private ApisJarContext ctx;
+
+    private List<String> regionNames;
+
+    private final List<List<String>> entryNames = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final Feature feature = SyntheticFeatures.createFeature(this.bundles);
+        final File mainDir = Files.createTempDirectory("apis-jar-benchmark").toFile();
+        mainDir.deleteOnExit();
+        this.ctx = new ApisJarContext(mainDir, feature);
+
+        final RegionSupport support = new RegionSupport(
+                new SystemStreamLog(), false, false, Collections.singleton("*"), Collections.emptySet());
+        final ApiRegions regions = support.getApiRegions(feature);
+        this.regionNames = regions.getRegionNames();
+        for (int b = 0; b < this.bundles; b++) {
+            final Artifact artifact = feature.getBundles().get(b);
+            final Clause[] exports = SyntheticFeatures.getExportedPackages(b);
+            final Set<String> used =
+                    support.computeAllUsedExportPackages(regions, Collections.emptySet(), exports, artifact);
+            final ArtifactInfo info = this.ctx.addArtifactInfo(artifact);
+            info.setUsedExportedPackages(used);
+            for (final ApiRegion region : regions.listRegions()) {
+                final Set<Clause> perRegion = support.computeUsedExportPackagesPerRegion(region, exports, used);
+                info.setUsedExportedPackages(
+                        region.getName(),
+                        perRegion,
+                        support.calculateOmitDependenciesFlag(region, exports, perRegion));
+            }
+            this.entryNames.add(SyntheticFeatures.getEntryNames(b));
+        }
+    }
+
+    @Benchmark
+    public void getArtifactInfos(final Blackhole bh) {
+        for (final String name : this.regionNames) {
+            bh.consume(this.ctx.getArtifactInfos(name, false));
+            bh.consume(this.ctx.getArtifactInfos(name, true));
+        }
+    }
+
+    @Benchmark
+    public void getPackages(final Blackhole bh) {
+        for (final List<String> names : this.entryNames) {
+            bh.consume(ApisUtil.getPackages(this.ctx, names, ArtifactType.APIS.getContentExtension()));
+        }
+    }
+}
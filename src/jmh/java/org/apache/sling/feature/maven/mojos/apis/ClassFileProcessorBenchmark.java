@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javassist.ClassPool;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegion;
+import org.apache.sling.feature.maven.mojos.apis.spi.ProcessorContext;
+import org.apache.sling.feature.maven.mojos.apis.spi.Source;
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link ClassFileProcessor#processBinaries(ProcessorContext, List)}
+ * on the deflated class files of the synthetic bundles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassFileProcessorBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int bundles;
+
+    private File directory;
+
+    private final List<Source> sources = new ArrayList<>();
+
+    private ProcessorContext context;
+
+    private final ClassFileProcessor processor = new ClassFileProcessor();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.directory = Files.createTempDirectory("apis-jar-benchmark").toFile();
+        final ClassPool pool = new ClassPool(true);
+        for (int b = 0; b < this.bundles; b++) {
+            final File dir = new File(this.directory, "bundle" + b);
+            final List<File> files = SyntheticFeatures.writeClasses(pool, dir, b);
+            this.sources.add(new DirectorySource(DefaultFileSet.fileSet(dir), files));
+        }
+        this.context = new BenchmarkProcessorContext(
+                new ApiRegion(SyntheticFeatures.GLOBAL), new File(this.directory, "output"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.walkFileTree(this.directory.toPath(), new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Benchmark
+    public void processBinaries() {
+        this.processor.processBinaries(this.context, this.sources);
+    }
+
+    private static final class BenchmarkProcessorContext implements ProcessorContext {
+
+        private final Log log = new SystemStreamLog();
+
+        private final ApiRegion region;
+
+        private final File outputDirectory;
+
+        BenchmarkProcessorContext(final ApiRegion region, final File outputDirectory) {
+            this.region = region;
+            this.outputDirectory = outputDirectory;
+        }
+
+        @Override
+        public Feature getFeature() {
+            return null;
+        }
+
+        @Override
+        public ApiRegion getApiRegion() {
+            return this.region;
+        }
+
+        @Override
+        public MavenProject getProject() {
+            return null;
+        }
+
+        @Override
+        public MavenSession getSession() {
+            return null;
+        }
+
+        @Override
+        public Log getLog() {
+            return this.log;
+        }
+
+        @Override
+        public File getOutputDirectory() {
+            return this.outputDirectory;
+        }
+
+        @Override
+        public void addResource(final String name, final File file) {
+            // the resource is not used
+        }
+    }
+}
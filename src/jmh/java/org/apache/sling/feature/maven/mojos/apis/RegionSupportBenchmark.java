@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.felix.utils.manifest.Clause;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegion;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the export calculations of {@link RegionSupport}. Each invocation
+ * processes all bundles of the synthetic feature, like the mojo does for a feature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegionSupportBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int bundles;
+
+    private RegionSupport support;
+
+    private ApiRegions regions;
+
+    private final List<Artifact> artifacts = new ArrayList<>();
+
+    private final List<Clause[]> exportedPackages = new ArrayList<>();
+
+    private final List<Set<String>> allPackages = new ArrayList<>();
+
+    private final List<List<Set<Clause>>> usedPackagesPerRegion = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.support = new RegionSupport(
+                new SystemStreamLog(), false, false, Collections.singleton("*"), Collections.emptySet());
+        this.regions = this.support.getApiRegions(SyntheticFeatures.createFeature(this.bundles));
+        for (int b = 0; b < this.bundles; b++) {
+            final Artifact artifact = new Artifact(SyntheticFeatures.getBundleId(b));
+            final Clause[] exports = SyntheticFeatures.getExportedPackages(b);
+            final Set<String> used =
+                    this.support.computeAllUsedExportPackages(this.regions, Collections.emptySet(), exports, artifact);
+            final List<Set<Clause>> perRegion = new ArrayList<>();
+            for (final ApiRegion region : this.regions.listRegions()) {
+                perRegion.add(this.support.computeUsedExportPackagesPerRegion(region, exports, used));
+            }
+            this.artifacts.add(artifact);
+            this.exportedPackages.add(exports);
+            this.allPackages.add(used);
+            this.usedPackagesPerRegion.add(perRegion);
+        }
+    }
+
+    @Benchmark
+    public void computeAllUsedExportPackages(final Blackhole bh) throws Exception {
+        for (int b = 0; b < this.bundles; b++) {
+            bh.consume(this.support.computeAllUsedExportPackages(
+                    this.regions, Collections.emptySet(), this.exportedPackages.get(b), this.artifacts.get(b)));
+        }
+    }
+
+    @Benchmark
+    public void computeUsedExportPackagesPerRegion(final Blackhole bh) throws Exception {
+        for (final ApiRegion region : this.regions.listRegions()) {
+            for (int b = 0; b < this.bundles; b++) {
+                bh.consume(this.support.computeUsedExportPackagesPerRegion(
+                        region, this.exportedPackages.get(b), this.allPackages.get(b)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void calculateOmitDependenciesFlag(final Blackhole bh) {
+        final List<ApiRegion> list = this.regions.listRegions();
+        for (int r = 0; r < list.size(); r++) {
+            for (int b = 0; b < this.bundles; b++) {
+                bh.consume(this.support.calculateOmitDependenciesFlag(
+                        list.get(r),
+                        this.exportedPackages.get(b),
+                        this.usedPackagesPerRegion.get(b).get(r)));
+            }
+        }
+    }
+}
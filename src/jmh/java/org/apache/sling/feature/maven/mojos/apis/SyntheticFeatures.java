@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.Annotation;
+import org.apache.felix.utils.manifest.Clause;
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionState;
+import org.apache.sling.feature.ExtensionType;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.extension.apiregions.api.ApiExport;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegion;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegions;
+import org.apache.sling.feature.extension.apiregions.api.DeprecationInfo;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Generator for synthetic features used by the benchmarks. Each bundle exports
+ * {@link #PACKAGES_PER_BUNDLE} packages: the first ones are exported in the global
+ * region, one package is only exported in the internal region and the last one
+ * is not exported in any region. Some exports are behind a toggle or deprecated.
+ */
+final class SyntheticFeatures {
+
+    static final String GLOBAL = "global";
+
+    static final String INTERNAL = "internal";
+
+    static final String TOGGLE = "synthetic-toggle";
+
+    static final int PACKAGES_PER_BUNDLE = 5;
+
+    static final int CLASSES_PER_PACKAGE = 4;
+
+    private SyntheticFeatures() {}
+
+    static ArtifactId getBundleId(final int bundle) {
+        return new ArtifactId("org.apache.sling.synthetic", "bundle" + bundle, "1.0.0", null, null);
+    }
+
+    static String getPackageName(final int bundle, final int pck) {
+        return "org.apache.sling.synthetic.b" + bundle + ".p" + pck;
+    }
+
+    /**
+     * Create a feature with the bundles and the api regions
+     * @param bundles The number of bundles
+     * @return The feature
+     * @throws IOException If the api regions can't be serialized
+     */
+    static Feature createFeature(final int bundles) throws IOException {
+        final Feature feature = new Feature(ArtifactId.parse("org.apache.sling.synthetic:feature:1.0.0"));
+        final ApiRegions regions = new ApiRegions();
+        final ApiRegion global = new ApiRegion(GLOBAL);
+        regions.add(global);
+        final ApiRegion internal = new ApiRegion(INTERNAL);
+        regions.add(internal);
+        for (int b = 0; b < bundles; b++) {
+            feature.getBundles().add(new Artifact(getBundleId(b)));
+            for (int p = 0; p < PACKAGES_PER_BUNDLE - 2; p++) {
+                final ApiExport exp = new ApiExport(getPackageName(b, p));
+                if (b % 10 == 0 && p == 0) {
+                    exp.setToggle(TOGGLE);
+                }
+                if (b % 20 == 0 && p == 1) {
+                    exp.getDeprecation().setPackageInfo(new DeprecationInfo("Deprecated"));
+                }
+                global.add(exp);
+            }
+            internal.add(new ApiExport(getPackageName(b, PACKAGES_PER_BUNDLE - 2)));
+        }
+        final Extension ext = new Extension(ExtensionType.JSON, ApiRegions.EXTENSION_NAME, ExtensionState.OPTIONAL);
+        ext.setJSON(regions.toJSON());
+        feature.getExtensions().add(ext);
+        return feature;
+    }
+
+    /**
+     * Get the export package header of a bundle
+     * @param bundle The bundle
+     * @return The clauses
+     */
+    static Clause[] getExportedPackages(final int bundle) {
+        final Clause[] result = new Clause[PACKAGES_PER_BUNDLE];
+        for (int p = 0; p < PACKAGES_PER_BUNDLE; p++) {
+            result[p] = new Clause(getPackageName(bundle, p), null, null);
+        }
+        return result;
+    }
+
+    /**
+     * Get the entry names of a bundle archive
+     * @param bundle The bundle
+     * @return The entry names
+     */
+    static List<String> getEntryNames(final int bundle) {
+        final List<String> result = new ArrayList<>();
+        result.add("META-INF/maven/");
+        result.add("META-INF/maven/pom.properties");
+        result.add("OSGI-INF/component.xml");
+        for (int p = 0; p < PACKAGES_PER_BUNDLE; p++) {
+            final String path = getPackageName(bundle, p).replace('.', '/');
+            result.add(path.concat("/"));
+            for (int c = 0; c < CLASSES_PER_PACKAGE; c++) {
+                result.add(path.concat("/Type") + c + ".class");
+            }
+            result.add(path.concat("/packageinfo"));
+        }
+        return result;
+    }
+
+    /**
+     * Write the class files of a bundle into a directory
+     * @param pool The class pool
+     * @param dir The base directory
+     * @param bundle The bundle
+     * @return The written files
+     * @throws Exception If writing fails
+     */
+    static List<File> writeClasses(final ClassPool pool, final File dir, final int bundle) throws Exception {
+        final List<File> result = new ArrayList<>();
+        for (int p = 0; p < PACKAGES_PER_BUNDLE; p++) {
+            final String pckName = getPackageName(bundle, p);
+            final File pckDir = new File(dir, pckName.replace('.', File.separatorChar));
+            pckDir.mkdirs();
+            for (int c = 0; c < CLASSES_PER_PACKAGE; c++) {
+                final CtClass cc = pool.makeInterface(pckName + ".Type" + c);
+                try {
+                    if (c == 0) {
+                        final ClassFile cfile = cc.getClassFile();
+                        final ConstPool constPool = cfile.getConstPool();
+                        final AnnotationsAttribute attr =
+                                new AnnotationsAttribute(constPool, AnnotationsAttribute.invisibleTag);
+                        attr.addAnnotation(new Annotation(ProviderType.class.getName(), constPool));
+                        cfile.addAttribute(attr);
+                    }
+                    final File file = new File(pckDir, "Type" + c + ".class");
+                    Files.write(file.toPath(), cc.toBytecode());
+                    result.add(file);
+                } finally {
+                    cc.detach();
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.License;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.io.json.FeatureJSONReader;
+import org.apache.sling.feature.io.json.FeatureJSONWriter;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Persistent cache for the read and assembled features of a project, stored in the build
+ * directory. An entry is valid as long as the hash of the inputs is unchanged. The inputs are the
+ * files in the features directory, the plugin configuration, the project information used
+ * when reading the features, the declared dependencies of the project and the substituted
+ * properties. In addition, the files of prototypes outside the reactor must be unchanged and all
+ * reactor projects containing prototypes must be restored from their cache as well, which is
+ * checked by the {@link Preprocessor}. Artifacts resolved by extension handlers while assembling
+ * are not part of the inputs, therefore the cache must be enabled explicitly.
+ */
+final class FeatureCache {
+
+    /** Version of the format, increase if the format or the inputs change. */
+    private static final int VERSION = 3;
+
+    private static final String PROP_VERSION = "version";
+
+    private static final String PROP_HASH = "hash";
+
+    private static final String PROP_PROTOTYPES = "prototypes";
+
+    private static final String PROP_FILES = "files";
+
+    private static final String PROP_DEPENDENCIES = "dependencies";
+
+    private static final String PROP_ID = "id";
+
+    private static final String PROP_SCOPE = "scope";
+
+    private static final String PROP_FEATURES = "features";
+
+    private static final String PROP_ASSEMBLED = "assembled";
+
+    /**
+     * A valid cache entry
+     */
+    static final class Entry {
+
+        /** The keys of the reactor projects containing prototypes */
+        final Set<String> reactorPrototypes = new LinkedHashSet<>();
+
+        /** The dependencies added to the project, the artifact id and the scope */
+        final List<String[]> dependencies = new ArrayList<>();
+
+        final Map<String, Feature> features = new TreeMap<>();
+
+        final Map<String, Feature> assembledFeatures = new TreeMap<>();
+    }
+
+    private final FeatureProjectInfo info;
+
+    private final FeatureProjectConfig config;
+
+    private final File file;
+
+    private final String hash;
+
+    /**
+     * Create the cache for the features of a project, this must happen before the preprocessor
+     * adds any dependencies to the project
+     * @param info The project
+     * @param config The configuration
+     * @param processor The name of the preprocessor implementation
+     * @throws IOException If the files in the features directory can't be read
+     */
+    FeatureCache(final FeatureProjectInfo info, final FeatureProjectConfig config, final String processor)
+            throws IOException {
+        this.info = info;
+        this.config = config;
+        this.file = new File(
+                ProjectHelper.getTmpDir(info.project),
+                "preprocessor-" + config.getName().replace(' ', '-') + ".json");
+        this.hash = this.computeHash(processor);
+    }
+
+    private String computeHash(final String processor) throws IOException {
+        final MessageDigest digest = Digests.sha256();
+        final MavenProject project = this.info.project;
+        final List<String> values = new ArrayList<>();
+        values.add(String.valueOf(VERSION));
+        values.add(processor);
+        values.add(this.info.plugin.getId());
+        values.add(String.valueOf(this.info.plugin.getConfiguration()));
+        for (final PluginExecution exec : this.info.plugin.getExecutions()) {
+            values.add(exec.getId());
+            values.add(String.valueOf(exec.getConfiguration()));
+        }
+        values.add(this.config.getName());
+        values.add(project.getId());
+        values.add(project.getPackaging());
+        // used by ProjectHelper.setFeatureInfo
+        values.add(project.getName());
+        values.add(project.getDescription());
+        values.add(project.getOrganization() == null ? null : project.getOrganization().getName());
+        if (project.getLicenses() != null) {
+            for (final License l : project.getLicenses()) {
+                values.add(l.getName());
+            }
+        }
+        // the dependencies added by the preprocessor are only recorded if not declared already
+        for (final Dependency d : project.getDependencies()) {
+            values.add(d.getManagementKey() + ":" + d.getVersion() + ":" + d.getScope());
+        }
+        // used by Substitution
+        if (this.config.getReplacePropertyVariables() != null) {
+            for (final String p : this.config.getReplacePropertyVariables()) {
+                final String name = p.trim();
+                final String value = System.getProperty(name);
+                values.add(name + "=" + (value != null ? value : project.getProperties().getProperty(name)));
+            }
+        }
+        for (final String v : values) {
+            digest.update(String.valueOf(v).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        // all files of the features directory, feature files might refer to other files
+        final File dir = new File(project.getBasedir(), this.config.getFeaturesDir());
+        if (dir.isDirectory()) {
+            final List<Path> files;
+            try (final Stream<Path> stream = Files.walk(dir.toPath())) {
+                files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            final byte[] buffer = new byte[8192];
+            for (final Path p : files) {
+                digest.update(dir.toPath().relativize(p).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try (final InputStream in = Files.newInputStream(p)) {
+                    int l;
+                    while ((l = in.read(buffer)) > 0) {
+                        digest.update(buffer, 0, l);
+                    }
+                }
+            }
+        }
+
+        return Digests.toHex(digest.digest());
+    }
+
+    /**
+     * Load the entry from the cache
+     * @param logger The logger
+     * @return The entry or {@code null} if no valid entry exists
+     */
+    Entry load(final Logger logger) {
+        if (!this.file.exists()) {
+            return null;
+        }
+        try (final JsonReader reader = Json.createReader(Files.newBufferedReader(this.file.toPath()))) {
+            final JsonObject json = reader.readObject();
+            if (json.getInt(PROP_VERSION, 0) != VERSION || !this.hash.equals(json.getString(PROP_HASH, null))) {
+                logger.debug("Cached " + this.config.getName() + " of project " + this.info.project.getId()
+                        + " is outdated");
+                return null;
+            }
+            for (final Map.Entry<String, JsonValue> f : json.getJsonObject(PROP_FILES).entrySet()) {
+                final File prototype = new File(f.getKey());
+                if (!getFileInfo(prototype).equals(((JsonString) f.getValue()).getString())) {
+                    logger.debug("Prototype " + prototype + " of cached " + this.config.getName() + " of project "
+                            + this.info.project.getId() + " changed");
+                    return null;
+                }
+            }
+            final Entry entry = new Entry();
+            for (final JsonValue v : json.getJsonArray(PROP_PROTOTYPES)) {
+                entry.reactorPrototypes.add(((JsonString) v).getString());
+            }
+            for (final JsonValue v : json.getJsonArray(PROP_DEPENDENCIES)) {
+                final JsonObject dep = v.asJsonObject();
+                entry.dependencies.add(new String[] {dep.getString(PROP_ID), dep.getString(PROP_SCOPE, null)});
+            }
+            readFeatures(json.getJsonObject(PROP_FEATURES), entry.features);
+            readFeatures(json.getJsonObject(PROP_ASSEMBLED), entry.assembledFeatures);
+            return entry;
+        } catch (final IOException | JsonException | ClassCastException | NullPointerException e) {
+            // invalid or incomplete file
+            logger.debug("Ignoring unreadable cache file " + this.file + " : " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void readFeatures(final JsonObject json, final Map<String, Feature> features) throws IOException {
+        for (final Map.Entry<String, JsonValue> f : json.entrySet()) {
+            try (final StringReader r = new StringReader(((JsonString) f.getValue()).getString())) {
+                features.put(f.getKey(), FeatureJSONReader.read(r, f.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Save the features of the project
+     * @param logger The logger
+     * @param reactorPrototypes The keys of the reactor projects containing prototypes
+     * @param prototypeFiles The files of the other prototypes
+     * @param dependencies The dependencies added to the project, the artifact id and the scope
+     */
+    void save(
+            final Logger logger,
+            final Set<String> reactorPrototypes,
+            final Set<File> prototypeFiles,
+            final List<String[]> dependencies) {
+        try {
+            final JsonObjectBuilder json = Json.createObjectBuilder();
+            json.add(PROP_VERSION, VERSION);
+            json.add(PROP_HASH, this.hash);
+            json.add(PROP_PROTOTYPES, Json.createArrayBuilder(reactorPrototypes));
+            final JsonObjectBuilder files = Json.createObjectBuilder();
+            for (final File f : prototypeFiles) {
+                files.add(f.getAbsolutePath(), getFileInfo(f));
+            }
+            json.add(PROP_FILES, files);
+            final JsonArrayBuilder deps = Json.createArrayBuilder();
+            for (final String[] dep : dependencies) {
+                final JsonObjectBuilder d = Json.createObjectBuilder().add(PROP_ID, dep[0]);
+                if (dep[1] != null) {
+                    d.add(PROP_SCOPE, dep[1]);
+                }
+                deps.add(d);
+            }
+            json.add(PROP_DEPENDENCIES, deps);
+            if (this.config.isTestConfig()) {
+                json.add(PROP_FEATURES, writeFeatures(this.info.testFeatures));
+                json.add(PROP_ASSEMBLED, writeFeatures(this.info.assembledTestFeatures));
+            } else {
+                json.add(PROP_FEATURES, writeFeatures(this.info.features));
+                json.add(PROP_ASSEMBLED, writeFeatures(this.info.assembledFeatures));
+            }
+
+            this.file.getParentFile().mkdirs();
+            final File tmp = File.createTempFile(".tmp-", ".json", this.file.getParentFile());
+            try (final OutputStream out = Files.newOutputStream(tmp.toPath());
+                    final JsonWriter writer = Json.createWriter(out)) {
+                writer.writeObject(json.build());
+            }
+            Files.move(tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            logger.warn("Unable to write cache file " + this.file + " : " + e.getMessage());
+        }
+    }
+
+    private static JsonObjectBuilder writeFeatures(final Map<String, Feature> features) throws IOException {
+        final JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (final Map.Entry<String, Feature> f : features.entrySet()) {
+            try (final StringWriter w = new StringWriter()) {
+                FeatureJSONWriter.write(w, f.getValue());
+                builder.add(f.getKey(), w.toString());
+            }
+        }
+        return builder;
+    }
+
+    private static String getFileInfo(final File file) {
+        return file.lastModified() + ":" + file.length();
+    }
+}
@@ -50,6 +50,8 @@ public class FeatureProjectConfig {
 
     public static final String CFG_VALIDATE_FEATURES = "validateFeatures";
 
+    public static final String CFG_CACHE_FEATURES = "cacheFeatures";
+
     public static final String DEFAULT_FEATURE_DIR = "src/main/features";
 
     public static final String DEFAULT_FEATURE_INCLUDES = "**/*.json";
@@ -84,6 +86,8 @@ public class FeatureProjectConfig {
 
     private final boolean validate;
 
+    private final boolean cache;
+
     private final boolean enableProjectVariableReplacement;
 
     private final String[] replacePropertyVariables;
@@ -138,6 +142,7 @@ public class FeatureProjectConfig {
         this.skipAddDep = "true".equals(skipCfg.toLowerCase());
         this.jarStartOrder = ProjectHelper.getConfigValue(info.plugin, CFG_JAR_START_ORDER, null);
         this.validate = "true".equals(ProjectHelper.getConfigValue(info.plugin, CFG_VALIDATE_FEATURES, "true"));
+        this.cache = "true".equals(ProjectHelper.getConfigValue(info.plugin, CFG_CACHE_FEATURES, "false"));
         this.enableProjectVariableReplacement =
                 "true".equals(ProjectHelper.getConfigValue(info.plugin, CFG_ENABLE_PROJ_VARS, "true"));
         String vars = ProjectHelper.getConfigValue(info.plugin, CFG_REPLACE_PROP_VARS, null);
@@ -206,6 +211,10 @@ public class FeatureProjectConfig {
         return this.validate;
     }
 
+    public boolean isCache() {
+        return this.cache;
+    }
+
     public boolean isEnableProjectVariableReplacement() {
         return enableProjectVariableReplacement;
     }
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of a set of features stored in the project context. As the dependency
+ * lifecycle participant uses a different class loader than the mojos, the snapshot
+ * only consists of JDK types: a versioned binary container with the keys and the
+ * encoded features. When the snapshot is read, only the index is decoded, the features
+ * are decoded on first access of their key.
+ */
+final class FeatureSnapshot {
+
+    /** Magic number of the format ("SFSN"). */
+    private static final int MAGIC = 0x5346534E;
+
+    /** Version of the format. */
+    private static final int VERSION = 1;
+
+    /**
+     * Encodes a value of the snapshot
+     */
+    @FunctionalInterface
+    interface Encoder<T> {
+
+        byte[] encode(T value) throws IOException;
+    }
+
+    /**
+     * Decodes a value of the snapshot
+     */
+    @FunctionalInterface
+    interface Decoder<T> {
+
+        T decode(InputStream in) throws IOException;
+    }
+
+    private FeatureSnapshot() {}
+
+    /**
+     * Create a snapshot
+     * @param values The values
+     * @param encoder The encoder for a single value
+     * @return The snapshot
+     * @throws IOException If encoding fails
+     */
+    static <T> byte[] write(final Map<String, T> values, final Encoder<T> encoder) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(values.size());
+            for (final Map.Entry<String, T> entry : values.entrySet()) {
+                final byte[] data = encoder.encode(entry.getValue());
+                out.writeUTF(entry.getKey());
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Read a snapshot. The returned map is modifiable, values are decoded on first access.
+     * @param snapshot The snapshot
+     * @param decoder The decoder for a single value
+     * @return The map sorted by key
+     * @throws IOException If the snapshot is invalid
+     */
+    static <T> Map<String, T> read(final byte[] snapshot, final Decoder<T> decoder) throws IOException {
+        final LazyMap<T> result = new LazyMap<>(decoder);
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid feature snapshot");
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported feature snapshot version " + version);
+            }
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final String key = in.readUTF();
+                final int length = in.readInt();
+                if (length < 0 || length > in.available()) {
+                    throw new IOException("Invalid feature snapshot");
+                }
+                result.values.put(key, new Slot<>(snapshot, snapshot.length - in.available(), length));
+                in.skipBytes(length);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A value in the map, either decoded or still encoded
+     */
+    private static final class Slot<T> {
+
+        private final byte[] data;
+
+        private final int offset;
+
+        private final int length;
+
+        private T value;
+
+        private boolean decoded;
+
+        Slot(final byte[] data, final int offset, final int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        Slot(final T value) {
+            this(null, 0, 0);
+            this.value = value;
+            this.decoded = true;
+        }
+
+        synchronized T get(final Decoder<T> decoder) {
+            if (!this.decoded) {
+                try {
+                    this.value = decoder.decode(new ByteArrayInputStream(this.data, this.offset, this.length));
+                } catch (final IOException ioe) {
+                    throw new RuntimeException(ioe.getMessage(), ioe);
+                }
+                this.decoded = true;
+            }
+            return this.value;
+        }
+    }
+
+    /**
+     * Map decoding the values on first access
+     */
+    private static final class LazyMap<T> extends AbstractMap<String, T> {
+
+        private final Map<String, Slot<T>> values = new TreeMap<>();
+
+        private final Decoder<T> decoder;
+
+        LazyMap(final Decoder<T> decoder) {
+            this.decoder = decoder;
+        }
+
+        @Override
+        public int size() {
+            return this.values.size();
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return this.values.containsKey(key);
+        }
+
+        @Override
+        public T get(final Object key) {
+            final Slot<T> slot = this.values.get(key);
+            return slot == null ? null : slot.get(this.decoder);
+        }
+
+        @Override
+        public T put(final String key, final T value) {
+            final Slot<T> old = this.values.put(key, new Slot<>(value));
+            return old == null ? null : old.get(this.decoder);
+        }
+
+        @Override
+        public T remove(final Object key) {
+            final Slot<T> old = this.values.remove(key);
+            return old == null ? null : old.get(this.decoder);
+        }
+
+        @Override
+        public void clear() {
+            this.values.clear();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return this.values.keySet();
+        }
+
+        @Override
+        public Set<Map.Entry<String, T>> entrySet() {
+            return new AbstractSet<Map.Entry<String, T>>() {
+
+                @Override
+                public int size() {
+                    return values.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, T>> iterator() {
+                    final Iterator<Map.Entry<String, Slot<T>>> iter = values.entrySet().iterator();
+                    return new Iterator<Map.Entry<String, T>>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return iter.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, T> next() {
+                            return new LazyEntry(iter.next());
+                        }
+
+                        @Override
+                        public void remove() {
+                            iter.remove();
+                        }
+                    };
+                }
+            };
+        }
+
+        /**
+         * Entry decoding the value on first access
+         */
+        private final class LazyEntry implements Map.Entry<String, T> {
+
+            private final Map.Entry<String, Slot<T>> entry;
+
+            LazyEntry(final Map.Entry<String, Slot<T>> entry) {
+                this.entry = entry;
+            }
+
+            @Override
+            public String getKey() {
+                return this.entry.getKey();
+            }
+
+            @Override
+            public T getValue() {
+                return this.entry.getValue().get(decoder);
+            }
+
+            @Override
+            public T setValue(final T value) {
+                return this.entry.setValue(new Slot<>(value)).get(decoder);
+            }
+
+            @Override
+            public boolean equals(final Object obj) {
+                if (!(obj instanceof Map.Entry)) {
+                    return false;
+                }
+                final Map.Entry<?, ?> e = (Map.Entry<?, ?>) obj;
+                return this.getKey().equals(e.getKey()) && Objects.equals(this.getValue(), e.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return this.getKey().hashCode() ^ Objects.hashCode(this.getValue());
+            }
+        }
+    }
+}
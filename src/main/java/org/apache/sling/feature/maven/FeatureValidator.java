@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Formatter;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Validates feature files against the JSON schema of the feature model. The schema is
+ * loaded once and shared by all validators, it can be used by several threads at the same time.
+ * <p>
+ * The hashes of successfully validated files are persisted in a directory, usually the build
+ * directory of the project. Files with an already validated content are not validated again.
+ * Only the hashes of the files used in the current build are persisted, hashes of files which
+ * have been changed or removed since are dropped.
+ * The hashes include the contents of the schema, a changed schema validates all files again.
+ */
+final class FeatureValidator {
+
+    private static final String SCHEMA_RESOURCE = "META-INF/feature/Feature-1.0.0.schema.json";
+
+    private static final String FILE_NAME = "validated-features.txt";
+
+    private static volatile JsonSchema schema;
+
+    private static volatile byte[] schemaDigest;
+
+    private final File file;
+
+    /** The hashes read from the file when the validator was created */
+    private final Set<String> previous = new TreeSet<>();
+
+    /** The hashes read from the file or written last */
+    private Set<String> persisted;
+
+    /** The hashes of the files validated in this build */
+    private final Set<String> validated = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a new validator
+     * @param directory The directory to persist the hashes of validated files
+     */
+    FeatureValidator(final File directory) {
+        this.file = new File(directory, FILE_NAME);
+        if (this.file.exists()) {
+            try {
+                for (final String line : Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8)) {
+                    if (!line.isEmpty()) {
+                        this.previous.add(line);
+                    }
+                }
+            } catch (final IOException e) {
+                // ignore unreadable file, it is overwritten on save
+            }
+        }
+        this.persisted = this.previous;
+    }
+
+    /**
+     * Get the compiled schema
+     * @return The schema
+     */
+    static JsonSchema getSchema() {
+        JsonSchema result = schema;
+        if (result == null) {
+            synchronized (FeatureValidator.class) {
+                result = schema;
+                if (result == null) {
+                    final String jsonSchemaUri = FeatureValidator.class
+                            .getClassLoader()
+                            .getResource(SCHEMA_RESOURCE)
+                            .toExternalForm();
+                    try {
+                        result = JsonSchemaFactory.byDefault().getJsonSchema(jsonSchemaUri);
+                    } catch (final ProcessingException e) {
+                        throw new RuntimeException(
+                                "An error occured when retrieving the JSON Schema from " + jsonSchemaUri, e);
+                    }
+                    schema = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the digest of the contents of the schema
+     * @return The digest
+     */
+    private static byte[] getSchemaDigest() {
+        byte[] result = schemaDigest;
+        if (result == null) {
+            try (final InputStream in = FeatureValidator.class.getClassLoader().getResourceAsStream(SCHEMA_RESOURCE)) {
+                if (in == null) {
+                    throw new RuntimeException("Unable to find the JSON Schema " + SCHEMA_RESOURCE);
+                }
+                final MessageDigest digest = Digests.sha256();
+                final byte[] buffer = new byte[8192];
+                int l;
+                while ((l = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, l);
+                }
+                result = digest.digest();
+            } catch (final IOException e) {
+                throw new RuntimeException("An error occured when reading the JSON Schema " + SCHEMA_RESOURCE, e);
+            }
+            schemaDigest = result;
+        }
+        return result;
+    }
+
+    /**
+     * Validate a feature file
+     * @param featureFile The feature file
+     * @param feature The contents of the feature file
+     * @param json The contents of the feature file as a string, only used to check whether it is already validated
+     * @throws RuntimeException If the feature file is invalid
+     */
+    void validate(final File featureFile, final JsonObject feature, final String json) {
+        final String hash = hash(json);
+        if (this.validated.contains(hash)) {
+            return;
+        }
+        if (!this.previous.contains(hash)) {
+            validate(featureFile, toJsonNode(feature));
+        }
+        this.validated.add(hash);
+    }
+
+    /**
+     * Convert a JSON value into the tree model used by the schema validation
+     */
+    private static JsonNode toJsonNode(final JsonValue value) {
+        switch (value.getValueType()) {
+            case OBJECT:
+                final ObjectNode object = JsonNodeFactory.instance.objectNode();
+                for (final Map.Entry<String, JsonValue> entry : value.asJsonObject().entrySet()) {
+                    object.set(entry.getKey(), toJsonNode(entry.getValue()));
+                }
+                return object;
+            case ARRAY:
+                final ArrayNode array = JsonNodeFactory.instance.arrayNode();
+                for (final JsonValue v : value.asJsonArray()) {
+                    array.add(toJsonNode(v));
+                }
+                return array;
+            case STRING:
+                return JsonNodeFactory.instance.textNode(((JsonString) value).getString());
+            case NUMBER:
+                final JsonNumber number = (JsonNumber) value;
+                return number.isIntegral()
+                        ? JsonNodeFactory.instance.numberNode(number.bigIntegerValue())
+                        : JsonNodeFactory.instance.numberNode(number.bigDecimalValue());
+            case TRUE:
+                return JsonNodeFactory.instance.booleanNode(true);
+            case FALSE:
+                return JsonNodeFactory.instance.booleanNode(false);
+            default:
+                return JsonNodeFactory.instance.nullNode();
+        }
+    }
+
+    /**
+     * Validate a feature
+     * @param featureFile The feature file
+     * @param instance The parsed contents of the feature file
+     * @throws RuntimeException If the feature file is invalid
+     */
+    static void validate(final File featureFile, final JsonNode instance) {
+        try {
+            final ProcessingReport report = getSchema().validate(instance, true);
+            if (!report.isSuccess()) {
+                try (final Formatter formatter = new Formatter()) {
+                    formatter.format("Feature file %s validation detected one or more errors:%n", featureFile);
+                    for (final ProcessingMessage message : report) {
+                        if (LogLevel.FATAL == message.getLogLevel() || LogLevel.ERROR == message.getLogLevel()) {
+                            formatter.format(
+                                    " * %s: %s%n",
+                                    message.asJson().get("schema").get("pointer").asText(), message.getMessage());
+                        }
+                    }
+                    throw new RuntimeException(formatter.toString());
+                }
+            }
+        } catch (final ProcessingException e) {
+            throw new RuntimeException(
+                    "An error occurred while validating Feature " + featureFile + ", read the log for details:", e);
+        }
+    }
+
+    /**
+     * Persist the hashes of the files validated in this build, if they differ from the
+     * persisted hashes. Nothing is written if no file has been validated.
+     * @param logger The logger
+     */
+    synchronized void save(final Logger logger) {
+        final Set<String> current = new TreeSet<>(this.validated);
+        if (current.isEmpty() || current.equals(this.persisted)) {
+            return;
+        }
+        File tmp = null;
+        try {
+            this.file.getParentFile().mkdirs();
+            tmp = File.createTempFile(".tmp-", ".txt", this.file.getParentFile());
+            Files.write(tmp.toPath(), current, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+            this.persisted = current;
+        } catch (final IOException e) {
+            logger.warn("Unable to write validation cache " + this.file + " : " + e.getMessage());
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private static String hash(final String json) {
+        final MessageDigest digest = Digests.sha256();
+        digest.update(getSchemaDigest());
+        return Digests.toHex(digest.digest(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
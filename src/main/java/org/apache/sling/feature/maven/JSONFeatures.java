@@ -27,16 +27,20 @@ import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
 import jakarta.json.JsonException;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonObjectBuilder;
 import jakarta.json.JsonReader;
 import jakarta.json.JsonValue;
 import jakarta.json.JsonWriter;
+import jakarta.json.spi.JsonProvider;
 import jakarta.json.stream.JsonGenerator;
 import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.json.stream.JsonParser;
 import org.apache.commons.io.FileUtils;
 import org.apache.felix.cm.json.io.Configurations;
 import org.apache.sling.feature.Artifact;
@@ -51,6 +55,9 @@ public class JSONFeatures {
 
     public static final ArtifactId PLACEHOLDER_ID = new ArtifactId("_", "_", "1.0", null, null);
 
+    /** Looking up the provider is expensive, it is done once instead of per value */
+    private static final JsonProvider PROVIDER = JsonProvider.provider();
+
     /**
      * Read the feature and add the {@code id} attribute if missing
      * @param reader The reader
@@ -61,23 +68,90 @@ public class JSONFeatures {
      */
     public static String read(final Reader reader, final ArtifactId optionalId, final String location)
             throws IOException {
-        JsonObject featureObj;
-        try (JsonReader jsonReader = Json.createReader(Configurations.jsonCommentAwareReader(reader))) {
-            featureObj = jsonReader.readObject();
-            if (!featureObj.containsKey("id")) {
-                final JsonObjectBuilder job = Json.createObjectBuilder();
-                job.add("id", optionalId.toMvnId());
-                for (final Map.Entry<String, JsonValue> prop : featureObj.entrySet()) {
-                    job.add(prop.getKey(), prop.getValue());
-                }
-                featureObj = job.build();
+        return toJSON(read(reader, optionalId, location, UnaryOperator.identity()));
+    }
+
+    /**
+     * Read the feature in a single pass and add the {@code id} attribute if missing. The
+     * replacer is applied to all names and string values, other values are kept as is.
+     * @param reader The reader
+     * @param optionalId The artifact id to use if the {@code id} attribute is missing
+     * @param location The location
+     * @param replacer The function replacing variables
+     * @return The feature as a JSON object
+     * @throws IOException If reading fails
+     */
+    public static JsonObject read(
+            final Reader reader,
+            final ArtifactId optionalId,
+            final String location,
+            final UnaryOperator<String> replacer)
+            throws IOException {
+        try (JsonParser parser = PROVIDER.createParser(Configurations.jsonCommentAwareReader(reader))) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT) {
+                throw new IOException(location.concat(" : Feature must be a JSON object"));
+            }
+            final JsonObject featureObj = readObject(parser, replacer);
+            if (parser.hasNext()) {
+                throw new IOException(location.concat(" : Unexpected content after the feature"));
             }
+            if (featureObj.containsKey("id")) {
+                return featureObj;
+            }
+            return PROVIDER.createObjectBuilder()
+                    .add("id", optionalId.toMvnId())
+                    .addAll(PROVIDER.createObjectBuilder(featureObj))
+                    .build();
         } catch (final JsonException je) {
             throw new IOException(location.concat(" : ").concat(je.getMessage()), je);
         }
+    }
+
+    private static JsonObject readObject(final JsonParser parser, final UnaryOperator<String> replacer) {
+        final JsonObjectBuilder builder = PROVIDER.createObjectBuilder();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            final String name = replacer.apply(parser.getString());
+            builder.add(name, readValue(parser, parser.next(), replacer));
+        }
+        return builder.build();
+    }
+
+    private static JsonValue readValue(
+            final JsonParser parser, final JsonParser.Event event, final UnaryOperator<String> replacer) {
+        switch (event) {
+            case START_OBJECT:
+                return readObject(parser, replacer);
+            case START_ARRAY:
+                final JsonArrayBuilder builder = PROVIDER.createArrayBuilder();
+                JsonParser.Event next;
+                while ((next = parser.next()) != JsonParser.Event.END_ARRAY) {
+                    builder.add(readValue(parser, next, replacer));
+                }
+                return builder.build();
+            case VALUE_STRING:
+                return PROVIDER.createValue(replacer.apply(parser.getString()));
+            case VALUE_NUMBER:
+                return PROVIDER.createValue(parser.getBigDecimal());
+            case VALUE_TRUE:
+                return JsonValue.TRUE;
+            case VALUE_FALSE:
+                return JsonValue.FALSE;
+            case VALUE_NULL:
+                return JsonValue.NULL;
+            default:
+                throw new JsonException("Unexpected event " + event + " at " + parser.getLocation());
+        }
+    }
 
+    /**
+     * Write a feature JSON object to a string
+     * @param featureObj The feature
+     * @return The feature as a string
+     * @throws IOException If writing fails
+     */
+    public static String toJSON(final JsonObject featureObj) throws IOException {
         try (final StringWriter writer = new StringWriter()) {
-            try (final JsonWriter jsonWriter = Json.createWriter(writer)) {
+            try (final JsonWriter jsonWriter = PROVIDER.createWriter(writer)) {
                 jsonWriter.writeObject(featureObj);
             }
             return writer.toString();
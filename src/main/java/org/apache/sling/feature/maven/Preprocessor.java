@@ -24,22 +24,30 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.Formatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.fge.jsonschema.core.exceptions.ProcessingException;
-import com.github.fge.jsonschema.core.report.LogLevel;
-import com.github.fge.jsonschema.core.report.ProcessingMessage;
-import com.github.fge.jsonschema.core.report.ProcessingReport;
-import com.github.fge.jsonschema.main.JsonSchema;
-import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import jakarta.json.JsonObject;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Exclusion;
 import org.apache.maven.project.MavenProject;
@@ -59,61 +67,92 @@ import org.codehaus.plexus.logging.Logger;
  */
 public class Preprocessor {
 
-    private final JsonSchema schema;
+    /**
+     * The property for the number of threads reading and assembling the features. It can be set
+     * as a user property, like {@code -Dsling.feature.preprocessor.threads=2}, or as a system property.
+     */
+    public static final String PROPERTY_THREADS = "sling.feature.preprocessor.threads";
 
-    private final ObjectMapper objectMapper;
+    /** The maximum number of threads used by default */
+    private static final int DEFAULT_MAX_THREADS = 8;
 
-    public Preprocessor() {
-        JsonSchemaFactory schemaFactory = JsonSchemaFactory.byDefault();
-        String jsonSchemaUri = getClass()
-                .getClassLoader()
-                .getResource("META-INF/feature/Feature-1.0.0.schema.json")
-                .toExternalForm();
-        try {
-            schema = schemaFactory.getJsonSchema(jsonSchemaUri);
-        } catch (ProcessingException e) {
-            throw new RuntimeException("An error occured when retrieving the JSON Schema from " + jsonSchemaUri, e);
-        }
-        objectMapper = new ObjectMapper();
-    }
+    /** The validators, by the directory persisting the validated files */
+    private final Map<File, FeatureValidator> validators = new ConcurrentHashMap<>();
 
-    private void checkFeatureFileValidation(File featureFile, String json) {
-        try {
-            JsonNode instance = objectMapper.readTree(json);
-            ProcessingReport report = schema.validate(instance, true);
-            if (!report.isSuccess()) {
-                Formatter formatter = new Formatter();
-                formatter.format("Feature file %s validation detected one or more errors:%n", featureFile);
-                for (ProcessingMessage message : report) {
-                    if (LogLevel.FATAL == message.getLogLevel() || LogLevel.ERROR == message.getLogLevel())
-                        formatter.format(
-                                " * %s: %s%n",
-                                message.asJson().get("schema").get("pointer").asText(), message.getMessage());
-                }
-                String errorMessage = formatter.toString();
-                formatter.close();
-                throw new RuntimeException(errorMessage);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("An error occurred while reading " + featureFile + " Feature file:", e);
-        } catch (ProcessingException e) {
-            throw new RuntimeException(
-                    "An error occurred while validating Feature " + featureFile + ", read the log for details:", e);
-        }
+    /** The executor while processing, {@code null} otherwise */
+    private volatile Executor executor;
+
+    private FeatureValidator getValidator(final MavenProject project) {
+        return this.validators.computeIfAbsent(ProjectHelper.getTmpDir(project), FeatureValidator::new);
     }
 
     /**
      * Process the provided projects.
+     * The features of all projects are read first. Then the features are assembled, a feature
+     * is assembled as soon as its prototype is assembled. Independent features and projects are
+     * assembled concurrently.
      * @param env The environment with all maven settings and projects
      */
     public void process(final Environment env) {
+        // set metadata first, it is used while reading the features
         for (final FeatureProjectInfo finfo : env.modelProjects.values()) {
             final FeatureProjectConfig cfg = FeatureProjectConfig.getMainConfig(finfo);
             ProjectHelper.setDefaultMetadata(finfo.project, cfg.getDefaultMetadata());
+        }
+
+        final ExecutorService executor = createExecutor(env);
+        this.executor = executor;
+        try {
+            // restore cached features, read all others
+            final Map<String, FeatureCache> caches = new ConcurrentHashMap<>();
+            final Map<String, FeatureCache.Entry> entries = new ConcurrentHashMap<>();
+            runAll(env, executor, (key, finfo) -> {
+                loadCache(env, key, finfo, FeatureProjectConfig.getMainConfig(finfo), caches, entries);
+                loadCache(env, key, finfo, FeatureProjectConfig.getTestConfig(finfo), caches, entries);
+            });
+            validateCacheEntries(env, entries);
+            runAll(env, executor, (key, finfo) -> {
+                for (final FeatureProjectConfig cfg : Arrays.asList(
+                        FeatureProjectConfig.getMainConfig(finfo), FeatureProjectConfig.getTestConfig(finfo))) {
+                    final FeatureCache.Entry entry = entries.get(getNodeKey(key, cfg));
+                    if (entry != null) {
+                        restore(env, finfo, cfg, entry);
+                    } else {
+                        read(env, finfo, cfg);
+                    }
+                }
+            });
 
-            process(env, finfo, cfg);
-            process(env, finfo, FeatureProjectConfig.getTestConfig(finfo));
+            // assemble features, the projects are sorted by their dependencies
+            final List<ProjectNode> nodes = createProjectNodes(env);
+            for (final ProjectNode node : sort(
+                    nodes, n -> n.dependencies, ProjectNode::toString, "between projects")) {
+                final CompletableFuture<?>[] dependencies = node.dependencies.stream()
+                        .map(n -> n.future)
+                        .toArray(CompletableFuture<?>[]::new);
+                final String nodeKey = getNodeKey(node.projectKey, node.config);
+                if (entries.containsKey(nodeKey)) {
+                    node.future = CompletableFuture.allOf(dependencies);
+                } else {
+                    node.future = CompletableFuture.allOf(dependencies)
+                            .thenComposeAsync(
+                                    v -> {
+                                        final int start = getDependencyCount(node.info);
+                                        return assemble(env, node.info, node.config, executor)
+                                                .thenRun(() -> saveCache(env, node, caches.get(nodeKey), start));
+                                    },
+                                    executor);
+                }
+            }
+            for (final ProjectNode node : nodes) {
+                join(node.future);
+            }
+        } finally {
+            this.executor = null;
+            executor.shutdown();
+        }
 
+        for (final FeatureProjectInfo finfo : env.modelProjects.values()) {
             ProjectHelper.storeProjectInfo(finfo);
 
             ProjectHelper.validateFeatureClassifiers(finfo.project);
@@ -121,14 +160,404 @@ public class Preprocessor {
     }
 
     /**
-     * Process a feature project.
+     * Create the executor used to read and assemble the features
+     * @param env The environment
+     * @return The executor
+     */
+    private ExecutorService createExecutor(final Environment env) {
+        String value = null;
+        if (env.session != null) {
+            value = env.session.getUserProperties().getProperty(PROPERTY_THREADS);
+        }
+        if (value == null) {
+            value = System.getProperty(PROPERTY_THREADS);
+        }
+        final int threads = getThreads(value, Runtime.getRuntime().availableProcessors(), env.logger);
+        env.logger.debug("Using " + threads + " threads for reading and assembling features");
+        final AtomicInteger count = new AtomicInteger();
+        // the feature model and the schema are loaded through the class loader of the extension
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "feature-preprocessor-" + count.incrementAndGet());
+            thread.setContextClassLoader(classLoader);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the number of threads for reading and assembling the features
+     * @param value The configured value, might be {@code null}
+     * @param processors The number of available processors
+     * @param logger The logger
+     * @return The configured number of threads or, if not configured or invalid, the number
+     *         of processors but not more than {@value #DEFAULT_MAX_THREADS}
+     */
+    static int getThreads(final String value, final int processors, final Logger logger) {
+        if (value != null) {
+            try {
+                final int threads = Integer.parseInt(value.trim());
+                if (threads > 0) {
+                    return threads;
+                }
+            } catch (final NumberFormatException ignore) {
+                // use the default
+            }
+            logger.warn("Ignoring invalid value for " + PROPERTY_THREADS + " : " + value);
+        }
+        return Math.max(1, Math.min(processors, DEFAULT_MAX_THREADS));
+    }
+
+    /**
+     * Run a task for each project concurrently and wait for all of them
+     */
+    private static void runAll(
+            final Environment env, final Executor executor, final BiConsumer<String, FeatureProjectInfo> task) {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (final Map.Entry<String, FeatureProjectInfo> entry : env.modelProjects.entrySet()) {
+            futures.add(CompletableFuture.runAsync(() -> task.accept(entry.getKey(), entry.getValue()), executor));
+        }
+        for (final CompletableFuture<Void> f : futures) {
+            join(f);
+        }
+    }
+
+    private static String getNodeKey(final String projectKey, final FeatureProjectConfig config) {
+        return projectKey.concat(config.isTestConfig() ? "/test" : "/main");
+    }
+
+    /**
+     * Load the cache entry for the features of a project, if caching is enabled
+     */
+    private void loadCache(
+            final Environment env,
+            final String projectKey,
+            final FeatureProjectInfo info,
+            final FeatureProjectConfig config,
+            final Map<String, FeatureCache> caches,
+            final Map<String, FeatureCache.Entry> entries) {
+        // the legacy variable replacement might use any value of the project model
+        if (!config.isCache() || config.isEnableLegacyVariableReplacement()) {
+            return;
+        }
+        try {
+            final FeatureCache cache = new FeatureCache(info, config, this.getClass().getName());
+            caches.put(getNodeKey(projectKey, config), cache);
+            final FeatureCache.Entry entry = cache.load(env.logger);
+            if (entry != null) {
+                entries.put(getNodeKey(projectKey, config), entry);
+            }
+        } catch (final IOException ioe) {
+            env.logger.debug("Unable to use cache for " + config.getName() + " of project " + info.project.getId()
+                    + " : " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Remove all cache entries depending on the features of a project which are not restored from the cache.
+     * The test features depend on the main features of the project, and all features depend on the
+     * reactor projects containing their prototypes.
+     */
+    private void validateCacheEntries(final Environment env, final Map<String, FeatureCache.Entry> entries) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (final Map.Entry<String, FeatureProjectInfo> project : env.modelProjects.entrySet()) {
+                for (final FeatureProjectConfig cfg : Arrays.asList(
+                        FeatureProjectConfig.getMainConfig(project.getValue()),
+                        FeatureProjectConfig.getTestConfig(project.getValue()))) {
+                    final String nodeKey = getNodeKey(project.getKey(), cfg);
+                    final FeatureCache.Entry entry = entries.get(nodeKey);
+                    if (entry == null) {
+                        continue;
+                    }
+                    final List<String> required = new ArrayList<>();
+                    if (cfg.isTestConfig()) {
+                        required.add(project.getKey().concat("/main"));
+                    }
+                    for (final String key : entry.reactorPrototypes) {
+                        required.add(key.concat("/main"));
+                        if (cfg.isTestConfig()) {
+                            required.add(key.concat("/test"));
+                        }
+                    }
+                    for (final String key : required) {
+                        if (!entries.containsKey(key)) {
+                            env.logger.debug("Cached " + cfg.getName() + " of project "
+                                    + project.getValue().project.getId() + " depends on changed project " + key);
+                            entries.remove(nodeKey);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Restore the features of a project from the cache
+     */
+    private void restore(
+            final Environment env,
+            final FeatureProjectInfo info,
+            final FeatureProjectConfig config,
+            final FeatureCache.Entry entry) {
+        env.logger.debug("Restoring cached " + config.getName() + " of project " + info.project.getId());
+        if (config.isTestConfig()) {
+            info.testFeatureDone = true;
+            info.testFeatures.putAll(entry.features);
+            info.assembledTestFeatures.putAll(entry.assembledFeatures);
+        } else {
+            info.featureDone = true;
+            info.features.putAll(entry.features);
+            info.assembledFeatures.putAll(entry.assembledFeatures);
+        }
+        for (final String[] dep : entry.dependencies) {
+            this.addDependency(env.logger, info.project, ArtifactId.parse(dep[0]), dep[1]);
+        }
+    }
+
+    private static int getDependencyCount(final FeatureProjectInfo info) {
+        synchronized (info.project) {
+            return info.project.getDependencies().size();
+        }
+    }
+
+    /**
+     * Save the assembled features of a project to the cache, if caching is enabled
+     * @param start The number of dependencies of the project before the features were assembled
+     */
+    private void saveCache(final Environment env, final ProjectNode node, final FeatureCache cache, final int start) {
+        if (cache == null) {
+            return;
+        }
+        final FeatureProjectInfo info = node.info;
+        // dependencies which are declared already are not added again, they are part of the hash of the cache
+        final List<String[]> dependencies = new ArrayList<>();
+        synchronized (info.project) {
+            final List<Dependency> list = info.project.getDependencies();
+            for (final Dependency d : list.subList(start, list.size())) {
+                dependencies.add(new String[] {ProjectHelper.toArtifactId(d).toMvnId(), d.getScope()});
+            }
+        }
+        final Map<String, Feature> features = node.config.isTestConfig() ? info.testFeatures : info.features;
+        final Set<File> prototypeFiles = new LinkedHashSet<>();
+        try {
+            for (final Feature f : features.values()) {
+                if (f.getPrototype() != null) {
+                    final ArtifactId id = f.getPrototype().getId();
+                    final String key = id.getGroupId() + ":" + id.getArtifactId();
+                    if (!key.equals(node.projectKey) && !env.modelProjects.containsKey(key)) {
+                        prototypeFiles.add(resolveArtifact(env, info, id).getFile());
+                    }
+                }
+            }
+        } catch (final RuntimeException e) {
+            env.logger.debug("Not caching " + node + " : " + e.getMessage());
+            return;
+        }
+        cache.save(
+                env.logger, getReactorPrototypes(env, node.projectKey, features), prototypeFiles, dependencies);
+    }
+
+    /**
+     * Run the tasks using the executor and wait for all of them. The calling thread runs the tasks
+     * which are not started yet itself, so it might be a thread of the same executor.
+     * @param tasks The tasks, they must not wait for other tasks
+     * @param executor The executor, if {@code null} all tasks are run by the calling thread
+     * @return The results, in the order of the tasks
+     */
+    static <T> List<T> callAll(final List<Supplier<T>> tasks, final Executor executor) {
+        final List<CompletableFuture<T>> futures = new ArrayList<>();
+        final List<AtomicBoolean> started = new ArrayList<>();
+        for (final Supplier<T> task : tasks) {
+            final CompletableFuture<T> future = new CompletableFuture<>();
+            final AtomicBoolean flag = new AtomicBoolean();
+            futures.add(future);
+            started.add(flag);
+            if (executor != null && tasks.size() > 1) {
+                executor.execute(() -> call(task, flag, future));
+            }
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            call(tasks.get(i), started.get(i), futures.get(i));
+        }
+        final List<T> result = new ArrayList<>();
+        for (final CompletableFuture<T> future : futures) {
+            join(future);
+            result.add(future.join());
+        }
+        return result;
+    }
+
+    private static <T> void call(
+            final Supplier<T> task, final AtomicBoolean started, final CompletableFuture<T> future) {
+        if (started.compareAndSet(false, true)) {
+            try {
+                future.complete(task.get());
+            } catch (final RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void join(final CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The main or the test features of a project
+     */
+    private static final class ProjectNode {
+
+        final String projectKey;
+
+        final FeatureProjectInfo info;
+
+        final FeatureProjectConfig config;
+
+        final Set<ProjectNode> dependencies = new LinkedHashSet<>();
+
+        CompletableFuture<Void> future;
+
+        ProjectNode(final String projectKey, final FeatureProjectInfo info, final FeatureProjectConfig config) {
+            this.projectKey = projectKey;
+            this.info = info;
+            this.config = config;
+        }
+
+        @Override
+        public String toString() {
+            return this.info.project.getId() + " (" + this.config.getName() + ")";
+        }
+    }
+
+    /**
+     * Create the nodes for all projects. A project depends on the reactor projects
+     * containing the prototypes of its features. The test features of a project depend
+     * on the main features of the project.
+     * @param env The environment
+     * @return The list of nodes
+     */
+    private List<ProjectNode> createProjectNodes(final Environment env) {
+        final Map<String, ProjectNode> mainNodes = new LinkedHashMap<>();
+        final Map<String, ProjectNode> testNodes = new LinkedHashMap<>();
+        for (final Map.Entry<String, FeatureProjectInfo> entry : env.modelProjects.entrySet()) {
+            final FeatureProjectInfo finfo = entry.getValue();
+            mainNodes.put(
+                    entry.getKey(), new ProjectNode(entry.getKey(), finfo, FeatureProjectConfig.getMainConfig(finfo)));
+            testNodes.put(
+                    entry.getKey(), new ProjectNode(entry.getKey(), finfo, FeatureProjectConfig.getTestConfig(finfo)));
+        }
+        for (final Map.Entry<String, FeatureProjectInfo> entry : env.modelProjects.entrySet()) {
+            final ProjectNode mainNode = mainNodes.get(entry.getKey());
+            final ProjectNode testNode = testNodes.get(entry.getKey());
+            testNode.dependencies.add(mainNode);
+            for (final String key : getReactorPrototypes(env, entry.getKey(), entry.getValue().features)) {
+                mainNode.dependencies.add(mainNodes.get(key));
+            }
+            for (final String key : getReactorPrototypes(env, entry.getKey(), entry.getValue().testFeatures)) {
+                testNode.dependencies.add(testNodes.get(key));
+                testNode.dependencies.add(mainNodes.get(key));
+            }
+        }
+        final List<ProjectNode> result = new ArrayList<>(mainNodes.values());
+        result.addAll(testNodes.values());
+        return result;
+    }
+
+    /**
+     * Get the other reactor projects containing prototypes of the features
+     * @param env The environment
+     * @param projectKey The key of the project containing the features
+     * @param features The features
+     * @return The keys of the projects
+     */
+    private Set<String> getReactorPrototypes(
+            final Environment env, final String projectKey, final Map<String, Feature> features) {
+        final Set<String> result = new LinkedHashSet<>();
+        for (final Feature f : features.values()) {
+            if (f.getPrototype() != null) {
+                final ArtifactId id = f.getPrototype().getId();
+                final String key = id.getGroupId() + ":" + id.getArtifactId();
+                if (!projectKey.equals(key) && env.modelProjects.containsKey(key)) {
+                    result.add(key);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sort the nodes such that all dependencies of a node are before the node
+     * @param nodes The nodes
+     * @param dependencies Function returning the dependencies of a node
+     * @param names Function returning the name of a node
+     * @param context Description of the nodes for the error message
+     * @return The sorted list
+     * @throws RuntimeException If a circular dependency is detected, the message contains the cycle
+     */
+    static <T> List<T> sort(
+            final Collection<T> nodes,
+            final Function<T, Collection<T>> dependencies,
+            final Function<T, String> names,
+            final String context) {
+        final List<T> result = new ArrayList<>();
+        final Set<T> done = new HashSet<>();
+        final List<T> path = new ArrayList<>();
+        for (final T node : nodes) {
+            visit(node, dependencies, names, context, path, done, result);
+        }
+        return result;
+    }
+
+    private static <T> void visit(
+            final T node,
+            final Function<T, Collection<T>> dependencies,
+            final Function<T, String> names,
+            final String context,
+            final List<T> path,
+            final Set<T> done,
+            final List<T> result) {
+        if (done.contains(node)) {
+            return;
+        }
+        final int index = path.indexOf(node);
+        if (index != -1) {
+            final StringBuilder sb = new StringBuilder("Circular dependency in features ");
+            sb.append(context).append(" : ");
+            for (int i = index; i < path.size(); i++) {
+                sb.append(names.apply(path.get(i))).append(" -> ");
+            }
+            sb.append(names.apply(node));
+            throw new RuntimeException(sb.toString());
+        }
+        path.add(node);
+        for (final T dep : dependencies.apply(node)) {
+            visit(dep, dependencies, names, context, path, done, result);
+        }
+        path.remove(path.size() - 1);
+        done.add(node);
+        result.add(node);
+    }
+
+    /**
+     * Read the features of a feature project.
      * This method is invoked twice, once for the main project and then for testing.
      *
      * @param env The environment with all maven settings and projects
      * @param info The project to process.
      * @param config The configuration for the project.
      */
-    private void process(final Environment env, final FeatureProjectInfo info, final FeatureProjectConfig config) {
+    private void read(final Environment env, final FeatureProjectInfo info, final FeatureProjectConfig config) {
         if ((config.isTestConfig() && info.testFeatureDone == true)
                 || (!config.isTestConfig() && info.featureDone == true)) {
             env.logger.debug("Return assembled " + config.getName() + " for " + info.project.getId());
@@ -176,82 +605,137 @@ public class Preprocessor {
                         .add(jar);
             }
         }
+    }
 
-        // assemble features
+    /**
+     * Assemble the features of a feature project. A feature is assembled once its
+     * prototype from the same project is assembled, independent features are assembled
+     * concurrently. All reactor projects the features depend on must already be assembled.
+     *
+     * @param env The environment with all maven settings and projects
+     * @param info The project to process.
+     * @param config The configuration for the project.
+     * @param executor The executor
+     * @return A future completing once all features are assembled
+     */
+    private CompletableFuture<Void> assemble(
+            final Environment env,
+            final FeatureProjectInfo info,
+            final FeatureProjectConfig config,
+            final Executor executor) {
         final Map<String, Feature> features = (config.isTestConfig() ? info.testFeatures : info.features);
-        final Map<String, Feature> processFeatures = new HashMap<>(features);
+        if (features.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
         final Map<String, Feature> aggregatedFeatures =
                 (config.isTestConfig() ? info.assembledTestFeatures : info.assembledFeatures);
-        while (aggregatedFeatures.size() < features.size()) {
-            final int start = aggregatedFeatures.size();
-
-            final Iterator<Map.Entry<String, Feature>> iter =
-                    processFeatures.entrySet().iterator();
-            while (iter.hasNext()) {
-                final Map.Entry<String, Feature> entry = iter.next();
-                boolean process = false;
-                if (entry.getValue().getPrototype() == null) {
-                    // no include we can process
-                    process = true;
-                } else {
-                    final ArtifactId prototype = entry.getValue().getPrototype().getId();
-                    if (!prototype.getGroupId().equals(info.project.getGroupId())
-                            || !prototype.getArtifactId().equals(info.project.getArtifactId())
-                            || !prototype.getVersion().equals(info.project.getVersion())) {
-                        process = true;
+
+        // prototypes within the project
+        final Map<String, String> prototypes = new HashMap<>();
+        for (final Map.Entry<String, Feature> entry : features.entrySet()) {
+            if (entry.getValue().getPrototype() != null) {
+                final ArtifactId prototype = entry.getValue().getPrototype().getId();
+                if (prototype.getGroupId().equals(info.project.getGroupId())
+                        && prototype.getArtifactId().equals(info.project.getArtifactId())
+                        && prototype.getVersion().equals(info.project.getVersion())) {
+                    final String key = features.entrySet().stream()
+                            .filter(e -> e.getValue().getId().equals(prototype))
+                            .map(Map.Entry::getKey)
+                            .findFirst()
+                            .orElseThrow(() -> new RuntimeException("Unable to find prototype " + prototype.toMvnId()
+                                    + " of feature " + entry.getValue().getId().toMvnId() + " in project "
+                                    + info.project.getId()));
+                    prototypes.put(entry.getKey(), key);
+                }
+            }
+        }
+
+        // the dependencies found while assembling, they are added in the order of the feature keys
+        // once all features are assembled, so the order does not depend on the thread timing
+        final Map<String, List<ArtifactId>> dependencies = new TreeMap<>();
+        final Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        for (final String key : sort(
+                features.keySet(),
+                k -> prototypes.containsKey(k) ? Collections.singleton(prototypes.get(k)) : Collections.emptySet(),
+                k -> features.get(k).getId().toMvnId(),
+                "in project " + info.project.getId())) {
+            final String prototypeKey = prototypes.get(key);
+            final CompletableFuture<Void> prototype =
+                    prototypeKey == null ? CompletableFuture.completedFuture(null) : futures.get(prototypeKey);
+            final List<ArtifactId> featureDependencies = new ArrayList<>();
+            dependencies.put(key, featureDependencies);
+            futures.put(
+                    key,
+                    prototype.thenRunAsync(
+                            () -> assemble(env, info, config, key, features.get(key), featureDependencies),
+                            executor));
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    for (final List<ArtifactId> featureDependencies : dependencies.values()) {
+                        for (final ArtifactId id : featureDependencies) {
+                            addDependency(env.logger, info.project, id, config.getScope());
+                        }
+                    }
+                    if (config.isSkipAddDependencies()) {
+                        env.logger.debug("Not adding artifacts from features as dependencies");
                     } else {
-                        // same project
                         for (final Feature f : aggregatedFeatures.values()) {
-                            if (f.getId().equals(prototype)) {
-                                process = true;
-                                break;
-                            }
+                            addDependenciesFromFeature(env, info, f, config.getScope());
                         }
                     }
-                }
-                if (process) {
-                    iter.remove();
-                    final Feature assembledFeature = FeatureBuilder.assemble(
-                            entry.getValue(),
-                            new BuilderContext(this.createFeatureProvider(
-                                            env,
-                                            info,
-                                            config.isTestConfig(),
-                                            config.isSkipAddDependencies(),
-                                            config.getScope(),
-                                            null))
-                                    .setArtifactProvider(aid -> {
-                                        try {
-                                            return ProjectHelper.getOrResolveArtifact(
-                                                            info.project,
-                                                            env.session,
-                                                            env.artifactHandlerManager,
-                                                            env.repoSystem,
-                                                            aid)
-                                                    .getFile()
-                                                    .toURI()
-                                                    .toURL();
-                                        } catch (Exception e) {
-                                            env.logger.error(e.getMessage(), e);
-                                            return null;
-                                        }
-                                    }));
-                    aggregatedFeatures.put(entry.getKey(), assembledFeature);
-                    break;
-                }
-            }
-            if (aggregatedFeatures.size() == start) {
-                throw new RuntimeException("Circular dependency in features in project " + info.project.getId());
-            }
+                });
+    }
+
+    /**
+     * Assemble a single feature and add it to the assembled features of the project
+     * @param dependencies Collects the features to add as dependencies to the project
+     */
+    private void assemble(
+            final Environment env,
+            final FeatureProjectInfo info,
+            final FeatureProjectConfig config,
+            final String key,
+            final Feature feature,
+            final List<ArtifactId> dependencies) {
+        final Feature assembledFeature = FeatureBuilder.assemble(
+                feature,
+                new BuilderContext(this.createFeatureProvider(
+                                env,
+                                info,
+                                config.isTestConfig(),
+                                config.isSkipAddDependencies(),
+                                config.getScope(),
+                                null,
+                                dependencies))
+                        .setArtifactProvider(aid -> {
+                            try {
+                                return resolveArtifact(env, info, aid)
+                                        .getFile()
+                                        .toURI()
+                                        .toURL();
+                            } catch (Exception e) {
+                                env.logger.error(e.getMessage(), e);
+                                return null;
+                            }
+                        }));
+        final Map<String, Feature> aggregatedFeatures =
+                (config.isTestConfig() ? info.assembledTestFeatures : info.assembledFeatures);
+        synchronized (aggregatedFeatures) {
+            aggregatedFeatures.put(key, assembledFeature);
         }
+    }
 
-        if (config.isSkipAddDependencies()) {
-            env.logger.debug("Not adding artifacts from features as dependencies");
-        } else {
-            for (final Feature f :
-                    (config.isTestConfig() ? info.assembledTestFeatures : info.assembledFeatures).values()) {
-                addDependenciesFromFeature(env, info, f, config.getScope());
-            }
+    /**
+     * Resolve an artifact for a project. The project context is not thread safe,
+     * therefore only one artifact is resolved per project at a time.
+     */
+    private org.apache.maven.artifact.Artifact resolveArtifact(
+            final Environment env, final FeatureProjectInfo info, final ArtifactId id) {
+        synchronized (info.project) {
+            return ProjectHelper.getOrResolveArtifact(
+                    info.project, env.session, env.artifactHandlerManager, env.repoSystem, id);
         }
     }
 
@@ -293,35 +777,19 @@ public class Preprocessor {
             final List<File> files = new ArrayList<>();
             ProjectHelper.scan(files, dir, config.getIncludes(), config.getExcludes());
 
+            // read and validate the files concurrently
+            final List<Supplier<String>> tasks = new ArrayList<>();
             for (final File file : files) {
-                logger.debug("Reading feature file " + file + " in project " + info.project.getId());
-
-                // if the feature is in the root of the configured directory
-                // and the feature is named "feature.json"
-                // and the feature is not a test feature, this is the main feature
-                // which does not get a classifier
-                final String suggestedClassifier;
-                if (config.isTestConfig()
-                        || !file.getName().equals("feature.json")
-                        || !file.getParentFile()
-                                .getAbsolutePath()
-                                .equals(new File(info.project.getBasedir(), config.getFeaturesDir())
-                                        .getAbsolutePath())) {
-                    final int lastDot = file.getName().lastIndexOf('.');
-                    suggestedClassifier = file.getName().substring(0, lastDot);
-                } else {
-                    suggestedClassifier = null;
-                }
-
-                final String readJson = ProjectHelper.readFeatureFile(
-                        info.project,
-                        file,
-                        suggestedClassifier,
-                        config.isEnableLegacyVariableReplacement(),
-                        config.isEnableProjectVariableReplacement(),
-                        config.getReplacePropertyVariables());
+                tasks.add(() -> readFeatureFile(logger, info, config, file));
+            }
+            final List<String> jsons = callAll(tasks, this.executor);
+            if (config.isValidate()) {
+                getValidator(info.project).save(logger);
+            }
 
-                final String json = preprocessFeature(info.project, config.isValidate(), file, readJson);
+            for (int i = 0; i < files.size(); i++) {
+                final File file = files.get(i);
+                final String json = jsons.get(i);
 
                 try (final Reader reader = new StringReader(json)) {
                     final Feature feature = FeatureJSONReader.read(reader, file.getAbsolutePath());
@@ -350,11 +818,68 @@ public class Preprocessor {
         }
     }
 
-    protected String preprocessFeature(final MavenProject project, boolean validate, final File file, String json) {
+    /**
+     * Read and preprocess a feature file of a project
+     *
+     * @param logger The logger
+     * @param info The project info
+     * @param config The configuration
+     * @param file The feature file
+     * @return The JSON of the feature
+     */
+    private String readFeatureFile(
+            final Logger logger, final FeatureProjectInfo info, final FeatureProjectConfig config, final File file) {
+        logger.debug("Reading feature file " + file + " in project " + info.project.getId());
+
+        // if the feature is in the root of the configured directory
+        // and the feature is named "feature.json"
+        // and the feature is not a test feature, this is the main feature
+        // which does not get a classifier
+        final String suggestedClassifier;
+        if (config.isTestConfig()
+                || !file.getName().equals("feature.json")
+                || !file.getParentFile()
+                        .getAbsolutePath()
+                        .equals(new File(info.project.getBasedir(), config.getFeaturesDir())
+                                .getAbsolutePath())) {
+            final int lastDot = file.getName().lastIndexOf('.');
+            suggestedClassifier = file.getName().substring(0, lastDot);
+        } else {
+            suggestedClassifier = null;
+        }
+
+        final JsonObject feature = ProjectHelper.readFeature(
+                info.project,
+                file,
+                suggestedClassifier,
+                config.isEnableLegacyVariableReplacement(),
+                config.isEnableProjectVariableReplacement(),
+                config.getReplacePropertyVariables());
+
+        return preprocessFeature(info.project, config.isValidate(), file, feature);
+    }
+
+    /**
+     * Preprocess a read feature file
+     *
+     * @param project The maven project
+     * @param validate Whether the feature is validated
+     * @param file The feature file
+     * @param feature The contents of the feature file
+     * @return The JSON of the feature
+     */
+    protected String preprocessFeature(
+            final MavenProject project, boolean validate, final File file, final JsonObject feature) {
+        final String json;
+        try {
+            json = JSONFeatures.toJSON(feature);
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to read feature file " + file.getAbsolutePath(), e);
+        }
 
         // validate
         if (validate) {
-            checkFeatureFileValidation(file, json);
+            getValidator(project).validate(file, feature, json);
         }
 
         return json;
@@ -377,6 +902,23 @@ public class Preprocessor {
             final boolean skipAddDependencies,
             final String dependencyScope,
             final List<Feature> projectFeatures) {
+        return this.createFeatureProvider(
+                env, info, isTest, skipAddDependencies, dependencyScope, projectFeatures, null);
+    }
+
+    /**
+     * Create the feature provider used while assembling a feature
+     * @param dependencies If not {@code null}, the provided features are collected in this list
+     *        instead of being added directly as dependencies to the project
+     */
+    private FeatureProvider createFeatureProvider(
+            final Environment env,
+            final FeatureProjectInfo info,
+            final boolean isTest,
+            final boolean skipAddDependencies,
+            final String dependencyScope,
+            final List<Feature> projectFeatures,
+            final List<ArtifactId> dependencies) {
         final String projectKey = info.project.getGroupId() + ":" + info.project.getArtifactId();
         return new FeatureProvider() {
 
@@ -393,7 +935,11 @@ public class Preprocessor {
                 try {
                     // add feature to dependencies
                     if (!skipAddDependencies) {
-                        addDependency(env.logger, info.project, id, dependencyScope);
+                        if (dependencies != null) {
+                            dependencies.add(id);
+                        } else {
+                            addDependency(env.logger, info.project, id, dependencyScope);
+                        }
                     }
 
                     final String key = id.getGroupId() + ":" + id.getArtifactId();
@@ -411,11 +957,7 @@ public class Preprocessor {
                     final FeatureProjectInfo depProjectInfo = env.modelProjects.get(key);
                     if (depProjectInfo != null) {
                         env.logger.debug("Found reactor " + id.getType() + " dependency to project: " + id);
-                        if (isTest) {
-                            process(env, depProjectInfo, FeatureProjectConfig.getTestConfig(depProjectInfo));
-                        } else {
-                            process(env, depProjectInfo, FeatureProjectConfig.getMainConfig(depProjectInfo));
-                        }
+                        // reactor projects are assembled before the projects depending on them
                         final Feature found = findFeature(depProjectInfo, isTest, id);
 
                         if (isTest && found == null) {
@@ -430,9 +972,8 @@ public class Preprocessor {
                         env.logger.debug("Found external " + id.getType() + " dependency: " + id);
 
                         // "external" dependency, we can already resolve it
-                        final File featureFile = ProjectHelper.getOrResolveArtifact(
-                                        info.project, env.session, env.artifactHandlerManager, env.repoSystem, id)
-                                .getFile();
+                        final File featureFile =
+                                resolveArtifact(env, info, id).getFile();
                         try (final FileReader r = new FileReader(featureFile)) {
                             return FeatureJSONReader.read(r, featureFile.getAbsolutePath());
                         } catch (final IOException ioe) {
@@ -450,39 +991,42 @@ public class Preprocessor {
 
     private void addDependency(
             final Logger logger, final MavenProject project, final ArtifactId id, final String scope) {
-        if (id.getGroupId().equals(project.getGroupId())
-                && id.getArtifactId().equals(project.getArtifactId())
-                && id.getVersion().equals(project.getVersion())) {
-            // skip artifact from the same project
-            logger.debug("- skipping dependency " + id.toMvnId());
-        } else {
+        // features of a project might be assembled concurrently
+        synchronized (project) {
+            if (id.getGroupId().equals(project.getGroupId())
+                    && id.getArtifactId().equals(project.getArtifactId())
+                    && id.getVersion().equals(project.getVersion())) {
+                // skip artifact from the same project
+                logger.debug("- skipping dependency " + id.toMvnId());
+            } else {
 
-            boolean found = false;
-            for (final Dependency d : project.getDependencies()) {
-                if (d.getGroupId().equals(id.getGroupId()) && d.getArtifactId().equals(id.getArtifactId())) {
-                    if (d.getVersion().equals(id.getVersion()) && d.getType().equals(id.getType())) {
-                        if (d.getClassifier() == null && id.getClassifier() == null) {
-                            found = true;
-                            break;
-                        }
-                        if (d.getClassifier() != null && d.getClassifier().equals(id.getClassifier())) {
-                            found = true;
-                            break;
+                boolean found = false;
+                for (final Dependency d : project.getDependencies()) {
+                    if (d.getGroupId().equals(id.getGroupId()) && d.getArtifactId().equals(id.getArtifactId())) {
+                        if (d.getVersion().equals(id.getVersion()) && d.getType().equals(id.getType())) {
+                            if (d.getClassifier() == null && id.getClassifier() == null) {
+                                found = true;
+                                break;
+                            }
+                            if (d.getClassifier() != null && d.getClassifier().equals(id.getClassifier())) {
+                                found = true;
+                                break;
+                            }
                         }
                     }
                 }
-            }
-            if (!found) {
-                logger.debug("- adding dependency " + id.toMvnId());
-                final Dependency dep = ProjectHelper.toDependency(id, scope);
+                if (!found) {
+                    logger.debug("- adding dependency " + id.toMvnId());
+                    final Dependency dep = ProjectHelper.toDependency(id, scope);
 
-                // Exclude all transitive dependencies coming from the feature model deps
-                Exclusion exclusion = new Exclusion();
-                exclusion.setGroupId("*");
-                exclusion.setArtifactId("*");
-                dep.addExclusion(exclusion);
+                    // Exclude all transitive dependencies coming from the feature model deps
+                    Exclusion exclusion = new Exclusion();
+                    exclusion.setGroupId("*");
+                    exclusion.setArtifactId("*");
+                    dep.addExclusion(exclusion);
 
-                project.getDependencies().add(dep);
+                    project.getDependencies().add(dep);
+                }
             }
         }
     }
@@ -500,10 +1044,12 @@ public class Preprocessor {
     private Feature findFeature(final Map<String, Feature> featureMap, final ArtifactId id) {
         Feature found = null;
         if (featureMap != null) {
-            for (final Map.Entry<String, Feature> f : featureMap.entrySet()) {
-                if (f.getValue().getId().equals(id)) {
-                    found = f.getValue();
-                    break;
+            synchronized (featureMap) {
+                for (final Map.Entry<String, Feature> f : featureMap.entrySet()) {
+                    if (f.getValue().getId().equals(id)) {
+                        found = f.getValue();
+                        break;
+                    }
                 }
             }
         }
@@ -18,14 +18,16 @@
  */
 package org.apache.sling.feature.maven;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -39,6 +41,7 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import jakarta.json.JsonObject;
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
@@ -83,18 +86,17 @@ public abstract class ProjectHelper {
 
     private static void store(final MavenProject project, final String key, final Map<String, Feature> features) {
         if (features != null && !features.isEmpty()) {
-            project.setContextValue(key, features.size());
             // we have to serialize as the dependency lifecycle participant uses a different class loader (!)
-            int index = 0;
-            for (final Map.Entry<String, Feature> entry : features.entrySet()) {
-                try (final StringWriter w1 = new StringWriter()) {
-                    FeatureJSONWriter.write(w1, entry.getValue());
-                    project.setContextValue(key + "_" + String.valueOf(index), w1.toString());
-                    project.setContextValue(key + "_" + String.valueOf(index) + "f", entry.getKey());
-                    index++;
-                } catch (final IOException ioe) {
-                    throw new RuntimeException(ioe.getMessage(), ioe);
-                }
+            try {
+                project.setContextValue(key, FeatureSnapshot.write(features, feature -> {
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (final Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                        FeatureJSONWriter.write(w, feature);
+                    }
+                    return out.toByteArray();
+                }));
+            } catch (final IOException ioe) {
+                throw new RuntimeException(ioe.getMessage(), ioe);
             }
         }
     }
@@ -114,25 +116,21 @@ public abstract class ProjectHelper {
             result = null;
         }
         if (result == null) {
-            result = new TreeMap<>();
-            final Integer size = (Integer) project.getContextValue(key);
-            if (size != null) {
-                for (int i = 0; i < size; i++) {
-                    final String text = (String) project.getContextValue(key + "_" + String.valueOf(i));
-                    if (text == null) {
-                        throw new RuntimeException("Unable to get feature from internal store.");
-                    }
-                    final String file = (String) project.getContextValue(key + "_" + String.valueOf(i) + "f");
-                    if (file == null) {
-                        throw new RuntimeException("Unable to get feature from internal store.");
-                    }
-                    try (final StringReader r = new StringReader(text)) {
-                        final Feature feature = FeatureJSONReader.read(r, project.getId());
-                        result.put(file, feature);
-                    } catch (final IOException ioe) {
-                        throw new RuntimeException(ioe.getMessage(), ioe);
-                    }
+            final Object snapshot = project.getContextValue(key);
+            if (snapshot == null) {
+                result = new TreeMap<>();
+            } else if (snapshot instanceof byte[]) {
+                try {
+                    result = FeatureSnapshot.read((byte[]) snapshot, in -> {
+                        try (final Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                            return FeatureJSONReader.read(r, project.getId());
+                        }
+                    });
+                } catch (final IOException ioe) {
+                    throw new RuntimeException("Unable to get feature from internal store.", ioe);
                 }
+            } else {
+                throw new RuntimeException("Unable to get feature from internal store.");
             }
             project.setContextValue(cacheKey, result);
         }
@@ -646,6 +644,33 @@ public abstract class ProjectHelper {
             final boolean legacyReplace,
             final boolean enableProjectVars,
             final String[] additionalVars) {
+        try {
+            return JSONFeatures.toJSON(
+                    readFeature(project, file, suggestedClassifier, legacyReplace, enableProjectVars, additionalVars));
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to read feature file " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Read a feature file in a single pass. The {@code id} is added if missing and
+     * variables are replaced in all names and string values.
+     *
+     * @param project The maven project
+     * @param file The feature file
+     * @param suggestedClassifier The classifier for the id, if the id is missing
+     * @param legacyReplace Whether the legacy replacement is used
+     * @param enableProjectVars Whether the project variables are replaced
+     * @param additionalVars Additional properties to replace, might be {@code null}
+     * @return The feature as a JSON object
+     */
+    public static JsonObject readFeature(
+            final MavenProject project,
+            final File file,
+            final String suggestedClassifier,
+            final boolean legacyReplace,
+            final boolean enableProjectVars,
+            final String[] additionalVars) {
         final ArtifactId fileId = new ArtifactId(
                 project.getGroupId(),
                 project.getArtifactId(),
@@ -653,14 +678,13 @@ public abstract class ProjectHelper {
                 suggestedClassifier,
                 FeatureConstants.PACKAGING_FEATURE);
 
-        // replace variables
+        // replace variables while reading
         try (final Reader reader = new FileReader(file)) {
-            return Substitution.replaceMavenVars(
-                    project,
-                    legacyReplace,
-                    enableProjectVars,
-                    additionalVars,
-                    JSONFeatures.read(reader, fileId, file.getAbsolutePath()));
+            return JSONFeatures.read(
+                    reader,
+                    fileId,
+                    file.getAbsolutePath(),
+                    Substitution.getReplacer(project, legacyReplace, enableProjectVars, additionalVars));
         } catch (final IOException e) {
             throw new RuntimeException("Unable to read feature file " + file.getAbsolutePath(), e);
         }
@@ -21,6 +21,7 @@ package org.apache.sling.feature.maven;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.function.UnaryOperator;
 
 import aQute.bnd.version.MavenVersion;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
@@ -42,6 +43,23 @@ public class Substitution {
             boolean replaceProjectProps,
             String[] additionalProperties,
             String s) {
+        return getReplacer(project, legacyReplace, replaceProjectProps, additionalProperties)
+                .apply(s);
+    }
+
+    /**
+     * Create a function replacing the variables in a string. The function can be applied
+     * to several strings, like the string values of a JSON document, but it must not be
+     * used by several threads at the same time.
+     *
+     * @param project The maven project
+     * @param legacyReplace Whether the legacy replacement is used
+     * @param replaceProjectProps Whether the project variables are replaced
+     * @param additionalProperties Additional properties to replace, might be {@code null}
+     * @return The replacing function
+     */
+    public static UnaryOperator<String> getReplacer(
+            MavenProject project, boolean legacyReplace, boolean replaceProjectProps, String[] additionalProperties) {
         RegexBasedInterpolator interpolator = new RegexBasedInterpolator();
         final RecursionInterceptor recursionInterceptor;
         if (legacyReplace) {
@@ -84,11 +102,17 @@ public class Substitution {
 
             recursionInterceptor = new SimpleRecursionInterceptor();
         }
-        try {
-            return interpolator.interpolate(s, recursionInterceptor);
-        } catch (InterpolationException e) {
-            throw new RuntimeException("An error occurred while interpolating variables to JSON:\n" + s, e);
-        }
+        return s -> {
+            // the interpolator only replaces ${...} expressions
+            if (s.indexOf("${") == -1) {
+                return s;
+            }
+            try {
+                return interpolator.interpolate(s, recursionInterceptor);
+            } catch (InterpolationException e) {
+                throw new RuntimeException("An error occurred while interpolating variables to JSON:\n" + s, e);
+            }
+        };
     }
 
     /**
@@ -120,6 +120,17 @@ public abstract class AbstractFeatureMojo extends AbstractMojo {
     @Parameter(name = FeatureProjectConfig.CFG_VALIDATE_FEATURES, defaultValue = "true")
     private boolean validateFeatures;
 
+    /**
+     * If set to {@code true} the read and assembled features are cached in the build directory
+     * and reused by later builds as long as the feature files, the configuration and the prototypes
+     * are unchanged. The cache is not used if the legacy variable replacement is enabled.
+     * Artifacts resolved by extension handlers while assembling are not tracked, therefore
+     * changes to them, for example to a SNAPSHOT, are not picked up while the cache is used.
+     * @since 1.9.7
+     */
+    @Parameter(name = FeatureProjectConfig.CFG_CACHE_FEATURES, defaultValue = "false")
+    private boolean cacheFeatures;
+
     /**
      * If set to {@code true} the artifacts from the feature are not added as dependencies
      * with scope={@code provided} to the project.
@@ -19,19 +19,21 @@
 package org.apache.sling.feature.maven.mojos;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -39,15 +41,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
-import java.util.jar.Manifest;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.jar.JarFile;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.felix.utils.manifest.Clause;
-import org.apache.felix.utils.manifest.Parser;
 import org.apache.maven.archiver.MavenArchiveConfiguration;
 import org.apache.maven.archiver.MavenArchiver;
 import org.apache.maven.execution.MavenSession;
@@ -91,11 +95,26 @@ import org.apache.sling.feature.maven.mojos.apis.ApisJarContext;
 import org.apache.sling.feature.maven.mojos.apis.ApisJarContext.ArtifactInfo;
 import org.apache.sling.feature.maven.mojos.apis.ApisUtil;
 import org.apache.sling.feature.maven.mojos.apis.ArtifactType;
+import org.apache.sling.feature.maven.mojos.apis.DeflateCache;
+import org.apache.sling.feature.maven.mojos.apis.DependencyRepositoryProber;
 import org.apache.sling.feature.maven.mojos.apis.DirectorySource;
+import org.apache.sling.feature.maven.mojos.apis.FileTreeIndex;
 import org.apache.sling.feature.maven.mojos.apis.FileSource;
+import org.apache.sling.feature.maven.mojos.apis.Fingerprint;
+import org.apache.sling.feature.maven.mojos.apis.GitSourceCache;
+import org.apache.sling.feature.maven.mojos.apis.JarEntryCopier;
+import org.apache.sling.feature.maven.mojos.apis.JarMetadataCache;
+import org.apache.sling.feature.maven.mojos.apis.JarMetadataCache.JarMetadata;
+import org.apache.sling.feature.maven.mojos.apis.JavadocClasspathCache;
 import org.apache.sling.feature.maven.mojos.apis.JavadocExecutor;
 import org.apache.sling.feature.maven.mojos.apis.JavadocLinks;
+import org.apache.sling.feature.maven.mojos.apis.Memoizer;
+import org.apache.sling.feature.maven.mojos.apis.PackageListCache;
+import org.apache.sling.feature.maven.mojos.apis.PomModelCache;
+import org.apache.sling.feature.maven.mojos.apis.RecordingJarArchiver;
 import org.apache.sling.feature.maven.mojos.apis.RegionSupport;
+import org.apache.sling.feature.maven.mojos.apis.SourceTranscoder;
+import org.apache.sling.feature.maven.mojos.apis.Timings;
 import org.apache.sling.feature.maven.mojos.apis.spi.Processor;
 import org.apache.sling.feature.maven.mojos.apis.spi.ProcessorContext;
 import org.apache.sling.feature.maven.mojos.apis.spi.Source;
@@ -308,6 +327,62 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
     @Parameter
     private String apiRepositoryUrls;
 
+    /**
+     * Maximum number of concurrent requests checking whether artifacts are available in
+     * the {@link #apiRepositoryUrls}.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "8")
+    private int apiRepositoryThreads;
+
+    /**
+     * Optional file to persist whether artifacts are available in the {@link #apiRepositoryUrls}.
+     * If set, the results are reused by later builds until they expire, see {@link #apiRepositoryCacheTtl}.
+     * @since 1.9.7
+     */
+    @Parameter
+    private File apiRepositoryCacheFile;
+
+    /**
+     * The time in minutes persisted results about the availability of artifacts in the
+     * {@link #apiRepositoryUrls} are valid.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "1440")
+    private long apiRepositoryCacheTtl;
+
+    /**
+     * Optional directory to persist the package lists of the javadoc links. Persisted lists are
+     * revalidated with the server on later builds.
+     * @since 1.9.7
+     */
+    @Parameter
+    private File javadocLinksCacheDirectory;
+
+    /**
+     * If enabled, the package lists of the javadoc links are not fetched but taken from
+     * the {@link #javadocLinksCacheDirectory}. The build fails if a list is not available.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "false")
+    private boolean javadocLinksOffline;
+
+    /**
+     * If enabled, sources are retrieved from git repositories using a mirror per repository which
+     * is shared between builds. Only the commit of the tag is fetched and only the sources of the
+     * module are extracted. The git executable must be available. Other SCM types are not affected.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "false")
+    private boolean useScmCache;
+
+    /**
+     * The directory for the git mirrors, see {@link #useScmCache}.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "${user.home}/.m2/slingfeature-cache/scm")
+    private File scmCacheDirectory;
+
     /**
      * If this is set to {@code false} the javadoc generated will always contain
      * all APIs even the api from dependencies (if {@link #useApiDependencies}) is
@@ -437,6 +512,122 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
     @Parameter(defaultValue = "false")
     private boolean includeProviderTypeResource;
 
+    /**
+     * Number of threads used to process the bundles of a feature and to resolve the
+     * license information for the license report.
+     * With the default value of 1, all bundles are processed one after the other. Work
+     * started from a thread which is already processing a bundle or a region is not run
+     * on additional threads. The generated jars are the same regardless of the number
+     * of threads.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "1")
+    private int apisJarThreads;
+
+    /**
+     * Number of threads used to create the jars for the regions of a feature. With the
+     * default value of 1, the regions are processed one after the other. Artifacts are
+     * attached and reports are written in the order of the regions regardless of the
+     * number of threads.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "1")
+    private int apisJarRegionThreads;
+
+    /**
+     * Number of threads used to find, resolve and process the bundles wrapped in a bundle.
+     * A bundle embedded in several bundles is only resolved once. With the default value of 1,
+     * the wrapped bundles are processed one after the other. The wrapped bundles are added to
+     * the bundles in the order of their bundle class path regardless of the number of threads.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "1")
+    private int wrappedBundleThreads;
+
+    /**
+     * If enabled, the deflated binaries and sources of the bundles are kept in a cache
+     * which is shared between builds. Artifacts with the same content and the same set
+     * of included packages and resources are then deflated only once.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "false")
+    private boolean useDeflateCache;
+
+    /**
+     * The directory of the cache for deflated binaries and sources.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "${user.home}/.m2/slingfeature-cache")
+    private File deflateCacheDirectory;
+
+    /**
+     * The maximum size of the cache for deflated binaries and sources in megabytes. If the cache
+     * gets bigger, the least recently used entries are removed at the end of the execution.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "4096")
+    private long deflateCacheMaxSize;
+
+    /**
+     * If enabled, the classes for the APIs jars are copied directly from the bundles
+     * into the jars without deflating them to disk first. The compressed entries are
+     * copied as is. This option is ignored if {@link #includeProviderTypeResource} is
+     * enabled, as the classes need to be processed.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "false")
+    private boolean streamApisJar;
+
+    /**
+     * If enabled, a fingerprint of the input of each region is stored next to the generated
+     * jars. If the fingerprint did not change since the last build and all jars of the region
+     * still exist, the jars are not created again. The bundles are still processed as the used
+     * packages are part of the fingerprint.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "false")
+    private boolean skipUnchangedRegions;
+
+    /**
+     * The created jars are verified using the entries recorded while writing them. If enabled,
+     * the jars are read again instead.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "false")
+    private boolean strictJarVerification;
+
+    /**
+     * If enabled, javadoc is generated within the running VM using the javadoc tool
+     * instead of forking a javadoc process. If the tool is not available in the running
+     * VM, a process is forked.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "false")
+    private boolean javadocInProcess;
+
+    /**
+     * Maximum number of javadoc generations running at the same time. As the regions
+     * might be processed concurrently, see {@link #apisJarRegionThreads}, this limits the
+     * memory and processor usage of javadoc. With the default value of 0, there is no
+     * additional limit.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "0")
+    private int javadocThreads;
+
+    /**
+     * Timestamp for reproducible output archive entries, either formatted as ISO 8601
+     * {@code yyyy-MM-dd'T'HH:mm:ssXXX} or as an int representing seconds since the epoch.
+     * It applies to the entries of all generated archives (apis, sources and javadoc),
+     * not only to the ones written while streaming the binaries.
+     * @since 1.9.7
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    private String outputTimestamp;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
     @Parameter(defaultValue = "${project.build.directory}/apis-jars", readonly = true)
     private File mainOutputDir;
 
@@ -454,9 +645,40 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
 
     private final Pattern pomPropertiesPattern = Pattern.compile("META-INF/maven/[^/]+/[^/]+/pom.properties");
 
+    /**
+     * Resolved wrapped bundles by artifact id and source encoding, the same library might be
+     * embedded in several bundles.
+     */
+    private final Memoizer<String, WrappedBundle> wrappedBundles =
+            new Memoizer<>(key -> "Unable to process wrapped bundle ".concat(key));
+
+    /** Threads for the wrapped bundles, only created if more than one thread is configured. */
+    private ExecutorService wrappedBundleExecutor;
+
     /** Artifact Provider. */
     private final ArtifactProvider artifactProvider = new BaseArtifactProvider();
 
+    /** Cache for deflated binaries, {@code null} if not enabled. */
+    private DeflateCache deflateCache;
+
+    /** Flag whether the classes of the APIs jars are copied directly from the bundles. */
+    private boolean streamBinaries;
+
+    /** Metadata of the jar files, shared by all features. */
+    private final JarMetadataCache jarMetadataCache = new JarMetadataCache();
+
+    /** Permits for running javadoc, {@code null} if not limited. */
+    private Semaphore javadocPermits;
+
+    /** Prober for the dependency repositories, {@code null} if not used. */
+    private DependencyRepositoryProber dependencyRepositoryProber;
+
+    /** Package lists of the javadoc links, shared by all regions. */
+    private PackageListCache packageListCache;
+
+    /** Mirrors of git repositories, {@code null} if not enabled. */
+    private GitSourceCache gitSourceCache;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         checkPreconditions();
@@ -472,8 +694,75 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
 
             this.mainOutputDir.mkdirs();
 
-            for (final Feature feature : features) {
-                onFeature(feature);
+            if (this.useDeflateCache) {
+                this.deflateCache =
+                        new DeflateCache(this.deflateCacheDirectory, this.deflateCacheMaxSize * 1024 * 1024, getLog());
+            }
+
+            if (this.javadocThreads > 0) {
+                this.javadocPermits = new Semaphore(this.javadocThreads);
+            }
+
+            this.streamBinaries = this.streamApisJar;
+            if (this.streamApisJar
+                    && !ApisUtil.getProcessors(this.includeProviderTypeResource).isEmpty()) {
+                getLog().info("Processors are configured, classes are deflated to disk");
+                this.streamBinaries = false;
+            }
+
+            // the package lists are shared by all executions with the same configuration
+            final String packageListConfiguration = (this.javadocLinksCacheDirectory != null
+                            ? this.javadocLinksCacheDirectory.getAbsolutePath()
+                            : "")
+                    + ":" + this.javadocLinksOffline;
+            this.packageListCache = ApisUtil.getSessionValue(
+                    this.mavenSession,
+                    PackageListCache.class,
+                    packageListConfiguration,
+                    () -> new PackageListCache(this.javadocLinksCacheDirectory, this.javadocLinksOffline, getLog()));
+
+            if (this.useScmCache) {
+                this.gitSourceCache = new GitSourceCache(this.scmCacheDirectory, getLog());
+            }
+
+            if (this.useApiDependencies && this.apiRepositoryUrls != null) {
+                // the prober is shared by all executions with the same configuration
+                final String proberConfiguration = this.apiRepositoryThreads + ":"
+                        + (this.apiRepositoryCacheFile != null ? this.apiRepositoryCacheFile.getAbsolutePath() : "")
+                        + ":" + this.apiRepositoryCacheTtl;
+                this.dependencyRepositoryProber = ApisUtil.getSessionValue(
+                        this.mavenSession,
+                        DependencyRepositoryProber.class,
+                        proberConfiguration,
+                        () -> new DependencyRepositoryProber(
+                                this.apiRepositoryThreads,
+                                this.apiRepositoryCacheFile,
+                                this.apiRepositoryCacheTtl * 60 * 1000));
+            }
+
+            try {
+                for (final Feature feature : features) {
+                    onFeature(feature);
+                }
+            } finally {
+                synchronized (this) {
+                    if (this.wrappedBundleExecutor != null) {
+                        this.wrappedBundleExecutor.shutdownNow();
+                        this.wrappedBundleExecutor = null;
+                    }
+                }
+            }
+
+            if (this.deflateCache != null) {
+                this.deflateCache.evict();
+            }
+
+            if (this.dependencyRepositoryProber != null) {
+                try {
+                    this.dependencyRepositoryProber.save();
+                } catch (final IOException e) {
+                    getLog().warn("Unable to write " + this.apiRepositoryCacheFile + " : " + e.getMessage());
+                }
             }
         }
     }
@@ -489,7 +778,12 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                 .toString());
 
         final RegionSupport regionSupport = new RegionSupport(
-                this.getLog(), this.incrementalApis, this.toggleApiOnly, this.includeRegions, this.excludeRegions);
+                this.getLog(),
+                this.incrementalApis,
+                this.toggleApiOnly,
+                this.includeRegions,
+                this.excludeRegions,
+                this.jarMetadataCache);
         final ApiRegions regions = regionSupport.getApiRegions(feature);
         if (regions == null) {
             // wrongly configured api regions - skip execution, info is logged already so we
@@ -497,9 +791,7 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             return;
         }
 
-        // create an output directory per feature
-        final File featureDir = new File(mainOutputDir, feature.getId().getArtifactId());
-        final ApisJarContext ctx = new ApisJarContext(this.mainOutputDir, feature);
+        final ApisJarContext ctx = new ApisJarContext(this.mainOutputDir, feature, this.jarMetadataCache);
         ctx.getConfig().setLicenseDefaults(this.licenseDefaults);
         ctx.getConfig().setLicenseReport(this.licenseReport);
         ctx.getConfig().setLicenseReportHeader(this.licenseReportHeader);
@@ -523,9 +815,17 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         ctx.getConfig().setUseApiDependenciesForJavadoc(this.useApiDependenciesForJavadoc);
         ctx.getConfig().setGenerateJavadocForAllApi(this.generateJavadocForAllApi);
         ctx.getConfig().setDependencyRepositories(this.apiRepositoryUrls);
+        if (this.dependencyRepositoryProber != null) {
+            ctx.setDependencyRepositoryProber(this.dependencyRepositoryProber);
+        }
+        ctx.setPomModelCache(PomModelCache.getCache(this.mavenSession));
 
         ctx.getConfig().logConfiguration(getLog());
 
+        final JavadocClasspathCache javadocClasspathCache = JavadocClasspathCache.getCache(this.mavenSession);
+        final long javadocClasspathHits = javadocClasspathCache.getHits();
+        final long javadocClasspathMisses = javadocClasspathCache.getMisses();
+
         // check additional extension configuration first to fail fast
         if (this.generateJavadocJar) {
             for (final ApiRegion apiRegion : regions.listRegions()) {
@@ -542,8 +842,19 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         }
 
         // for each bundle included in the feature file and record directories
+        final List<Callable<ArtifactInfo>> artifactTasks = new ArrayList<>();
         for (final Artifact artifact : feature.getBundles()) {
-            onArtifact(regions, ctx, regionSupport, artifact);
+            artifactTasks.add(() -> {
+                try (final Timings.Timer timer = ctx.getTimings().startArtifact(Timings.ARTIFACT, artifact.getId())) {
+                    return onArtifact(regions, ctx, regionSupport, artifact);
+                }
+            });
+        }
+        // add the infos in the order of the bundles to get the same result for any number of threads
+        for (final ArtifactInfo info : ApisUtil.invokeAll(artifactTasks, this.apisJarThreads)) {
+            if (info != null) {
+                ctx.addArtifactInfo(info);
+            }
         }
 
         final List<ArtifactInfo> additionalInfos = new ArrayList<>();
@@ -561,155 +872,29 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         ApisUtil.writeSourceReport(
                 this.generateSourceJar || this.generateJavadocJar, getLog(), sourcesReport, allInfos);
 
-        boolean hasErrors = false;
-
         // recollect and package stuff per region
+        final List<Callable<RegionResult>> regionTasks = new ArrayList<>();
         for (final ApiRegion apiRegion : regions.listRegions()) {
-            final String regionName = apiRegion.getName();
-            final List<String> report = new ArrayList<>();
-
-            final File regionDir = new File(featureDir, regionName);
-
-            final List<Map.Entry<String, File>> additionalResources = new ArrayList<>();
-            if (generateApiJar) {
-                final Collection<ArtifactInfo> infos =
-                        ctx.getArtifactInfos(regionName, ctx.getConfig().isUseApiDependencies());
-                this.runProcessor(ctx, apiRegion, ArtifactType.APIS, this.apiResources, additionalResources, infos);
-                final File apiJar = createArchive(
-                        ctx, apiRegion, ArtifactType.APIS, this.apiResources, infos, additionalResources, report);
-                report(
-                        ctx,
-                        apiJar,
-                        ArtifactType.APIS,
-                        regionSupport,
-                        apiRegion,
-                        ctx.getConfig().isUseApiDependencies(),
-                        report,
-                        null);
-                additionalResources.clear();
-            }
-
-            // run processor on sources
-            if (generateSourceJar || generateJavadocJar) {
-                final List<ArtifactInfo> infos = new ArrayList<>(ctx.getArtifactInfos(regionName, false));
-                if (generateJavadocJar) {
-                    infos.addAll(getAdditionalJavadocArtifacts(ctx, apiRegion, regionSupport));
-                }
-                this.runProcessor(ctx, apiRegion, ArtifactType.SOURCES, this.apiResources, additionalResources, infos);
-            }
-
-            if (generateSourceJar) {
-                final Collection<ArtifactInfo> infos =
-                        ctx.getArtifactInfos(regionName, ctx.getConfig().isUseApiDependencies());
-                final File sourceJar = createArchive(
-                        ctx,
-                        apiRegion,
-                        ArtifactType.SOURCES,
-                        this.apiSourceResources,
-                        infos,
-                        additionalResources,
-                        report);
-                report(
-                        ctx,
-                        sourceJar,
-                        ArtifactType.SOURCES,
-                        regionSupport,
-                        apiRegion,
-                        ctx.getConfig().isUseApiDependencies(),
-                        report,
-                        null);
-            }
-
-            if (ctx.getConfig().isUseApiDependencies() && (this.generateApiJar || this.generateSourceJar)) {
-                this.createDependenciesFile(ctx, apiRegion);
-            }
+            regionTasks.add(() -> onRegion(ctx, regionSupport, apiRegion));
+        }
 
-            if (generateJavadocJar) {
-                final File javadocsDir = new File(regionDir, ArtifactType.JAVADOC.getId());
-                final ExecutionEnvironmentExtension ext =
-                        ExecutionEnvironmentExtension.getExecutionEnvironmentExtension(feature);
-                final JavadocLinks links = new JavadocLinks();
-                links.calculateLinks(
-                        ctx.getConfig().getJavadocLinks(),
-                        ctx.getArtifactInfos(regionName, false),
-                        ext != null ? ext.getFramework() : null);
-
-                final Collection<ArtifactInfo> infos = generateJavadoc(
-                        ctx,
-                        regionName,
-                        links,
-                        javadocsDir,
-                        regionSupport,
-                        ctx.getConfig().isUseApiDependenciesForJavadoc());
-                ctx.setJavadocDir(javadocsDir);
-                final File javadocJar = createArchive(
-                        ctx, apiRegion, ArtifactType.JAVADOC, this.apiJavadocResources, infos, null, report);
-                report(
-                        ctx,
-                        javadocJar,
-                        ArtifactType.JAVADOC,
-                        regionSupport,
-                        apiRegion,
-                        ctx.getConfig().isUseApiDependenciesForJavadoc(),
-                        report,
-                        links);
-
-                if (ctx.getConfig().isUseApiDependencies() && ctx.getConfig().isGenerateJavadocForAllApi()) {
-                    final File javadocsAllDir = new File(regionDir, ArtifactType.JAVADOC_ALL.getId());
-                    final Collection<ArtifactInfo> infosForAll =
-                            generateJavadoc(ctx, regionName, links, javadocsAllDir, regionSupport, false);
-                    ctx.setJavadocDir(javadocsAllDir);
-                    final File javadocAllJar = createArchive(
-                            ctx,
-                            apiRegion,
-                            ArtifactType.JAVADOC_ALL,
-                            this.apiJavadocResources,
-                            infosForAll,
-                            null,
-                            report);
-                    report(ctx, javadocAllJar, ArtifactType.JAVADOC, regionSupport, apiRegion, false, report, links);
-                }
-            }
-
-            // write dependency report
-            final ArtifactId dependencyReportId = this.buildArtifactId(ctx, apiRegion, ArtifactType.DEPENDENCY_REPORT);
-            final File dependencyReportFile = new File(mainOutputDir, dependencyReportId.toMvnName());
-            if (this.useApiDependencies) {
-                final List<String> output = new ArrayList<>();
-                for (final ArtifactInfo info : ctx.getArtifactInfos(regionName, false)) {
-                    if (!info.isUseAsDependencyPerRegion(regionName)
-                            && !"".equals(info.getNotUseAsDependencyPerRegionReason(regionName))) {
-                        output.add("- "
-                                .concat(info.getId().toMvnId())
-                                .concat(" : ")
-                                .concat(info.getNotUseAsDependencyPerRegionReason(regionName)));
-                    }
-                }
-                Collections.sort(output);
-                if (output.isEmpty()) {
-                    output.add("All artifacts are used as a dependency");
-                } else {
-                    output.add(0, "The following artifacts are not used as a dependency:");
-                }
-                output.stream().forEach(msg -> getLog().info(msg));
-                try {
-                    Files.write(dependencyReportFile.toPath(), output);
-                } catch (final IOException e) {
-                    throw new MojoExecutionException("Unable to write " + dependencyReportFile, e);
-                }
-            } else {
-                if (dependencyReportFile.exists()) {
-                    dependencyReportFile.delete();
+        // attach artifacts and write reports in the order of the regions
+        boolean hasErrors = false;
+        for (final RegionResult result : ApisUtil.invokeAll(regionTasks, this.apisJarRegionThreads)) {
+            if (this.attachApiJars) {
+                for (final Map.Entry<ArtifactId, File> entry : result.attachments) {
+                    projectHelper.attachArtifact(
+                            project, entry.getKey().getType(), entry.getKey().getClassifier(), entry.getValue());
                 }
             }
 
             // write report
-            final ArtifactId reportId = this.buildArtifactId(ctx, apiRegion, ArtifactType.REPORT);
+            final ArtifactId reportId = this.buildArtifactId(ctx, result.apiRegion, ArtifactType.REPORT);
             final File reportFile = new File(mainOutputDir, reportId.toMvnName());
-            if (!report.isEmpty()) {
-                report.stream().forEach(v -> getLog().info(v));
+            if (!result.report.isEmpty()) {
+                result.report.stream().forEach(v -> getLog().info(v));
                 try {
-                    Files.write(reportFile.toPath(), report);
+                    Files.write(reportFile.toPath(), result.report);
                 } catch (final IOException e) {
                     throw new MojoExecutionException("Unable to write " + reportFile, e);
                 }
@@ -721,10 +906,33 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             }
         }
 
+        // timing report
+        final Timings timings = ctx.getTimings();
+        timings.recordCache(
+                "javadoc-classpath",
+                javadocClasspathCache.getHits() - javadocClasspathHits,
+                javadocClasspathCache.getMisses() - javadocClasspathMisses);
+        // one report per feature, like the other reports the name contains the feature classifier
+        final String timingReportName = feature.getId().getClassifier() == null
+                ? this.project.getArtifactId()
+                : this.project.getArtifactId().concat("-").concat(feature.getId().getClassifier());
+        final File timingReport = new File(mainOutputDir, timingReportName.concat("-timing-report.json"));
+        try {
+            timings.write(timingReport, feature.getId());
+        } catch (final IOException e) {
+            getLog().warn("Unable to write " + timingReport + " : " + e.getMessage());
+        }
+
         if (hasErrors && this.failOnError) {
             throw new MojoExecutionException("API generation has errors, please see report files for more information");
         }
 
+        if (this.generateJavadocJar) {
+            getLog().info("Javadoc classpath resolution in this session: "
+                    + javadocClasspathCache.getMisses() + " resolved, "
+                    + javadocClasspathCache.getHits() + " from cache");
+        }
+
         getLog().info(MessageUtils.buffer()
                 .a("APIs JARs for Feature ")
                 .project(feature.getId().toMvnId())
@@ -732,6 +940,334 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                 .toString());
     }
 
+    /**
+     * Create the api jars for a single region. This method might be called concurrently
+     * for different regions, therefore the created jars are not attached to the project
+     * and the report is not written but returned.
+     *
+     * @param ctx The context
+     * @param regionSupport The region support
+     * @param apiRegion The region
+     * @return The result for the region
+     * @throws MojoExecutionException If creating the jars fails
+     */
+    private RegionResult onRegion(
+            final ApisJarContext ctx, final RegionSupport regionSupport, final ApiRegion apiRegion)
+            throws MojoExecutionException {
+        final String regionName = apiRegion.getName();
+        final RegionResult result = new RegionResult(apiRegion);
+
+        final String fingerprint = this.skipUnchangedRegions ? this.getFingerprint(ctx, apiRegion) : null;
+        if (fingerprint != null && this.reuseRegion(ctx, apiRegion, fingerprint, result)) {
+            return result;
+        }
+
+        final List<Map.Entry<String, File>> additionalResources = new ArrayList<>();
+        if (generateApiJar) {
+            final Collection<ArtifactInfo> infos =
+                    ctx.getArtifactInfos(regionName, ctx.getConfig().isUseApiDependencies());
+            this.runProcessor(ctx, apiRegion, ArtifactType.APIS, this.apiResources, additionalResources, infos);
+            final File apiJar = createArchive(
+                    ctx, apiRegion, ArtifactType.APIS, this.apiResources, infos, additionalResources, result);
+            report(
+                    ctx,
+                    apiJar,
+                    ArtifactType.APIS,
+                    regionSupport,
+                    apiRegion,
+                    ctx.getConfig().isUseApiDependencies(),
+                    result,
+                    null);
+            additionalResources.clear();
+        }
+
+        // run processor on sources
+        if (generateSourceJar || generateJavadocJar) {
+            final List<ArtifactInfo> infos = new ArrayList<>(ctx.getArtifactInfos(regionName, false));
+            if (generateJavadocJar) {
+                infos.addAll(getAdditionalJavadocArtifacts(ctx, apiRegion, regionSupport));
+            }
+            this.runProcessor(ctx, apiRegion, ArtifactType.SOURCES, this.apiResources, additionalResources, infos);
+        }
+
+        if (generateSourceJar) {
+            final Collection<ArtifactInfo> infos =
+                    ctx.getArtifactInfos(regionName, ctx.getConfig().isUseApiDependencies());
+            final File sourceJar = createArchive(
+                    ctx,
+                    apiRegion,
+                    ArtifactType.SOURCES,
+                    this.apiSourceResources,
+                    infos,
+                    additionalResources,
+                    result);
+            report(
+                    ctx,
+                    sourceJar,
+                    ArtifactType.SOURCES,
+                    regionSupport,
+                    apiRegion,
+                    ctx.getConfig().isUseApiDependencies(),
+                    result,
+                    null);
+        }
+
+        if (ctx.getConfig().isUseApiDependencies() && (this.generateApiJar || this.generateSourceJar)) {
+            this.createDependenciesFile(ctx, apiRegion, result);
+        }
+
+        if (generateJavadocJar) {
+            final File javadocsDir = this.getJavadocDir(ctx, apiRegion, ArtifactType.JAVADOC);
+            final ExecutionEnvironmentExtension ext =
+                    ExecutionEnvironmentExtension.getExecutionEnvironmentExtension(ctx.getFeature());
+            final JavadocLinks links = new JavadocLinks(this.packageListCache);
+            links.calculateLinks(
+                    ctx.getConfig().getJavadocLinks(),
+                    ctx.getArtifactInfos(regionName, false),
+                    ext != null ? ext.getFramework() : null);
+
+            final Collection<ArtifactInfo> infos = generateJavadoc(
+                    ctx,
+                    regionName,
+                    links,
+                    javadocsDir,
+                    regionSupport,
+                    ctx.getConfig().isUseApiDependenciesForJavadoc());
+            final File javadocJar = createArchive(
+                    ctx, apiRegion, ArtifactType.JAVADOC, this.apiJavadocResources, infos, null, result);
+            report(
+                    ctx,
+                    javadocJar,
+                    ArtifactType.JAVADOC,
+                    regionSupport,
+                    apiRegion,
+                    ctx.getConfig().isUseApiDependenciesForJavadoc(),
+                    result,
+                    links);
+
+            if (ctx.getConfig().isUseApiDependencies() && ctx.getConfig().isGenerateJavadocForAllApi()) {
+                final File javadocsAllDir = this.getJavadocDir(ctx, apiRegion, ArtifactType.JAVADOC_ALL);
+                final Collection<ArtifactInfo> infosForAll =
+                        generateJavadoc(ctx, regionName, links, javadocsAllDir, regionSupport, false);
+                final File javadocAllJar = createArchive(
+                        ctx,
+                        apiRegion,
+                        ArtifactType.JAVADOC_ALL,
+                        this.apiJavadocResources,
+                        infosForAll,
+                        null,
+                        result);
+                report(ctx, javadocAllJar, ArtifactType.JAVADOC, regionSupport, apiRegion, false, result, links);
+            }
+        }
+
+        // write dependency report
+        final ArtifactId dependencyReportId = this.buildArtifactId(ctx, apiRegion, ArtifactType.DEPENDENCY_REPORT);
+        final File dependencyReportFile = new File(mainOutputDir, dependencyReportId.toMvnName());
+        if (this.useApiDependencies) {
+            final List<String> output = new ArrayList<>();
+            for (final ArtifactInfo info : ctx.getArtifactInfos(regionName, false)) {
+                if (!info.isUseAsDependencyPerRegion(regionName)
+                        && !"".equals(info.getNotUseAsDependencyPerRegionReason(regionName))) {
+                    output.add("- "
+                            .concat(info.getId().toMvnId())
+                            .concat(" : ")
+                            .concat(info.getNotUseAsDependencyPerRegionReason(regionName)));
+                }
+            }
+            Collections.sort(output);
+            if (output.isEmpty()) {
+                output.add("All artifacts are used as a dependency");
+            } else {
+                output.add(0, "The following artifacts are not used as a dependency:");
+            }
+            output.stream().forEach(msg -> getLog().info(msg));
+            try {
+                Files.write(dependencyReportFile.toPath(), output);
+            } catch (final IOException e) {
+                throw new MojoExecutionException("Unable to write " + dependencyReportFile, e);
+            }
+        } else {
+            if (dependencyReportFile.exists()) {
+                dependencyReportFile.delete();
+            }
+        }
+
+        if (fingerprint != null) {
+            this.writeFingerprint(ctx, apiRegion, fingerprint, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculate the fingerprint of the input for a region
+     * @param ctx The context
+     * @param apiRegion The region
+     * @return The fingerprint
+     * @throws MojoExecutionException If the input can't be read
+     */
+    private String getFingerprint(final ApisJarContext ctx, final ApiRegion apiRegion)
+            throws MojoExecutionException {
+        final String regionName = apiRegion.getName();
+        final Fingerprint fingerprint = new Fingerprint();
+        fingerprint.add("pluginVersion", this.pluginVersion);
+        fingerprint.add("project", this.project.getId());
+        fingerprint.add("description", this.project.getDescription());
+        fingerprint.add(
+                "organization",
+                this.project.getOrganization() != null
+                        ? this.project.getOrganization().getName()
+                        : null);
+        fingerprint.add("feature", ctx.getFeatureId().toMvnId());
+        fingerprint.add("region", regionName);
+        fingerprint.add("generateApiJar", this.generateApiJar);
+        fingerprint.add("generateSourceJar", this.generateSourceJar);
+        fingerprint.add("generateJavadocJar", this.generateJavadocJar);
+        fingerprint.add("incrementalApis", this.incrementalApis);
+        fingerprint.add("toggleApiOnly", this.toggleApiOnly);
+        fingerprint.add("ignoreJavadocErrors", this.ignoreJavadocErrors);
+        fingerprint.add("failOnMissingSourcesForJavadoc", this.failOnMissingSourcesForJavadoc);
+        fingerprint.add("javadocIndex", this.javadocIndex);
+        fingerprint.add("javadocTree", this.javadocTree);
+        fingerprint.add("includeProviderTypeResource", this.includeProviderTypeResource);
+        fingerprint.add("streamBinaries", this.streamBinaries);
+        fingerprint.add("outputTimestamp", this.outputTimestamp);
+        ctx.getConfig().addToFingerprint(fingerprint);
+        try {
+            addFiles(fingerprint, "apiResources", this.apiResources);
+            addFiles(fingerprint, "apiSourceResources", this.apiSourceResources);
+            addFiles(fingerprint, "apiJavadocResources", this.apiJavadocResources);
+
+            for (final ApiExport exp : apiRegion.listAllExports()) {
+                fingerprint.add("export", exp.getName() + ';' + exp.getToggle() + ';' + exp.getPreviousArtifactId());
+            }
+            for (final ArtifactInfo info : ctx.getArtifactInfos(regionName, false)) {
+                fingerprint.add("artifact", info.getId().toMvnId());
+                fingerprint.addFile("file", getArtifactFile(info.getId()));
+                fingerprint.add("packages", sorted(info.getUsedExportedPackages(regionName)));
+                fingerprint.add("capabilities", sorted(info.getProvidedCapabilities(regionName)));
+                fingerprint.add("useAsDependency", info.isUseAsDependencyPerRegion(regionName));
+                fingerprint.add("reason", info.getNotUseAsDependencyPerRegionReason(regionName));
+                fingerprint.add("sources", sorted(info.getSources()));
+                // the sources, either from a sources artifact or from a checkout
+                if (this.generateSourceJar || this.generateJavadocJar) {
+                    fingerprint.addContents("sourceDirectory", info.getSourceDirectory());
+                }
+            }
+            if (this.generateJavadocJar) {
+                for (final Artifact artifact : ApisUtil.getAdditionalJavadocArtifacts(ctx, regionName)) {
+                    fingerprint.add("javadocArtifact", artifact.getId().toMvnId());
+                    fingerprint.addFile("javadocFile", getArtifactFile(artifact.getId()));
+                    fingerprint.addContents(
+                            "javadocSourceDirectory",
+                            new File(ctx.getDeflatedSourcesDir(), artifact.getId().toMvnName()));
+                }
+            }
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to calculate fingerprint for region " + regionName, e);
+        }
+        return fingerprint.getValue();
+    }
+
+    private static void addFiles(final Fingerprint fingerprint, final String name, final List<File> files)
+            throws IOException {
+        if (files != null) {
+            for (final File file : files) {
+                fingerprint.addContents(name, file);
+            }
+        }
+    }
+
+    private static Set<String> sorted(final Collection<?> values) {
+        final Set<String> result = new TreeSet<>();
+        if (values != null) {
+            for (final Object v : values) {
+                result.add(v.toString());
+            }
+        }
+        return result;
+    }
+
+    private File getFingerprintFile(final ApisJarContext ctx, final ApiRegion apiRegion) {
+        return new File(
+                mainOutputDir,
+                this.buildArtifactId(ctx, apiRegion, ArtifactType.FINGERPRINT).toMvnName());
+    }
+
+    /**
+     * Reuse the jars of a previous build if the fingerprint is unchanged. Otherwise
+     * the fingerprint of the previous build is removed.
+     * @param ctx The context
+     * @param apiRegion The region
+     * @param fingerprint The current fingerprint
+     * @param result The region result
+     * @return {@code true} if the jars are reused
+     * @throws MojoExecutionException If the fingerprint file can't be read
+     */
+    private boolean reuseRegion(
+            final ApisJarContext ctx, final ApiRegion apiRegion, final String fingerprint, final RegionResult result)
+            throws MojoExecutionException {
+        final File fingerprintFile = this.getFingerprintFile(ctx, apiRegion);
+        if (!fingerprintFile.exists()) {
+            return false;
+        }
+        try {
+            final List<String> lines = Files.readAllLines(fingerprintFile.toPath(), StandardCharsets.UTF_8);
+            boolean reuse = !lines.isEmpty() && fingerprint.equals(lines.get(0));
+            final List<Map.Entry<ArtifactId, File>> attachments = new ArrayList<>();
+            for (int i = 1; reuse && i < lines.size(); i++) {
+                final ArtifactId id = ArtifactId.fromMvnId(lines.get(i));
+                final File file = new File(mainOutputDir, id.toMvnName());
+                reuse = file.exists();
+                attachments.add(new AbstractMap.SimpleImmutableEntry<>(id, file));
+            }
+            if (!reuse) {
+                // remove the fingerprint before creating the jars, a failed build must not leave an outdated one
+                Files.delete(fingerprintFile.toPath());
+                return false;
+            }
+            final File reportFile =
+                    new File(mainOutputDir, this.buildArtifactId(ctx, apiRegion, ArtifactType.REPORT).toMvnName());
+            if (reportFile.exists()) {
+                result.report.addAll(Files.readAllLines(reportFile.toPath(), StandardCharsets.UTF_8));
+            }
+            result.attachments.addAll(attachments);
+        } catch (final IOException | IllegalArgumentException e) {
+            throw new MojoExecutionException("Unable to read fingerprint " + fingerprintFile, e);
+        }
+        getLog().info("Input for region " + apiRegion.getName() + " is unchanged, reusing previously created jars");
+        return true;
+    }
+
+    /**
+     * Write the fingerprint together with the attachments of the region
+     */
+    private void writeFingerprint(
+            final ApisJarContext ctx, final ApiRegion apiRegion, final String fingerprint, final RegionResult result)
+            throws MojoExecutionException {
+        final File fingerprintFile = this.getFingerprintFile(ctx, apiRegion);
+        final List<String> lines = new ArrayList<>();
+        lines.add(fingerprint);
+        for (final Map.Entry<ArtifactId, File> entry : result.attachments) {
+            lines.add(entry.getKey().toMvnId());
+        }
+        try {
+            Files.write(fingerprintFile.toPath(), lines, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to write " + fingerprintFile, e);
+        }
+    }
+
+    /**
+     * Get the javadoc output directory for a region
+     */
+    private File getJavadocDir(final ApisJarContext ctx, final ApiRegion apiRegion, final ArtifactType artifactType) {
+        final File featureDir = new File(mainOutputDir, ctx.getFeatureId().getArtifactId());
+        final File regionDir = new File(featureDir, apiRegion.getName());
+        return new File(regionDir, artifactType.getId());
+    }
+
     private void report(
             final ApisJarContext ctx,
             final File jarFile,
@@ -739,11 +1275,26 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             final RegionSupport regionSupport,
             final ApiRegion apiRegion,
             final boolean omitDependencyArtifacts,
-            final List<String> report,
+            final RegionResult result,
             final JavadocLinks links)
             throws MojoExecutionException {
-        final Map.Entry<Set<String>, Set<String>> packageResult =
-                ApisUtil.getPackages(ctx, jarFile, artifactType.getContentExtension());
+        final List<String> report = result.report;
+        final Set<String> entryNames = result.entryNames.get(jarFile);
+        final Map.Entry<Set<String>, Set<String>> packageResult;
+        try (final Timings.Timer timer = ctx.getTimings().startRegion(Timings.VERIFY, apiRegion.getName())) {
+            if (this.strictJarVerification || entryNames == null) {
+                // read the written archive directly, a cached listing might be stale
+                packageResult = ApisUtil.getPackages(
+                        ctx,
+                        JarMetadataCache.read(jarFile).getEntryNames(),
+                        artifactType.getContentExtension());
+                timer.addBytesRead(jarFile.length());
+            } else {
+                packageResult = ApisUtil.getPackages(ctx, entryNames, artifactType.getContentExtension());
+            }
+        } catch (final IOException ioe) {
+            throw new MojoExecutionException("Unable to scan file " + jarFile + " : " + ioe.getMessage());
+        }
         final Set<String> apiPackages = packageResult.getKey();
         final Set<String> otherPackages = packageResult.getValue();
         if (omitDependencyArtifacts) {
@@ -860,21 +1411,24 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
     }
 
     /**
-     * Process a single artifact. This is a "global" processing and not per region
+     * Process a single artifact. This is a "global" processing and not per region.
+     * This method might be called concurrently for different artifacts, therefore
+     * the returned info is not added to the context.
      *
      * @param ctx      The context
      * @param artifact The artifact
+     * @return The info for the artifact or {@code null} if the artifact does not provide any api
      * @throws MojoExecutionException
      */
-    private void onArtifact(
+    private ArtifactInfo onArtifact(
             final ApiRegions apiRegions, final ApisJarContext ctx, final RegionSupport regionSupport, Artifact artifact)
             throws MojoExecutionException {
         File bundleFile = getArtifactFile(artifact.getId());
 
-        Manifest manifest = regionSupport.getManifest(artifact.getId(), bundleFile);
+        JarMetadata metadata = regionSupport.getJarMetadata(artifact.getId(), bundleFile);
 
         // check if the bundle is exporting packages?
-        Clause[] exportedPackageClauses = regionSupport.getExportedPackages(manifest);
+        Clause[] exportedPackageClauses = metadata.getExportedPackages();
         if (exportedPackageClauses.length > 0) {
 
             // calculate the exported packages in the manifest file for all regions
@@ -884,27 +1438,8 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             boolean isArtifactFullyExported = usedExportedPackages.size() == exportedPackageClauses.length;
             if (!usedExportedPackages.isEmpty()) {
                 // check for previous version of artifact due to toggles
-                ArtifactId previous = null;
-                for (final String pckName : usedExportedPackages) {
-                    for (final ApiRegion region : apiRegions.listRegions()) {
-                        final ApiExport exp = region.getExportByName(pckName);
-                        if (exp != null) {
-                            if (exp.getToggle() != null
-                                    && !ctx.getConfig().getEnabledToggles().contains(exp.getToggle())
-                                    && exp.getPreviousArtifactId() != null) {
-                                if (previous != null && previous.compareTo(exp.getPreviousArtifactId()) != 0) {
-                                    throw new MojoExecutionException(
-                                            "More than one previous version artifact configured for "
-                                                    + artifact.getId().toMvnId() + " : " + previous.toMvnId() + ", "
-                                                    + exp.getPreviousArtifactId()
-                                                            .toMvnId());
-                                }
-                                previous = exp.getPreviousArtifactId();
-                            }
-                            break;
-                        }
-                    }
-                }
+                final ArtifactId previous = regionSupport.getPreviousArtifactId(
+                        apiRegions, ctx.getConfig().getEnabledToggles(), usedExportedPackages, artifact);
                 if (previous != null) {
                     final Artifact previousArtifact = new Artifact(previous);
                     previousArtifact.getMetadata().putAll(artifact.getMetadata());
@@ -912,11 +1447,11 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                             + artifact.getId().toMvnId() + " due to disabled toggle(s)");
                     artifact = previousArtifact;
                     bundleFile = getArtifactFile(artifact.getId());
-                    manifest = regionSupport.getManifest(artifact.getId(), bundleFile);
-                    exportedPackageClauses = regionSupport.getExportedPackages(manifest);
+                    metadata = regionSupport.getJarMetadata(artifact.getId(), bundleFile);
+                    exportedPackageClauses = metadata.getExportedPackages();
                 }
 
-                final ArtifactInfo info = ctx.addArtifactInfo(artifact);
+                final ArtifactInfo info = new ArtifactInfo(artifact);
                 info.setUsedExportedPackages(usedExportedPackages);
 
                 // calculate per region packages
@@ -944,20 +1479,19 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                     }
                     info.setUsedExportedPackages(region.getName(), usedExportedPackagesPerRegion, useAsDependency);
                     if (!isArtifactFullyExported) {
-                        final Set<Clause> providedCapabilitiesPerRegion =
-                                computeProvidedCapabilities(region, getProvidedCapability(manifest), artifact);
+                        final Set<Clause> providedCapabilitiesPerRegion = computeProvidedCapabilities(
+                                regionSupport, region, metadata.getProvidedCapabilities(), artifact);
                         info.setProvidedCapabilities(region.getName(), providedCapabilitiesPerRegion);
                     } else {
                         // in case there are no region restrictions just include all capabilities
                         info.setProvidedCapabilities(
-                                region.getName(), new LinkedHashSet<>(Arrays.asList(getProvidedCapability(manifest))));
+                                region.getName(),
+                                new LinkedHashSet<>(Arrays.asList(metadata.getProvidedCapabilities())));
                     }
                 }
 
-                info.setBinDirectory(
-                        new File(ctx.getDeflatedBinDir(), info.getId().toMvnName()));
-                info.setSourceDirectory(
-                        new File(ctx.getDeflatedSourcesDir(), info.getId().toMvnName()));
+                info.setBinDirectory(new File(ctx.getDeflatedBinDir(), info.getId().toMvnName()));
+                info.setSourceDirectory(new File(ctx.getDeflatedSourcesDir(), info.getId().toMvnName()));
 
                 final boolean skipBinDeflate = info.getBinDirectory().exists();
                 if (skipBinDeflate) {
@@ -968,7 +1502,8 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                     getLog().debug("Source for artifact " + info.getId().toMvnName() + " already deflated");
                 }
 
-                final String bundleClassPath = manifest.getMainAttributes().getValue(Constants.BUNDLE_CLASSPATH);
+                final String bundleClassPath =
+                        metadata.getManifest().getMainAttributes().getValue(Constants.BUNDLE_CLASSPATH);
                 final String[] embeddedBundles;
                 if (bundleClassPath != null && !bundleClassPath.isEmpty()) {
                     embeddedBundles = bundleClassPath.split(",");
@@ -983,21 +1518,26 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                     computeWrappedBundles(ctx, info, embeddedBundles, skipBinDeflate, skipSourceDeflate);
                 }
 
-                postProcessArtifact(ctx, info, artifact);
+                postProcessArtifact(ctx, info);
 
                 if (!info.getSourceDirectory().exists()) {
                     info.setSourceDirectory(null);
                 }
 
                 if (generateJavadocJar) {
-                    ApisUtil.buildJavadocClasspath(getLog(), repositorySystem, mavenSession, artifact.getId())
-                            .forEach(ctx::addJavadocClasspath);
+                    try (final Timings.Timer timer =
+                            ctx.getTimings().startArtifact(Timings.JAVADOC_CLASSPATH, artifact.getId())) {
+                        ApisUtil.buildJavadocClasspath(getLog(), repositorySystem, mavenSession, artifact.getId())
+                                .forEach(ctx::addJavadocClasspath);
+                    }
                 }
+                return info;
 
             } else {
                 // TODO: add relevant capabilities?
             }
         }
+        return null;
     }
 
     /**
@@ -1006,30 +1546,44 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
      * <li>Find node types
      * <li>Find empty packages
      * <li>Find empty directories and remove them
-     * <li>Clean up sources - if encoding is not UTF-8
      * </ul>
      *
      * @param ctx  The context
      * @param info The artifact info
      * @throws MojoExecutionException
      */
-    private void postProcessArtifact(final ApisJarContext ctx, final ArtifactInfo info, final Artifact artifact)
-            throws MojoExecutionException {
+    private void postProcessArtifact(final ApisJarContext ctx, final ArtifactInfo info) throws MojoExecutionException {
         // binary post processing
-        this.postProcessBinDirectory(ctx, info, info.getBinDirectory(), "");
+        final FileTreeIndex binIndex = this.indexDirectory(info.getBinDirectory());
+        info.setBinIndex(binIndex);
+        for (final String pck : binIndex.getPackages()) {
+            if (!binIndex.hasFile(pck, ArtifactType.APIS.getContentExtension())
+                    && info.getUsedExportedPackages().contains(pck)
+                    && !Boolean.TRUE.equals(info.getBinaryArchivePackages().get(pck))) {
+                // We need to record this kind of packages and ensure we don't trigger warnings
+                // for them
+                // when checking the api jars for correctness.
+                getLog().debug("No classes found in " + pck);
+                ctx.getPackagesWithoutJavaClasses().add(pck);
+            }
+        }
+        for (final Map.Entry<String, Boolean> entry : info.getBinaryArchivePackages().entrySet()) {
+            if (!entry.getValue()) {
+                getLog().debug("No classes found in " + entry.getKey());
+                ctx.getPackagesWithoutJavaClasses().add(entry.getKey());
+            }
+        }
 
         // source post processing
         if ((generateSourceJar || generateJavadocJar)) {
             final Set<String> foundPackages = new HashSet<>();
             if (info.getSourceDirectory() != null && info.getSourceDirectory().exists()) {
-                final String encoding = artifact.getMetadata().getOrDefault(ApisUtil.SCM_ENCODING, "UTF-8");
-                this.postProcessSourcesDirectory(
-                        ctx,
-                        info,
-                        foundPackages,
-                        info.getSourceDirectory(),
-                        "UTF-8".equals(encoding) ? null : encoding,
-                        "");
+                if (info.getCachedSourcePackages() != null) {
+                    // all sources are taken from the deflate cache, already post processed
+                    foundPackages.addAll(info.getCachedSourcePackages());
+                } else {
+                    info.setSourceIndex(this.postProcessSourcesDirectory(info.getSourceDirectory(), foundPackages));
+                }
             }
             // check for missing packages
             for (final String pck : info.getUsedExportedPackages()) {
@@ -1044,197 +1598,487 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         }
     }
 
-    private void postProcessBinDirectory(
-            final ApisJarContext ctx, final ArtifactInfo info, final File dir, final String pck) {
-        boolean hasJavaFile = false;
-        for (final File child : dir.listFiles()) {
-            if (child.isDirectory()) {
-                postProcessBinDirectory(
-                        ctx,
-                        info,
-                        child,
-                        pck.isEmpty() ? child.getName() : pck.concat(".").concat(child.getName()));
-            } else if (child.getName().endsWith(ArtifactType.APIS.getContentExtension())) {
-                hasJavaFile = true;
+    /**
+     * Process a binary Extract the binary, rename resources and (optional) download
+     * the sources
+     *
+     * @param ctx               The context
+     * @param info              The current artifact
+     * @param binFile           The binary to extract
+     * @param binArtifact       The artifact to extract
+     * @param embeddedBundles   Embedded bundles (optional)
+     * @param skipBinDeflate    Flag to skip deflating the binary
+     * @param skipSourceDeflate Flag to skip deflating the source
+     * @throws MojoExecutionException
+     */
+    private void processBinary(
+            final ApisJarContext ctx,
+            final ArtifactInfo info,
+            final File binFile,
+            final Artifact binArtifact,
+            final String[] embeddedBundles,
+            final boolean skipBinDeflate,
+            final boolean skipSourceDeflate)
+            throws MojoExecutionException {
+        if (!skipBinDeflate) {
+            // deflate all bundles first, in order to copy APIs and resources later,
+            // depending to the region
+            final List<String> deflateIncludes = new ArrayList<>();
+
+            // add all used exported packages, unless they are copied directly into the jar
+            if (!this.streamBinaries) {
+                deflateIncludes.addAll(Arrays.asList(info.getUsedExportedPackageIncludes()));
+            }
+            // add embedded bundles
+            if (embeddedBundles != null) {
+                for (final String jarName : embeddedBundles) {
+                    if (!".".equals(jarName)) {
+                        deflateIncludes.add(jarName);
+                    }
+                }
+            }
+            // add resources from the folders
+            deflateIncludes.addAll(getIncludeResourcePatterns(ctx, info.getId()));
+
+            // deflate
+            final String[] includes = deflateIncludes.toArray(new String[deflateIncludes.size()]);
+            try (final Timings.Timer timer = ctx.getTimings().startArtifact(Timings.DEFLATE, binArtifact.getId())) {
+                timer.addBytesRead(binFile.length());
+                if (this.deflateCache != null) {
+                    this.deflateCached(ctx, info.getBinDirectory(), binFile, includes);
+                } else {
+                    this.deflate(info.getBinDirectory(), binFile, includes);
+                }
+            }
+        }
+        if (this.streamBinaries) {
+            this.addBinaryArchive(info, binFile);
+        }
+        // renaming potential name-collapsing resources
+        this.renameResources(ctx, info, binArtifact.getId());
+
+        // download sources
+        if (this.generateSourceJar || this.generateJavadocJar) {
+            if (!skipSourceDeflate) {
+                try (final Timings.Timer timer =
+                        ctx.getTimings().startArtifact(Timings.SOURCES, binArtifact.getId())) {
+                    this.downloadSources(ctx, info, binArtifact, timer);
+                }
+            } else {
+                info.addSourceInfo("USE CACHE FROM PREVIOUS BUILD");
+            }
+        }
+    }
+
+    /**
+     * Register the archive to copy the classes from and record which of the used
+     * packages it contains.
+     */
+    private void addBinaryArchive(final ArtifactInfo info, final File binFile) throws MojoExecutionException {
+        info.getBinaryArchives().add(binFile);
+        try {
+            for (final String name : this.jarMetadataCache.get(binFile).getEntryNames()) {
+                final int lastSlash = name.lastIndexOf('/');
+                if (!name.endsWith("/") && lastSlash != -1) {
+                    final String pck = name.substring(0, lastSlash).replace('/', '.');
+                    if (info.getUsedExportedPackages().contains(pck)) {
+                        final boolean hasClass = name.endsWith(ArtifactType.APIS.getContentExtension());
+                        info.getBinaryArchivePackages().merge(pck, hasClass, Boolean::logicalOr);
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to read " + binFile, e);
+        }
+    }
+
+    private List<String> getIncludeResourcePatterns(final ApisJarContext ctx, final ArtifactId id) {
+        final List<String> pattern = new ArrayList<>();
+        for (final String folder : ctx.getConfig().getBundleResourceFolders()) {
+            for (final String inc : ctx.getConfig().getBundleResources()) {
+                pattern.add(folder.concat("/").concat(inc));
+            }
+        }
+
+        // add NOTICE and LICENSE for license report
+        if (ctx.getConfig().getLicenseReport() != null) {
+            final String licenseDefault = ctx.getConfig().getLicenseDefault(id);
+            if (licenseDefault == null || !licenseDefault.isEmpty()) {
+                pattern.add("META-INF/NOTICE");
+                pattern.add("META-INF/LICENSE");
+            }
+        }
+
+        return pattern;
+    }
+
+    /**
+     * Index a directory tree, removing empty directories
+     */
+    private FileTreeIndex indexDirectory(final File dir) throws MojoExecutionException {
+        try {
+            return FileTreeIndex.build(dir, null);
+        } catch (final IOException ioe) {
+            throw new MojoExecutionException("Unable to post process " + dir, ioe);
+        }
+    }
+
+    /**
+     * Post process a sources directory: remove empty directories and find the packages
+     * with sources. Sources not using UTF-8 are already converted when they are extracted.
+     */
+    private FileTreeIndex postProcessSourcesDirectory(final File dir, final Set<String> foundPackages)
+            throws MojoExecutionException {
+        final FileTreeIndex index = this.indexDirectory(dir);
+        for (final String pck : index.getPackages()) {
+            if (index.hasFile(pck, ArtifactType.SOURCES.getContentExtension())) {
+                foundPackages.add(pck);
+            }
+        }
+        return index;
+    }
+
+    private void computeWrappedBundles(
+            final ApisJarContext ctx,
+            final ArtifactInfo info,
+            final String[] embeddedBundles,
+            final boolean skipBinDeflate,
+            final boolean skipSourceDeflate)
+            throws MojoExecutionException {
+        // the parts of the wrapped bundles used by this bundle, like in processBinary
+        final List<String> binIncludes = new ArrayList<>();
+        if (!skipBinDeflate) {
+            if (!this.streamBinaries) {
+                binIncludes.addAll(Arrays.asList(info.getUsedExportedPackageIncludes()));
+            }
+            binIncludes.addAll(getIncludeResourcePatterns(ctx, info.getId()));
+        }
+        final Set<String> sourcePackages = new TreeSet<>();
+        if ((this.generateSourceJar || this.generateJavadocJar) && !skipSourceDeflate) {
+            sourcePackages.addAll(info.getUsedExportedPackages());
+        }
+
+        // find, resolve and process the wrapped bundles concurrently
+        final List<Callable<WrappedBundle>> tasks = new ArrayList<>();
+        for (final String jarName : embeddedBundles) {
+            if (!".".equals(jarName)) {
+                tasks.add(() -> {
+                    final WrappedBundle wrapped = this.getWrappedBundle(ctx, info, jarName);
+                    if (wrapped != null) {
+                        this.processWrappedBundle(ctx, wrapped, binIncludes, sourcePackages);
+                    }
+                    return wrapped;
+                });
+            }
+        }
+        final List<WrappedBundle> wrappedBundles = this.wrappedBundleThreads > 1
+                ? ApisUtil.invokeAll(tasks, this.getWrappedBundleExecutor())
+                : ApisUtil.invokeAll(tasks, this.wrappedBundleThreads);
+        // add them in the order of the bundle class path, the first file wins
+        for (final WrappedBundle wrapped : wrappedBundles) {
+            if (wrapped != null) {
+                addWrappedBundle(ctx, info, wrapped, binIncludes, skipBinDeflate, skipSourceDeflate);
+            }
+        }
+    }
+
+    /**
+     * Get the executor for the wrapped bundles, it is created on first use
+     */
+    private synchronized ExecutorService getWrappedBundleExecutor() {
+        if (this.wrappedBundleExecutor == null) {
+            this.wrappedBundleExecutor = Executors.newFixedThreadPool(this.wrappedBundleThreads);
+        }
+        return this.wrappedBundleExecutor;
+    }
+
+    /**
+     * A wrapped bundle. The parts used by the bundles wrapping it are deflated, together with
+     * their sources, into a directory of its own and copied from there. The directory is kept
+     * between builds, a state file records what has been deflated into it.
+     */
+    private static final class WrappedBundle {
+
+        private static final String STATE = "state.txt";
+
+        private static final String BIN = "bin ";
+
+        private static final String PACKAGE = "package ";
+
+        private static final String SOURCE_DIRECTORY = "source-directory ";
+
+        private static final String SOURCE = "source ";
+
+        final Artifact artifact;
+
+        final File file;
+
+        final File directory;
+
+        /** The deflated include patterns of the binary */
+        final Set<String> binIncludes = new TreeSet<>();
+
+        /** The packages for which sources have been added */
+        final Set<String> sourcePackages = new TreeSet<>();
+
+        final Set<File> sourceDirectories = new LinkedHashSet<>();
+
+        final Set<String> sources = new TreeSet<>();
+
+        WrappedBundle(final Artifact artifact, final File file, final File directory) {
+            this.artifact = artifact;
+            this.file = file;
+            this.directory = directory;
+        }
+
+        File getBinDirectory() {
+            return new File(this.directory, "bin");
+        }
+
+        /**
+         * Load the state of a directory kept from a previous build
+         * @return {@code true} if the state could be loaded
+         */
+        boolean load() {
+            final File state = new File(this.directory, STATE);
+            if (!state.exists()) {
+                return false;
+            }
+            try {
+                for (final String line : Files.readAllLines(state.toPath(), StandardCharsets.UTF_8)) {
+                    if (line.startsWith(BIN)) {
+                        this.binIncludes.add(line.substring(BIN.length()));
+                    } else if (line.startsWith(PACKAGE)) {
+                        this.sourcePackages.add(line.substring(PACKAGE.length()));
+                    } else if (line.startsWith(SOURCE_DIRECTORY)) {
+                        this.sourceDirectories.add(new File(line.substring(SOURCE_DIRECTORY.length())));
+                    } else if (line.startsWith(SOURCE)) {
+                        this.sources.add(line.substring(SOURCE.length()));
+                    }
+                }
+                return true;
+            } catch (final IOException e) {
+                this.binIncludes.clear();
+                this.sourcePackages.clear();
+                this.sourceDirectories.clear();
+                this.sources.clear();
+                return false;
             }
         }
-        if (dir.listFiles().length == 0 && !pck.isEmpty()) {
-            // empty dir -> remove
-            dir.delete();
-        } else if (!hasJavaFile && info.getUsedExportedPackages().contains(pck)) {
 
-            // We need to record this kind of packages and ensure we don't trigger warnings
-            // for them
-            // when checking the api jars for correctness.
-            getLog().debug("No classes found in " + pck);
-            ctx.getPackagesWithoutJavaClasses().add(pck);
+        void save() throws IOException {
+            final List<String> lines = new ArrayList<>();
+            this.binIncludes.forEach(v -> lines.add(BIN.concat(v)));
+            this.sourcePackages.forEach(v -> lines.add(PACKAGE.concat(v)));
+            this.sourceDirectories.forEach(v -> lines.add(SOURCE_DIRECTORY.concat(v.getAbsolutePath())));
+            this.sources.forEach(v -> lines.add(SOURCE.concat(v)));
+            Files.write(new File(this.directory, STATE).toPath(), lines, StandardCharsets.UTF_8);
         }
     }
 
     /**
-     * Process a binary Extract the binary, rename resources and (optional) download
-     * the sources
-     *
-     * @param ctx               The context
-     * @param info              The current artifact
-     * @param binFile           The binary to extract
-     * @param binArtifact       The artifact to extract
-     * @param embeddedBundles   Embedded bundles (optional)
-     * @param skipBinDeflate    Flag to skip deflating the binary
-     * @param skipSourceDeflate Flag to skip deflating the source
-     * @throws MojoExecutionException
+     * Get a wrapped bundle from its Maven GAV, each wrapped bundle is resolved only once
+     * @return The wrapped bundle or {@code null} if the bundle has no Maven GAV
      */
-    private void processBinary(
-            final ApisJarContext ctx,
-            final ArtifactInfo info,
-            final File binFile,
-            final Artifact binArtifact,
-            final String[] embeddedBundles,
-            final boolean skipBinDeflate,
-            final boolean skipSourceDeflate)
+    private WrappedBundle getWrappedBundle(final ApisJarContext ctx, final ArtifactInfo info, final String jarName)
             throws MojoExecutionException {
-        if (!skipBinDeflate) {
-            // deflate all bundles first, in order to copy APIs and resources later,
-            // depending to the region
-            final List<String> deflateIncludes = new ArrayList<>();
+        final File wrappedJar = new File(info.getBinDirectory(), jarName);
+        getLog().debug("Processing wrapped bundle " + wrappedJar);
 
-            // add all used exported packages
-            deflateIncludes.addAll(Arrays.asList(info.getUsedExportedPackageIncludes()));
-            // add embedded bundles
-            if (embeddedBundles != null) {
-                for (final String jarName : embeddedBundles) {
-                    if (!".".equals(jarName)) {
-                        deflateIncludes.add(jarName);
+        final Properties properties = new Properties();
+
+        try {
+            for (final String name : this.jarMetadataCache.get(wrappedJar).getEntryNames()) {
+                if (pomPropertiesPattern.matcher(name).matches()) {
+                    getLog().debug("Loading Maven GAV from " + wrappedJar + '!' + name);
+                    try (final JarFile jarFile = new JarFile(wrappedJar, false);
+                            final InputStream is = jarFile.getInputStream(jarFile.getEntry(name))) {
+                        properties.load(is);
                     }
+                    break;
                 }
             }
-            // add resources from the folders
-            deflateIncludes.addAll(getIncludeResourcePatterns(ctx, info.getId()));
+        } catch (IOException e) {
+            throw new MojoExecutionException("An error occurred while processing wrapped bundle " + wrappedJar, e);
+        }
 
-            // deflate
-            this.deflate(info.getBinDirectory(), binFile, deflateIncludes.toArray(new String[deflateIncludes.size()]));
+        if (properties.isEmpty()) {
+            getLog().warn("No Maven GAV info attached to wrapped bundle " + wrappedJar + ", it will be ignored");
+            return null;
         }
-        // renaming potential name-collapsing resources
-        this.renameResources(ctx, info, binArtifact.getId());
+        getLog().debug("Handling synthetic artifacts from Maven GAV: " + properties);
 
-        // download sources
-        if (this.generateSourceJar || this.generateJavadocJar) {
-            if (!skipSourceDeflate) {
-                this.downloadSources(ctx, info, binArtifact);
-            } else {
-                info.addSourceInfo("USE CACHE FROM PREVIOUS BUILD");
-            }
+        String groupId = properties.getProperty("groupId");
+        String artifactId = properties.getProperty("artifactId");
+        String version = properties.getProperty("version");
+        String classifier = properties.getProperty("classifier");
+        if (classifier == null) {
+            classifier = inferClassifier(jarName, artifactId, version);
         }
-    }
 
-    private List<String> getIncludeResourcePatterns(final ApisJarContext ctx, final ArtifactId id) {
-        final List<String> pattern = new ArrayList<>();
-        for (final String folder : ctx.getConfig().getBundleResourceFolders()) {
-            for (final String inc : ctx.getConfig().getBundleResources()) {
-                pattern.add(folder.concat("/").concat(inc));
-            }
+        final Artifact syntheticArtifact =
+                new Artifact(new ArtifactId(groupId, artifactId, version, classifier, null));
+        // the sources of the wrapped bundle use the encoding of the wrapping bundle
+        final String encoding = getSourceEncoding(info);
+        if (encoding != null) {
+            syntheticArtifact.getMetadata().put(ApisUtil.SCM_ENCODING, encoding);
         }
+        final String key = encoding == null
+                ? syntheticArtifact.getId().toMvnId()
+                : syntheticArtifact.getId().toMvnId().concat("|").concat(encoding);
+        return this.wrappedBundles.get(key, k -> this.createWrappedBundle(syntheticArtifact, encoding));
+    }
 
-        // add NOTICE and LICENSE for license report
-        if (ctx.getConfig().getLicenseReport() != null) {
-            final String licenseDefault = ctx.getConfig().getLicenseDefault(id);
-            if (licenseDefault == null || !licenseDefault.isEmpty()) {
-                pattern.add("META-INF/NOTICE");
-                pattern.add("META-INF/LICENSE");
+    /**
+     * Resolve a wrapped bundle and load the state of its directory from a previous build
+     */
+    private WrappedBundle createWrappedBundle(final Artifact artifact, final String encoding)
+            throws MojoExecutionException {
+        final File bundleFile = getArtifactFile(artifact.getId());
+
+        final String name = encoding == null
+                ? artifact.getId().toMvnName()
+                : artifact.getId().toMvnName().concat("-").concat(encoding);
+        final WrappedBundle wrapped =
+                new WrappedBundle(artifact, bundleFile, new File(new File(this.mainOutputDir, "wrapped"), name));
+        if (wrapped.load()) {
+            getLog().debug("Using wrapped bundle directory " + wrapped.directory + " from previous build");
+        } else {
+            try {
+                FileUtils.deleteDirectory(wrapped.directory);
+            } catch (final IOException e) {
+                throw new MojoExecutionException("Unable to clean " + wrapped.directory, e);
             }
         }
-
-        return pattern;
+        return wrapped;
     }
 
-    private void postProcessSourcesDirectory(
+    /**
+     * Deflate the parts of a wrapped bundle and download the sources of the packages which
+     * are used by a bundle but not yet available in the directory of the wrapped bundle
+     */
+    private void processWrappedBundle(
             final ApisJarContext ctx,
-            final ArtifactInfo info,
-            final Set<String> foundPackages,
-            final File dir,
-            final String readEncoding,
-            final String pck)
+            final WrappedBundle wrapped,
+            final List<String> binIncludes,
+            final Set<String> sourcePackages)
             throws MojoExecutionException {
-        boolean hasSourceFile = false;
-        for (final File child : dir.listFiles()) {
-            if (child.isDirectory()) {
-                postProcessSourcesDirectory(
-                        ctx,
-                        info,
-                        foundPackages,
-                        child,
-                        readEncoding,
-                        pck.isEmpty() ? child.getName() : pck.concat(".").concat(child.getName()));
-            } else if (child.getName().endsWith(ArtifactType.SOURCES.getContentExtension())) {
-                hasSourceFile = true;
-                if (readEncoding != null) {
-                    try {
-                        final String javaSource = FileUtils.fileRead(child, readEncoding);
-                        FileUtils.fileWrite(child, StandardCharsets.UTF_8.name(), javaSource);
-                    } catch (final IOException ioe) {
-                        throw new MojoExecutionException("Unable to clean up java source " + child, ioe);
+        synchronized (wrapped) {
+            final List<String> missingIncludes = new ArrayList<>();
+            for (final String include : binIncludes) {
+                if (!wrapped.binIncludes.contains(include)) {
+                    missingIncludes.add(include);
+                }
+            }
+            final Set<String> missingPackages = new TreeSet<>(sourcePackages);
+            missingPackages.removeAll(wrapped.sourcePackages);
+            if (missingIncludes.isEmpty() && missingPackages.isEmpty()) {
+                return;
+            }
+
+            if (!missingIncludes.isEmpty()) {
+                final String[] includes = missingIncludes.toArray(new String[missingIncludes.size()]);
+                try (final Timings.Timer timer =
+                        ctx.getTimings().startArtifact(Timings.DEFLATE, wrapped.artifact.getId())) {
+                    timer.addBytesRead(wrapped.file.length());
+                    if (this.deflateCache != null) {
+                        this.deflateCached(ctx, wrapped.getBinDirectory(), wrapped.file, includes);
+                    } else {
+                        this.deflate(wrapped.getBinDirectory(), wrapped.file, includes);
                     }
                 }
+                wrapped.binIncludes.addAll(missingIncludes);
+            }
+            if (!missingPackages.isEmpty()) {
+                final ArtifactInfo wrappedInfo = new ArtifactInfo(wrapped.artifact);
+                wrappedInfo.setBinDirectory(wrapped.getBinDirectory());
+                wrappedInfo.setSourceDirectory(new File(wrapped.directory, "sources"));
+                wrappedInfo.setUsedExportedPackages(missingPackages);
+                try (final Timings.Timer timer =
+                        ctx.getTimings().startArtifact(Timings.SOURCES, wrapped.artifact.getId())) {
+                    this.downloadSources(ctx, wrappedInfo, wrapped.artifact, timer);
+                }
+                // a checkout from SCM uses a different directory
+                wrapped.sourceDirectories.add(wrappedInfo.getSourceDirectory());
+                wrapped.sources.addAll(wrappedInfo.getSources());
+                wrapped.sourcePackages.addAll(missingPackages);
+            }
+            try {
+                wrapped.save();
+            } catch (final IOException e) {
+                throw new MojoExecutionException("Unable to write state of " + wrapped.directory, e);
             }
-        }
-        if (dir.listFiles().length == 0 && !pck.isEmpty()) {
-            // empty dir -> remove
-            dir.delete();
-        } else if (hasSourceFile) {
-            foundPackages.add(pck);
         }
     }
 
-    private void computeWrappedBundles(
+    /**
+     * Add the parts of a wrapped bundle used by a bundle, like {@link #processBinary} does
+     * for the bundle itself
+     */
+    private void addWrappedBundle(
             final ApisJarContext ctx,
             final ArtifactInfo info,
-            final String[] embeddedBundles,
+            final WrappedBundle wrapped,
+            final List<String> binIncludes,
             final boolean skipBinDeflate,
             final boolean skipSourceDeflate)
             throws MojoExecutionException {
-        for (final String jarName : embeddedBundles) {
-            if (".".equals(jarName)) {
-                continue;
+        if (!skipBinDeflate) {
+            synchronized (wrapped) {
+                copyWrappedFiles(wrapped.getBinDirectory(), info.getBinDirectory(), binIncludes);
             }
+        }
+        if (this.streamBinaries) {
+            this.addBinaryArchive(info, wrapped.file);
+        }
+        // renaming potential name-collapsing resources
+        this.renameResources(ctx, info, wrapped.artifact.getId());
 
-            final File wrappedJar = new File(info.getBinDirectory(), jarName);
-            getLog().debug("Processing wrapped bundle " + wrappedJar);
-
-            final Properties properties = new Properties();
-
-            try (final JarInputStream jis = new JarInputStream(new FileInputStream(wrappedJar))) {
-                JarEntry jarEntry = null;
-                while ((jarEntry = jis.getNextJarEntry()) != null) {
-                    if (!jarEntry.isDirectory()
-                            && pomPropertiesPattern.matcher(jarEntry.getName()).matches()) {
-                        getLog().debug("Loading Maven GAV from " + wrappedJar + '!' + jarEntry.getName());
-                        properties.load(jis);
-                        break;
+        if (this.generateSourceJar || this.generateJavadocJar) {
+            if (!skipSourceDeflate) {
+                synchronized (wrapped) {
+                    for (final File sourceDirectory : wrapped.sourceDirectories) {
+                        if (sourceDirectory.exists()) {
+                            copyWrappedFiles(
+                                    sourceDirectory,
+                                    info.getSourceDirectory(),
+                                    Arrays.asList(info.getUsedExportedPackageIncludes()));
+                            // the packages are not known from the deflate cache anymore
+                            info.setUncachedSources();
+                        }
                     }
-                    jis.closeEntry();
+                    wrapped.sources.forEach(info::addSourceInfo);
                 }
-            } catch (IOException e) {
-                throw new MojoExecutionException("An error occurred while processing wrapped bundle " + wrappedJar, e);
+            } else {
+                info.addSourceInfo("USE CACHE FROM PREVIOUS BUILD");
             }
+        }
+    }
 
-            if (properties.isEmpty()) {
-                getLog().warn("No Maven GAV info attached to wrapped bundle " + wrappedJar + ", it will be ignored");
-            } else {
-                getLog().debug("Handling synthetic artifacts from Maven GAV: " + properties);
+    /**
+     * Copy the included files from the directory of a wrapped bundle, existing files are not overwritten
+     */
+    private void copyWrappedFiles(final File sourceDirectory, final File destDirectory, final List<String> includes)
+            throws MojoExecutionException {
+        if (includes.isEmpty() || !sourceDirectory.exists()) {
+            return;
+        }
+        final DirectoryScanner directoryScanner = new DirectoryScanner();
+        directoryScanner.setBasedir(sourceDirectory);
+        directoryScanner.setIncludes(includes.toArray(new String[includes.size()]));
+        directoryScanner.scan();
 
-                String groupId = properties.getProperty("groupId");
-                String artifactId = properties.getProperty("artifactId");
-                String version = properties.getProperty("version");
-                String classifier = properties.getProperty("classifier");
-                if (classifier == null) {
-                    classifier = inferClassifier(jarName, artifactId, version);
+        for (final String file : directoryScanner.getIncludedFiles()) {
+            final File source = new File(sourceDirectory, file);
+            final File destination = new File(destDirectory, file);
+            if (!destination.exists()) {
+                destination.getParentFile().mkdirs();
+                try {
+                    FileUtils.copyFile(source, destination);
+                } catch (final IOException e) {
+                    throw new MojoExecutionException(
+                            "An error occurred while copying " + source + " to " + destination, e);
                 }
-
-                Artifact syntheticArtifact =
-                        new Artifact(new ArtifactId(groupId, artifactId, version, classifier, null));
-                final File bundleFile = getArtifactFile(syntheticArtifact.getId());
-
-                processBinary(ctx, info, bundleFile, syntheticArtifact, null, skipBinDeflate, skipSourceDeflate);
             }
         }
     }
@@ -1295,6 +2139,29 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         getLog().debug("Artifact " + artifact + " successfully deflated");
     }
 
+    /**
+     * Deflate an artifact using the deflate cache. If the cache can't be used, the
+     * artifact is deflated directly.
+     */
+    private void deflateCached(
+            final ApisJarContext ctx, final File destDirectory, final File artifact, final String... includes)
+            throws MojoExecutionException {
+        try {
+            final String key = this.deflateCache.getKey("bin", artifact, includes);
+            final boolean cached = this.deflateCache.use(
+                    key,
+                    dir -> this.deflate(dir, artifact, includes),
+                    content -> this.deflateCache.copy(content, destDirectory));
+            ctx.getTimings().recordCache("deflate-bin", cached);
+            if (cached) {
+                getLog().debug("Used cached content for artifact " + artifact.getName());
+            }
+        } catch (final IOException e) {
+            getLog().warn("Unable to use deflate cache for " + artifact + " : " + e.getMessage());
+            this.deflate(destDirectory, artifact, includes);
+        }
+    }
+
     private void renameResources(final ApisJarContext ctx, final ArtifactInfo info, final ArtifactId artifactId)
             throws MojoExecutionException {
         final List<String> patterns = getIncludeResourcePatterns(ctx, info.getId());
@@ -1356,14 +2223,25 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             final ApisJarContext ctx,
             final ArtifactInfo info,
             final ArtifactId sourcesArtifactId,
-            final boolean allowFallback)
+            final boolean allowFallback,
+            final Timings.Timer timer)
             throws MojoExecutionException {
         boolean failed = false;
         try {
             final URL url = retrieve(sourcesArtifactId);
             if (url != null) {
                 File sourcesBundle = IOUtils.getFileFromURL(url, true, null);
-                deflate(info.getSourceDirectory(), sourcesBundle, info.getUsedExportedPackageIncludes());
+                timer.addBytesRead(sourcesBundle.length());
+                if (this.deflateCache != null) {
+                    this.deflateSourcesCached(ctx, info, sourcesArtifactId, sourcesBundle);
+                } else {
+                    this.deflateSources(
+                            info.getSourceDirectory(),
+                            sourcesBundle,
+                            getSourceEncoding(info),
+                            info.getUsedExportedPackageIncludes());
+                    info.setUncachedSources();
+                }
             } else {
                 if (!allowFallback) {
                     throw new MojoExecutionException("Unable to download sources for "
@@ -1387,7 +2265,93 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         return failed;
     }
 
-    private void downloadSources(final ApisJarContext ctx, final ArtifactInfo info, final Artifact artifact)
+    /**
+     * Get the encoding of the sources of an artifact
+     * @return The encoding or {@code null} for UTF-8
+     */
+    private static String getSourceEncoding(final ArtifactInfo info) {
+        final String encoding = info.getArtifact().getMetadata().get(ApisUtil.SCM_ENCODING);
+        return encoding == null || "UTF-8".equals(encoding) ? null : encoding;
+    }
+
+    /**
+     * Deflate a sources artifact. If the sources do not use UTF-8, they are converted
+     * while they are extracted.
+     */
+    private void deflateSources(
+            final File destDirectory, final File sourcesBundle, final String encoding, final String... includes)
+            throws MojoExecutionException {
+        if (encoding == null) {
+            this.deflate(destDirectory, sourcesBundle, includes);
+        } else {
+            getLog().debug("Deflating sources " + sourcesBundle.getName() + " with encoding " + encoding + "...");
+            try {
+                new SourceTranscoder(encoding).extract(sourcesBundle, destDirectory, includes);
+            } catch (final IOException | IllegalArgumentException e) {
+                throw new MojoExecutionException(
+                        "An error occurred while deflating file " + sourcesBundle + " to directory " + destDirectory,
+                        e);
+            }
+        }
+    }
+
+    /**
+     * Deflate a sources artifact using the deflate cache. The encoding is part of the key,
+     * the cached sources are already converted to UTF-8 and post processed, and the packages
+     * with sources are stored with the entry. If the cache can't be used, the artifact is
+     * deflated directly.
+     */
+    private void deflateSourcesCached(
+            final ApisJarContext ctx,
+            final ArtifactInfo info,
+            final ArtifactId sourcesArtifactId,
+            final File sourcesBundle)
+            throws MojoExecutionException {
+        final String[] includes = info.getUsedExportedPackageIncludes();
+        final String encoding = getSourceEncoding(info);
+        try {
+            final String id = encoding == null
+                    ? sourcesArtifactId.toMvnId()
+                    : sourcesArtifactId.toMvnId().concat("|").concat(encoding);
+            final String key = this.deflateCache.getKey("sources", id, sourcesBundle, includes);
+            final boolean cached = this.deflateCache.use(
+                    key,
+                    dir -> {
+                        this.deflateSources(dir, sourcesBundle, encoding, includes);
+                        final Set<String> packages = new TreeSet<>();
+                        this.postProcessSourcesDirectory(dir, packages);
+                        try {
+                            this.deflateCache.writeInfo(dir, "packages", packages);
+                        } catch (final IOException e) {
+                            throw new MojoExecutionException("Unable to write package info for " + sourcesBundle, e);
+                        }
+                    },
+                    content -> {
+                        final List<String> packages = this.deflateCache.readInfo(content, "packages");
+                        this.deflateCache.copy(content, info.getSourceDirectory());
+                        if (packages != null) {
+                            info.addCachedSourcePackages(packages);
+                        } else {
+                            info.setUncachedSources();
+                        }
+                    });
+            ctx.getTimings().recordCache("deflate-sources", cached);
+            if (cached) {
+                getLog().debug("Used cached content for artifact " + sourcesBundle.getName());
+            }
+        } catch (final IOException e) {
+            getLog().warn("Unable to use deflate cache for " + sourcesBundle + " : " + e.getMessage());
+            this.deflateSources(info.getSourceDirectory(), sourcesBundle, encoding, includes);
+            info.setUncachedSources();
+        }
+    }
+
+    /**
+     * Download the sources of an artifact
+     * @param timer The timer of the {@link Timings#SOURCES} phase, the bytes of the source archives are added
+     */
+    private void downloadSources(
+            final ApisJarContext ctx, final ArtifactInfo info, final Artifact artifact, final Timings.Timer timer)
             throws MojoExecutionException {
         getLog().debug("Downloading sources for " + artifact.getId().toMvnId() + "...");
 
@@ -1397,12 +2361,15 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         final String scmLocation = artifact.getMetadata().get(ApisUtil.SCM_LOCATION);
         if (scmIds != null) {
             for (final ArtifactId sourcesArtifactId : scmIds) {
-                downloadSourceAndDeflate(ctx, info, sourcesArtifactId, false);
+                downloadSourceAndDeflate(ctx, info, sourcesArtifactId, false, timer);
                 info.addSourceInfo(sourcesArtifactId);
             }
         } else if (scmLocation != null) {
-            final String connection = checkoutSourcesFromSCM(ctx, info, artifact);
-            info.addSourceInfo(connection);
+            info.setUncachedSources();
+            try (final Timings.Timer scmTimer =
+                    ctx.getTimings().startArtifact(Timings.SCM_CHECKOUT, artifact.getId())) {
+                info.addSourceInfo(checkoutSourcesFromSCM(ctx, info, artifact, scmTimer));
+            }
         } else {
             String sourceClassifier = artifact.getMetadata().get(ApisUtil.SCM_CLASSIFIER);
             if (sourceClassifier == null) {
@@ -1411,9 +2378,16 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             final ArtifactId sourcesArtifactId =
                     artifact.getId().changeClassifier(sourceClassifier).changeType("jar");
             if (downloadSourceAndDeflate(
-                    ctx, info, sourcesArtifactId, artifact.getMetadata().get(ApisUtil.SCM_CLASSIFIER) == null)) {
-                final String connection = checkoutSourcesFromSCM(ctx, info, artifact);
-                info.addSourceInfo(connection);
+                    ctx,
+                    info,
+                    sourcesArtifactId,
+                    artifact.getMetadata().get(ApisUtil.SCM_CLASSIFIER) == null,
+                    timer)) {
+                info.setUncachedSources();
+                try (final Timings.Timer scmTimer =
+                        ctx.getTimings().startArtifact(Timings.SCM_CHECKOUT, artifact.getId())) {
+                    info.addSourceInfo(checkoutSourcesFromSCM(ctx, info, artifact, scmTimer));
+                }
             } else {
                 info.addSourceInfo(sourcesArtifactId);
             }
@@ -1422,38 +2396,35 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
 
     private Model getArtifactPom(final ApisJarContext ctx, final ArtifactId artifactId) throws MojoExecutionException {
         final ArtifactId pomArtifactId = artifactId.changeClassifier(null).changeType("pom");
-        // check model cache
-        Model model = ctx.getModelCache().get(pomArtifactId);
-        if (model == null) {
-            getLog().debug("Retrieving POM " + pomArtifactId.toMvnId() + "...");
-            // POM file must exist, let the plugin fail otherwise
-            final URL pomURL = retrieve(pomArtifactId);
-            if (pomURL == null) {
-                throw new MojoExecutionException("Unable to find artifact " + pomArtifactId.toMvnId());
-            }
-
-            File pomFile = null;
-            try {
-                pomFile = IOUtils.getFileFromURL(pomURL, true, null);
-            } catch (IOException e) {
-                throw new MojoExecutionException(e.getMessage());
-            }
-            getLog().debug("POM " + pomArtifactId.toMvnId() + " successfully retrieved, reading the model...");
+        return ctx.getPomModelCache().get(pomArtifactId, this::readArtifactPom);
+    }
 
-            // read model
-            model = modelBuilder
-                    .buildRawModel(pomFile, ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL, false)
-                    .get();
-            getLog().debug("POM model " + pomArtifactId.toMvnId() + " successfully read");
+    private Model readArtifactPom(final ArtifactId pomArtifactId) throws MojoExecutionException {
+        getLog().debug("Retrieving POM " + pomArtifactId.toMvnId() + "...");
+        // POM file must exist, let the plugin fail otherwise
+        final URL pomURL = retrieve(pomArtifactId);
+        if (pomURL == null) {
+            throw new MojoExecutionException("Unable to find artifact " + pomArtifactId.toMvnId());
+        }
 
-            // cache model
-            ctx.getModelCache().put(pomArtifactId, model);
+        File pomFile = null;
+        try {
+            pomFile = IOUtils.getFileFromURL(pomURL, true, null);
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage());
         }
+        getLog().debug("POM " + pomArtifactId.toMvnId() + " successfully retrieved, reading the model...");
+
+        // read model
+        final Model model = modelBuilder
+                .buildRawModel(pomFile, ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL, false)
+                .get();
+        getLog().debug("POM model " + pomArtifactId.toMvnId() + " successfully read");
         return model;
     }
 
     private String checkoutSourcesFromSCM(
-            final ApisJarContext ctx, final ArtifactInfo info, final Artifact sourceArtifact)
+            final ApisJarContext ctx, final ArtifactInfo info, final Artifact sourceArtifact, final Timings.Timer timer)
             throws MojoExecutionException {
         // fallback to Artifacts SCM metadata first
         String connection = sourceArtifact.getMetadata().get(ApisUtil.SCM_LOCATION);
@@ -1486,6 +2457,33 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             return null;
         }
 
+        if (this.gitSourceCache != null && GitSourceCache.isGit(connection)) {
+            final File basedir = new File(
+                    ctx.getCheckedOutSourcesDir(), sourceArtifact.getId().toMvnName());
+            final File javaSources;
+            try {
+                // the same artifact might be embedded in several bundles which are processed concurrently
+                synchronized (ctx.getLock(basedir.getAbsolutePath())) {
+                    javaSources = this.gitSourceCache.getSources(
+                            connection, tag, sourceArtifact.getId().getArtifactId(), basedir);
+                }
+            } catch (final IOException e) {
+                getLog().warn("Ignoring sources for artifact "
+                        + sourceArtifact.getId().toMvnId()
+                        + " : An error occurred while checking out sources from " + connection + ": "
+                        + e.getMessage());
+                return null;
+            }
+            if (javaSources == null) {
+                getLog().warn("Ignoring sources for artifact "
+                        + sourceArtifact.getId().toMvnId() + " : SCM checkout for "
+                        + sourceArtifact.getId().toMvnId() + " does not contain any source.");
+                return null;
+            }
+            this.copyCheckedOutSources(ctx, info, javaSources, timer);
+            return tag == null ? connection : connection.concat("@").concat(tag);
+        }
+
         try {
             ScmRepository repository = scmManager.makeScmRepository(connection);
 
@@ -1496,33 +2494,36 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
 
             File basedir = new File(
                     ctx.getCheckedOutSourcesDir(), sourceArtifact.getId().toMvnName());
-            if (basedir.exists()) {
-                getLog().debug("Source checkout directory " + basedir + " already exists");
-            } else {
-                getLog().debug("Checking out source to directory " + basedir);
-                basedir.mkdirs();
-                ScmFileSet fileSet = new ScmFileSet(basedir);
+            // the same artifact might be embedded in several bundles which are processed concurrently
+            synchronized (ctx.getLock(basedir.getAbsolutePath())) {
+                if (basedir.exists()) {
+                    getLog().debug("Source checkout directory " + basedir + " already exists");
+                } else {
+                    getLog().debug("Checking out source to directory " + basedir);
+                    basedir.mkdirs();
+                    ScmFileSet fileSet = new ScmFileSet(basedir);
 
-                CheckOutScmResult result = null;
-                try {
-                    if (scmVersion == null) {
-                        result = scmManager.checkOut(repository, fileSet, true);
-                    } else {
-                        result = scmManager.checkOut(repository, fileSet, scmVersion, true);
+                    CheckOutScmResult result = null;
+                    try {
+                        if (scmVersion == null) {
+                            result = scmManager.checkOut(repository, fileSet, true);
+                        } else {
+                            result = scmManager.checkOut(repository, fileSet, scmVersion, true);
+                        }
+                    } catch (ScmException se) {
+                        throw new MojoExecutionException(
+                                "An error occurred while checking sources from " + repository + " for artifact "
+                                        + sourceArtifact.getId().toMvnId() + " model",
+                                se);
                     }
-                } catch (ScmException se) {
-                    throw new MojoExecutionException(
-                            "An error occurred while checking sources from " + repository + " for artifact "
-                                    + sourceArtifact.getId().toMvnId() + " model",
-                            se);
-                }
 
-                if (!result.isSuccess()) {
-                    getLog().warn("Ignoring sources for artifact "
-                            + sourceArtifact.getId().toMvnId()
-                            + " : An error occurred while checking out sources from " + connection + ": "
-                            + result.getProviderMessage());
-                    return null;
+                    if (!result.isSuccess()) {
+                        getLog().warn("Ignoring sources for artifact "
+                                + sourceArtifact.getId().toMvnId()
+                                + " : An error occurred while checking out sources from " + connection + ": "
+                                + result.getProviderMessage());
+                        return null;
+                    }
                 }
             }
 
@@ -1557,27 +2558,7 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                 }
             }
 
-            final File sourceDirectory =
-                    new File(ctx.getDeflatedSourcesDir(), info.getId().toMvnName());
-            info.setSourceDirectory(sourceDirectory);
-            sourceDirectory.mkdir();
-
-            final DirectoryScanner directoryScanner = new DirectoryScanner();
-            directoryScanner.setBasedir(javaSources);
-            directoryScanner.setIncludes(info.getUsedExportedPackageIncludes());
-            directoryScanner.scan();
-
-            for (String file : directoryScanner.getIncludedFiles()) {
-                final File source = new File(javaSources, file);
-                final File destination = new File(sourceDirectory, file);
-                destination.getParentFile().mkdirs();
-                try {
-                    FileUtils.copyFile(source, destination);
-                } catch (IOException e) {
-                    throw new MojoExecutionException(
-                            "An error occurred while copying sources from " + source + " to " + destination, e);
-                }
-            }
+            this.copyCheckedOutSources(ctx, info, javaSources, timer);
 
             return tag == null ? connection : connection.concat("@").concat(tag);
         } catch (ScmRepositoryException se) {
@@ -1596,11 +2577,40 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         }
     }
 
-    static Clause[] getProvidedCapability(final Manifest manifest) {
-        final String providedCapabilitiesHeader = manifest.getMainAttributes().getValue(Constants.PROVIDE_CAPABILITY);
-        final Clause[] providedCapabilities = Parser.parseHeader(providedCapabilitiesHeader);
+    /**
+     * Copy the sources of the used packages from a checkout into the source directory of the artifact
+     * @param timer The timer of the {@link Timings#SCM_CHECKOUT} phase, the bytes written are added
+     */
+    private void copyCheckedOutSources(
+            final ApisJarContext ctx, final ArtifactInfo info, final File javaSources, final Timings.Timer timer)
+            throws MojoExecutionException {
+        final File sourceDirectory = new File(ctx.getDeflatedSourcesDir(), info.getId().toMvnName());
+        info.setSourceDirectory(sourceDirectory);
+        sourceDirectory.mkdir();
+
+        final DirectoryScanner directoryScanner = new DirectoryScanner();
+        directoryScanner.setBasedir(javaSources);
+        directoryScanner.setIncludes(info.getUsedExportedPackageIncludes());
+        directoryScanner.scan();
 
-        return providedCapabilities;
+        final String encoding = getSourceEncoding(info);
+        final SourceTranscoder transcoder = encoding == null ? null : new SourceTranscoder(encoding);
+        for (String file : directoryScanner.getIncludedFiles()) {
+            final File source = new File(javaSources, file);
+            final File destination = new File(sourceDirectory, file);
+            destination.getParentFile().mkdirs();
+            try {
+                if (transcoder != null) {
+                    transcoder.copy(source, destination);
+                } else {
+                    FileUtils.copyFile(source, destination);
+                }
+                timer.addBytesWritten(destination.length());
+            } catch (IOException e) {
+                throw new MojoExecutionException(
+                        "An error occurred while copying sources from " + source + " to " + destination, e);
+            }
+        }
     }
 
     /**
@@ -1609,7 +2619,10 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
      * @return List of packages exported by this bundle and used in the region
      */
     private Set<Clause> computeProvidedCapabilities(
-            final ApiRegion apiRegion, final Clause[] providedCapabilities, final Artifact bundle) {
+            final RegionSupport regionSupport,
+            final ApiRegion apiRegion,
+            final Clause[] providedCapabilities,
+            final Artifact bundle) {
         final Set<Clause> result = new LinkedHashSet<>();
 
         for (final Clause providedCapability : providedCapabilities) {
@@ -1628,7 +2641,7 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                                 + providedCapability + "' of bundle " + bundle.getId());
                     }
                 }
-                if (areServiceObjectClassesContainedInRegion(apiRegion, serviceObjectClasses, bundle)) {
+                if (areServiceObjectClassesContainedInRegion(regionSupport, apiRegion, serviceObjectClasses, bundle)) {
                     result.add(providedCapability);
                 } else {
                     getLog().debug("Skip capability " + providedCapability.getName() + " for region "
@@ -1644,12 +2657,15 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
     }
 
     private boolean areServiceObjectClassesContainedInRegion(
-            final ApiRegion apiRegion, String serviceObjectClasses, final Artifact bundle) {
+            final RegionSupport regionSupport,
+            final ApiRegion apiRegion,
+            String serviceObjectClasses,
+            final Artifact bundle) {
         // this is a comma separated list
         // (https://docs.osgi.org/specification/osgi.cmpn/7.0.0/service.namespaces.html#service.namespaces-osgi.service.namespace)
         for (String serviceObjectClass : serviceObjectClasses.split(",")) {
             String relevantPackage = serviceObjectClass.substring(0, serviceObjectClass.lastIndexOf("."));
-            if (apiRegion.getExportByName(relevantPackage) == null
+            if (regionSupport.getExportByName(apiRegion, relevantPackage) == null
                     || ApisUtil.getIgnoredPackages(bundle).contains(relevantPackage)) {
                 return false;
             }
@@ -1710,7 +2726,17 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                     jarArchiver.addFileSet(fileSet);
                 }
                 if (sources != null) {
-                    sources.add(new DirectorySource(fileSet));
+                    final FileTreeIndex index =
+                            archiveType == ArtifactType.APIS ? info.getBinIndex() : info.getSourceIndex();
+                    if (index != null && dir.equals(index.getDirectory())) {
+                        final List<String> pcks = new ArrayList<>();
+                        for (final Clause clause : info.getUsedExportedPackages(apiRegion.getName())) {
+                            pcks.add(clause.getName());
+                        }
+                        sources.add(new DirectorySource(fileSet, index.getFiles(pcks)));
+                    } else {
+                        sources.add(new DirectorySource(fileSet));
+                    }
                 }
             }
         }
@@ -1843,16 +2869,19 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             final List<File> resources,
             final Collection<ArtifactInfo> infos,
             final List<Map.Entry<String, File>> additionalResources,
-            final List<String> report)
+            final RegionResult result)
             throws MojoExecutionException {
-        final JarArchiver jarArchiver = new JarArchiver();
+        final RecordingJarArchiver jarArchiver = new RecordingJarArchiver();
 
+        final boolean copyBinaries = archiveType == ArtifactType.APIS && this.streamBinaries;
         if (archiveType == ArtifactType.APIS || archiveType == ArtifactType.SOURCES) {
-            // api or source
-            this.addFileSets(apiRegion, archiveType, infos, jarArchiver, null);
+            // api or source, streamed classes are copied once the jar is created
+            if (!copyBinaries) {
+                this.addFileSets(apiRegion, archiveType, infos, jarArchiver, null);
+            }
         } else {
             // javadoc or javadoc_all
-            final DefaultFileSet fileSet = new DefaultFileSet(ctx.getJavadocDir());
+            final DefaultFileSet fileSet = new DefaultFileSet(this.getJavadocDir(ctx, apiRegion, archiveType));
             jarArchiver.addFileSet(fileSet);
         }
 
@@ -1867,7 +2896,7 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
 
         // check for license report
         if (ctx.getConfig().getLicenseReport() != null) {
-            final File out = this.createLicenseReport(ctx, apiRegion, infos, report);
+            final File out = this.createLicenseReport(ctx, apiRegion, infos, result.report);
             jarArchiver.addFile(out, ctx.getConfig().getLicenseReport());
         }
 
@@ -1926,12 +2955,29 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         MavenArchiver archiver = new MavenArchiver();
         archiver.setArchiver(jarArchiver);
         archiver.setOutputFile(target);
+        archiver.configureReproducibleBuild(this.outputTimestamp);
 
-        try {
+        try (final Timings.Timer timer = ctx.getTimings().startRegion(Timings.ARCHIVE, apiRegion.getName())) {
             archiver.createArchive(mavenSession, project, archiveConfiguration);
-            if (this.attachApiJars) {
-                projectHelper.attachArtifact(project, targetId.getType(), targetId.getClassifier(), target);
+            final Set<String> entryNames = new HashSet<>(jarArchiver.getEntryNames());
+            if (copyBinaries) {
+                final JarEntryCopier copier = new JarEntryCopier(target);
+                MavenArchiver.parseBuildOutputTimestamp(this.outputTimestamp)
+                        .ifPresent(time -> copier.setDirectoryTime(FileTime.from(time)));
+                for (final ArtifactInfo info : infos) {
+                    final String[] includes = info.getUsedExportedPackageIncludes(apiRegion.getName());
+                    for (final File archive : info.getBinaryArchives()) {
+                        getLog().debug("Copying entries from " + archive.getName() + " with "
+                                + Arrays.toString(includes));
+                        copier.add(archive, includes);
+                    }
+                }
+                copier.copy();
+                entryNames.addAll(copier.getCopiedNames());
             }
+            timer.addBytesWritten(target.length());
+            result.entryNames.put(target, entryNames);
+            result.attachments.add(new AbstractMap.SimpleImmutableEntry<>(targetId, target));
         } catch (Exception e) {
             throw new MojoExecutionException("An error occurred while creating APIs " + target + " archive", e);
         }
@@ -1965,8 +3011,10 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
      * Create the dependencies file for a region
      * @param ctx The context
      * @param apiRegion The region
+     * @param result The region result
      */
-    private void createDependenciesFile(final ApisJarContext ctx, final ApiRegion apiRegion)
+    private void createDependenciesFile(
+            final ApisJarContext ctx, final ApiRegion apiRegion, final RegionResult result)
             throws MojoExecutionException {
         final Collection<ArtifactInfo> infos = ctx.getArtifactInfos(apiRegion.getName(), false);
 
@@ -1992,9 +3040,7 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             } catch (final IOException e) {
                 throw new MojoExecutionException("Unable to write dependencies file", e);
             }
-            if (this.attachApiJars) {
-                projectHelper.attachArtifact(project, targetId.getType(), targetId.getClassifier(), target);
-            }
+            result.attachments.add(new AbstractMap.SimpleImmutableEntry<>(targetId, target));
         } else {
             getLog().info("No dependencies found");
             if (target.exists()) {
@@ -2050,10 +3096,6 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         // handle additional packages
         if (!useDependencies) {
             for (final Artifact artifact : ApisUtil.getAdditionalJavadocArtifacts(ctx, regionName)) {
-                final boolean infoExists = ctx.getArtifactInfo(artifact.getId()) != null;
-                final ArtifactInfo info =
-                        infoExists ? ctx.getArtifactInfo(artifact.getId()) : ctx.addArtifactInfo(artifact);
-
                 final Set<Clause> exportedPackages =
                         regionSupport.getAllPublicPackages(ctx, artifact, getArtifactFile(artifact.getId()));
                 final Iterator<Clause> iter = exportedPackages.iterator();
@@ -2069,11 +3111,20 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                 }
 
                 if (!exportedPackages.isEmpty()) {
-                    info.setUsedExportedPackages(regionName, exportedPackages, "");
-                    if (!infoExists) {
-                        info.setUsedExportedPackages(exportedPackageNames);
-                        info.setSourceDirectory(new File(
-                                ctx.getDeflatedSourcesDir(), info.getId().toMvnName()));
+                    // regions might be processed concurrently, the shared info is
+                    // only published to the context once it is fully initialized
+                    final ArtifactInfo info;
+                    synchronized (ctx) {
+                        final ArtifactInfo existing = ctx.getArtifactInfo(artifact.getId());
+                        if (existing != null) {
+                            info = existing;
+                        } else {
+                            info = new ArtifactInfo(artifact);
+                            info.setUsedExportedPackages(exportedPackageNames);
+                            info.setSourceDirectory(new File(ctx.getDeflatedSourcesDir(), info.getId().toMvnName()));
+                            ctx.addArtifactInfo(info);
+                        }
+                        info.setUsedExportedPackages(regionName, exportedPackages, "");
                     }
 
                     usedInfos.add(info);
@@ -2170,7 +3221,21 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         // list packages
         javadocExecutor.addArguments(javadocPackages);
 
-        javadocExecutor.execute(javadocDir, getLog(), this.ignoreJavadocErrors);
+        if (this.javadocPermits != null) {
+            try {
+                this.javadocPermits.acquire();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for javadoc generation", e);
+            }
+        }
+        try (final Timings.Timer timer = ctx.getTimings().startRegion(Timings.JAVADOC, regionName)) {
+            javadocExecutor.execute(javadocDir, getLog(), this.ignoreJavadocErrors, this.javadocInProcess);
+        } finally {
+            if (this.javadocPermits != null) {
+                this.javadocPermits.release();
+            }
+        }
 
         return usedInfos;
     }
@@ -2184,6 +3249,16 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
         final File out = new File(this.getTmpDir(), region.getName() + "-license-report.txt");
         if (!out.exists()) {
 
+            // resolve the licenses of all artifacts concurrently, unless the regions are already
+            // processed concurrently: then the tasks run in the thread of the region
+            final List<Callable<List<License>>> tasks = new ArrayList<>();
+            for (final ArtifactInfo info : infos) {
+                if (ctx.getConfig().getLicenseDefault(info.getId()) == null && info.getLicenses() == null) {
+                    tasks.add(() -> this.getLicenses(ctx, info));
+                }
+            }
+            ApisUtil.invokeAll(tasks, this.apisJarThreads);
+
             final List<String> output = new ArrayList<>();
 
             output.add(ctx.getConfig().getLicenseReportHeader());
@@ -2293,7 +3368,7 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
             final Iterator<Clause> clauseIter = exportedPackages.iterator();
             while (clauseIter.hasNext()) {
                 final Clause c = clauseIter.next();
-                if (region.getAllExportByName(c.getName()) == null) {
+                if (regionSupport.getAllExportByName(region, c.getName()) == null) {
                     exportedPackageNames.add(c.getName());
                 } else {
                     clauseIter.remove();
@@ -2305,16 +3380,43 @@ public class ApisJarMojo extends AbstractIncludingFeatureMojo {
                 info.setUsedExportedPackages(exportedPackageNames);
                 info.setSourceDirectory(
                         new File(ctx.getDeflatedSourcesDir(), info.getId().toMvnName()));
-                final boolean skipSourceDeflate = info.getSourceDirectory().exists();
-                if (skipSourceDeflate) {
-                    getLog().debug("Source for artifact " + info.getId().toMvnName() + " already deflated");
-                    info.addSourceInfo("USE CACHE FROM PREVIOUS BUILD");
-                } else {
-                    this.downloadSources(ctx, info, artifact);
+                // the same artifact might be used by several regions which are processed concurrently
+                synchronized (ctx.getLock(info.getSourceDirectory().getAbsolutePath())) {
+                    final boolean skipSourceDeflate = info.getSourceDirectory().exists();
+                    if (skipSourceDeflate) {
+                        getLog().debug("Source for artifact " + info.getId().toMvnName() + " already deflated");
+                        info.addSourceInfo("USE CACHE FROM PREVIOUS BUILD");
+                    } else {
+                        try (final Timings.Timer timer =
+                                ctx.getTimings().startArtifact(Timings.SOURCES, artifact.getId())) {
+                            this.downloadSources(ctx, info, artifact, timer);
+                        }
+                    }
                 }
                 result.add(info);
             }
         }
         return result;
     }
+
+    /**
+     * The result of creating the api jars for a single region
+     */
+    private static final class RegionResult {
+
+        final ApiRegion apiRegion;
+
+        /** The errors found while verifying the jars. */
+        final List<String> report = new ArrayList<>();
+
+        /** The created files to attach to the project. */
+        final List<Map.Entry<ArtifactId, File>> attachments = new ArrayList<>();
+
+        /** The names of the entries written to the created jars. */
+        final Map<File, Set<String>> entryNames = new HashMap<>();
+
+        RegionResult(final ApiRegion apiRegion) {
+            this.apiRegion = apiRegion;
+        }
+    }
 }
@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import jakarta.json.JsonArray;
 import jakarta.json.JsonObject;
@@ -230,6 +232,35 @@ public class ApisConfiguration {
         }
     }
 
+    /**
+     * Add the configuration to a fingerprint. Unordered values are added sorted.
+     * @param fingerprint The fingerprint
+     */
+    public void addToFingerprint(final Fingerprint fingerprint) {
+        fingerprint.add("useApiDependencies", this.useApiDependencies);
+        fingerprint.add("dependencyRepositories", new TreeSet<>(this.dependencyRepositories));
+        fingerprint.add("useApiDependenciesForJavadoc", this.useApiDependenciesForJavadoc);
+        fingerprint.add("generateJavadocForAllApi", this.generateJavadocForAllApi);
+        fingerprint.add("enabledToggles", new TreeSet<>(this.enabledToggles));
+        fingerprint.add(PROP_JAVADOC_SOURCE_LEVEL, this.javadocSourceLevel);
+        fingerprint.add(PROP_JAVADOC_LINKS, this.javadocLinks);
+        fingerprint.add(PROP_API_VERSION, this.apiVersion);
+        fingerprint.add(PROP_API_NAME, this.apiName);
+        fingerprint.add(PROP_BUNDLE_RESOURCE_FOLDERS, this.bundleResourceFolders);
+        fingerprint.add(PROP_BUNDLE_RESOURCES, this.bundleResources);
+        fingerprint.add(PROP_REGION_MAPPINGS, new TreeMap<>(this.regionMappings));
+        fingerprint.add(PROP_CLASSIFIER_MAPPINGS, new TreeMap<>(this.classifierMappings));
+        fingerprint.add(PROP_JAVADOC_CLASSPATH_REMOVALS, this.javadocClasspathRemovals);
+        fingerprint.add(PROP_JAVADOC_CLASSPATH_HIGHEST_VERSIONS, this.javadocClasspathHighestVersions);
+        fingerprint.add(PROP_JAVADOC_CLASSPATH_TOPS, this.javadocClasspathTops);
+        fingerprint.add(PROP_MANIFEST_ENTRIES, new TreeMap<>(this.manifestEntries));
+        fingerprint.add(PROP_LICENSE_REPORT, this.licenseReport);
+        fingerprint.add(PROP_LICENSE_DEFAULTS, this.licenseDefaults);
+        fingerprint.add(PROP_LICENSE_HEADER, this.licenseReportHeader);
+        fingerprint.add(PROP_LICENSE_FOOTER, this.licenseReportFooter);
+        fingerprint.add(PROP_ADDITIONAL_JAVADOC_EXTENSIONS, new TreeMap<>(this.additionJavadocExtensionNames));
+    }
+
     private String getStringOrArray(final JsonObject json, final String propName) {
         String result = null;
         final JsonValue val = json.containsKey(propName) ? json.get(propName) : null;
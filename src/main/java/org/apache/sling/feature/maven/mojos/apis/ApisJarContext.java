@@ -19,9 +19,6 @@
 package org.apache.sling.feature.maven.mojos.apis;
 
 import java.io.File;
-import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -31,10 +28,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.felix.utils.manifest.Clause;
 import org.apache.maven.model.License;
-import org.apache.maven.model.Model;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.sling.feature.Artifact;
@@ -43,6 +41,9 @@ import org.apache.sling.feature.Feature;
 
 /**
  * Context for creating the api jars
+ *
+ * The context is thread-safe as the artifacts of a feature might be processed
+ * concurrently.
  */
 public class ApisJarContext {
 
@@ -61,20 +62,36 @@ public class ApisJarContext {
         private Set<String> usedExportedPackages;
 
         /** Exported packages per region. */
-        private final Map<String, Set<Clause>> usedExportedPackagesPerRegion = new HashMap<>();
+        private final Map<String, Set<Clause>> usedExportedPackagesPerRegion = new ConcurrentHashMap<>();
 
         /** Flag if used as dependency */
-        private final Map<String, String> useAsDependencyPerRegion = new HashMap<>();
+        private final Map<String, String> useAsDependencyPerRegion = new ConcurrentHashMap<>();
 
         private final Set<File> includedResources = new HashSet<>();
 
         private final Set<String> nodeTypes = new HashSet<>();
 
-        private List<License> licenses;
+        private volatile List<License> licenses;
 
         private final Set<String> sources = new HashSet<>();
 
-        private final Map<String, Set<Clause>> providedCapabilitiesPerRegion = new HashMap<>();
+        private final Map<String, Set<Clause>> providedCapabilitiesPerRegion = new ConcurrentHashMap<>();
+
+        /** Archives to copy the binaries from if the binaries are not deflated. */
+        private final List<File> binaryArchives = new ArrayList<>();
+
+        /** Used packages in the binary archives, mapped to whether they contain classes. */
+        private final Map<String, Boolean> binaryArchivePackages = new HashMap<>();
+
+        /** Packages with sources taken from the deflate cache. */
+        private final Set<String> cachedSourcePackages = new HashSet<>();
+
+        /** Flag if sources have been added without using the deflate cache. */
+        private boolean uncachedSources;
+
+        private FileTreeIndex binIndex;
+
+        private FileTreeIndex sourceIndex;
 
         public ArtifactInfo(final Artifact artifact) {
             this.artifact = artifact;
@@ -104,10 +121,69 @@ public class ApisJarContext {
             this.sourceDirectory = sourceDirectory;
         }
 
+        /**
+         * Get the index of the binary directory, created when the artifact is post processed
+         * @return The index or {@code null}
+         */
+        public FileTreeIndex getBinIndex() {
+            return binIndex;
+        }
+
+        public void setBinIndex(final FileTreeIndex binIndex) {
+            this.binIndex = binIndex;
+        }
+
+        /**
+         * Get the index of the source directory. There is no index if the sources
+         * are taken from the deflate cache or if there are no sources.
+         * @return The index or {@code null}
+         */
+        public FileTreeIndex getSourceIndex() {
+            return sourceIndex;
+        }
+
+        public void setSourceIndex(final FileTreeIndex sourceIndex) {
+            this.sourceIndex = sourceIndex;
+        }
+
         public Set<String> getUsedExportedPackages() {
             return usedExportedPackages;
         }
 
+        /**
+         * Get the archives to copy the binaries from. This is only used if the binaries
+         * are not deflated.
+         * @return The list of archives, might be empty
+         */
+        public List<File> getBinaryArchives() {
+            return binaryArchives;
+        }
+
+        /**
+         * Get the used packages contained in the binary archives
+         * @return A map with the package name as key and whether the package contains classes as value
+         */
+        public Map<String, Boolean> getBinaryArchivePackages() {
+            return binaryArchivePackages;
+        }
+
+        /**
+         * Get the packages containing sources if all sources of this artifact are
+         * taken from the deflate cache. In this case, the sources are already post processed.
+         * @return The set of packages or {@code null}
+         */
+        public Set<String> getCachedSourcePackages() {
+            return uncachedSources || cachedSourcePackages.isEmpty() ? null : cachedSourcePackages;
+        }
+
+        public void addCachedSourcePackages(final Collection<String> packages) {
+            this.cachedSourcePackages.addAll(packages);
+        }
+
+        public void setUncachedSources() {
+            this.uncachedSources = true;
+        }
+
         public void setUsedExportedPackages(Set<String> usedExportedPackages) {
             this.usedExportedPackages = usedExportedPackages;
         }
@@ -248,11 +324,11 @@ public class ApisJarContext {
 
     private final ApisConfiguration config;
 
-    private final Map<ArtifactId, String> javadocClasspath = new HashMap<>();
+    private final Map<ArtifactId, String> javadocClasspath = new ConcurrentHashMap<>();
 
-    private final Set<String> packagesWithoutJavaClasses = new HashSet<>();
+    private final Set<String> packagesWithoutJavaClasses = ConcurrentHashMap.newKeySet();
 
-    private final Set<String> packagesWithoutSources = new HashSet<>();
+    private final Set<String> packagesWithoutSources = ConcurrentHashMap.newKeySet();
 
     private final File deflatedBinDir;
 
@@ -260,17 +336,29 @@ public class ApisJarContext {
 
     private final File checkedOutSourcesDir;
 
-    private File javadocDir;
-
-    private final List<ArtifactInfo> infos = new ArrayList<>();
+    private final List<ArtifactInfo> infos = new CopyOnWriteArrayList<>();
 
     private final Feature feature;
 
-    private final Map<ArtifactId, Model> modelCache = new HashMap<>();
+    private PomModelCache pomModelCache = new PomModelCache();
+
+    private final Timings timings = new Timings();
+
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    private final JarMetadataCache jarMetadataCache;
+
+    private DependencyRepositoryProber dependencyRepositoryProber = new DependencyRepositoryProber(1, null, 0);
 
     public ApisJarContext(final File mainDir, final Feature feature) throws MojoExecutionException {
+        this(mainDir, feature, new JarMetadataCache());
+    }
+
+    public ApisJarContext(final File mainDir, final Feature feature, final JarMetadataCache jarMetadataCache)
+            throws MojoExecutionException {
         this.config = new ApisConfiguration(feature);
         this.feature = feature;
+        this.jarMetadataCache = jarMetadataCache;
 
         // deflated and source dirs can be shared
         this.deflatedBinDir = new File(mainDir, "deflated-bin");
@@ -282,6 +370,22 @@ public class ApisJarContext {
         return this.config;
     }
 
+    /**
+     * Get the cache for the metadata of jar files, shared by all features
+     * @return The cache
+     */
+    public JarMetadataCache getJarMetadataCache() {
+        return this.jarMetadataCache;
+    }
+
+    /**
+     * Set the prober used to check the availability of dependency artifacts
+     * @param prober The prober
+     */
+    public void setDependencyRepositoryProber(final DependencyRepositoryProber prober) {
+        this.dependencyRepositoryProber = prober;
+    }
+
     public ArtifactId getFeatureId() {
         return feature.getId();
     }
@@ -310,14 +414,6 @@ public class ApisJarContext {
         return javadocClasspath;
     }
 
-    public File getJavadocDir() {
-        return javadocDir;
-    }
-
-    public void setJavadocDir(final File javadocDir) {
-        this.javadocDir = javadocDir;
-    }
-
     public Set<String> getPackagesWithoutJavaClasses() {
         return packagesWithoutJavaClasses;
     }
@@ -333,6 +429,10 @@ public class ApisJarContext {
         return info;
     }
 
+    public void addArtifactInfo(final ArtifactInfo info) {
+        this.infos.add(info);
+    }
+
     public ArtifactInfo getArtifactInfo(final ArtifactId artifactId) {
         for (final ArtifactInfo i : this.infos) {
             if (i.getArtifact().getId().equals(artifactId)) {
@@ -346,8 +446,33 @@ public class ApisJarContext {
         return this.infos;
     }
 
-    public Map<ArtifactId, Model> getModelCache() {
-        return this.modelCache;
+    /**
+     * Get the timings of the generation
+     * @return The timings
+     */
+    public Timings getTimings() {
+        return this.timings;
+    }
+
+    public PomModelCache getPomModelCache() {
+        return this.pomModelCache;
+    }
+
+    /**
+     * Set the cache for POM models, by default a cache for this context is used
+     * @param cache The cache
+     */
+    public void setPomModelCache(final PomModelCache cache) {
+        this.pomModelCache = cache;
+    }
+
+    /**
+     * Get the lock for a resource shared between artifacts, like a checkout directory.
+     * @param key The key identifying the resource
+     * @return The lock object, the same object is returned for the same key
+     */
+    public Object getLock(final String key) {
+        return this.locks.computeIfAbsent(key, k -> new Object());
     }
 
     public Collection<ArtifactInfo> getArtifactInfos(final String regionName, final boolean omitDependencyArtifacts) {
@@ -363,47 +488,6 @@ public class ApisJarContext {
         return result.values();
     }
 
-    /**
-     * Find a an artifact
-     * If dependency repositories are configured, one of them must provide the artifact
-     * @param log Logger
-     * @param id The artifact id
-     * @return {@code true} if the artifact could be found.
-     * @throws MojoExecutionException
-     */
-    private boolean findDependencyArtifact(final Log log, final ArtifactId id) throws MojoExecutionException {
-        boolean result = true;
-        if (!this.getConfig().getDependencyRepositories().isEmpty()) {
-            result = false;
-            log.debug("Trying to resolve "
-                    .concat(id.toMvnId())
-                    .concat(" from ")
-                    .concat(this.getConfig().getDependencyRepositories().toString()));
-            for (final String server : this.getConfig().getDependencyRepositories()) {
-                try {
-                    final URL url = new URL(server.concat(id.toMvnPath()));
-                    try {
-                        url.openConnection().getInputStream().close();
-                        log.debug("Found ".concat(id.toMvnId()).concat(" at ").concat(url.toString()));
-                        result = true;
-                        break;
-                    } catch (IOException e) {
-                        // not available
-                        log.debug("Missed "
-                                .concat(id.toMvnId())
-                                .concat(" at ")
-                                .concat(url.toString())
-                                .concat(" : ")
-                                .concat(e.toString()));
-                    }
-                } catch (final MalformedURLException mue) {
-                    throw new MojoExecutionException("Unable to find dependency on ".concat(server), mue);
-                }
-            }
-        }
-        return result;
-    }
-
     /**
      * Check if all dependency artifacts can be found
      * @param log The logger
@@ -412,13 +496,17 @@ public class ApisJarContext {
      * @throws MojoExecutionException If an incorrect configuration is found
      */
     public boolean findDependencyArtifact(final Log log, final ArtifactInfo info) throws MojoExecutionException {
-        boolean result = true;
+        if (this.getConfig().getDependencyRepositories().isEmpty()) {
+            return true;
+        }
+        final List<String> paths = new ArrayList<>();
         for (final ArtifactId id : info.getDependencyArtifacts()) {
-            if (!findDependencyArtifact(log, id)) {
-                result = false;
-                break;
-            }
+            paths.add(id.toMvnPath());
         }
-        return result;
+        log.debug("Trying to resolve "
+                .concat(paths.toString())
+                .concat(" from ")
+                .concat(this.getConfig().getDependencyRepositories().toString()));
+        return this.dependencyRepositoryProber.exists(log, this.getConfig().getDependencyRepositories(), paths);
     }
 }
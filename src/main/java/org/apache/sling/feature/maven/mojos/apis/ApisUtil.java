@@ -19,12 +19,7 @@
 package org.apache.sling.feature.maven.mojos.apis;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -39,8 +34,12 @@ import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionRequest;
@@ -57,6 +56,7 @@ import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.maven.mojos.apis.ApisJarContext.ArtifactInfo;
 import org.apache.sling.feature.maven.mojos.apis.spi.Processor;
 import org.apache.sling.feature.maven.mojos.selection.IncludeExcludeMatcher;
+import org.eclipse.aether.SessionData;
 
 /**
  * Context for creating the api jars
@@ -90,6 +90,9 @@ public class ApisUtil {
     /** Ignore packages for api generation */
     public static final String IGNORE_PACKAGES = "apis-ignore";
 
+    /** Marks the threads running the tasks of {@link #invokeAll(List, int)} */
+    private static final ThreadLocal<Boolean> WORKER = new ThreadLocal<>();
+
     public static List<ArtifactId> getSourceIds(final Artifact artifact) throws MojoExecutionException {
         final String val = artifact.getMetadata().get(SCM_IDS);
         if (val != null) {
@@ -144,33 +147,6 @@ public class ApisUtil {
         return null;
     }
 
-    public static void getPackageList(
-            String javadocUrl, final Set<String> linkedPackages, final Map<String, Set<String>> linkedPackagesMap)
-            throws MojoExecutionException {
-        if (javadocUrl.endsWith("/")) {
-            javadocUrl = javadocUrl.substring(0, javadocUrl.length() - 1);
-        }
-        Set<String> result = linkedPackagesMap.get(javadocUrl);
-        if (result == null) {
-            result = new HashSet<>();
-            linkedPackagesMap.put(javadocUrl, result);
-            final String urlString = javadocUrl.concat("/package-list");
-            try {
-                final URL url = new URL(urlString);
-                try (final LineNumberReader reader = new LineNumberReader(
-                        new InputStreamReader(url.openConnection().getInputStream(), StandardCharsets.UTF_8))) {
-                    String line = null;
-                    while ((line = reader.readLine()) != null) {
-                        result.add(line.trim());
-                    }
-                }
-            } catch (final IOException e) {
-                throw new MojoExecutionException("Unable to find/read package-list at ".concat(urlString), e);
-            }
-        }
-        result.stream().forEach(v -> linkedPackages.add(v));
-    }
-
     public static Set<String> getIgnoredPackages(final Artifact bundle) {
         final Set<String> result = new HashSet<>();
         final String ignore = bundle.getMetadata().get(ApisUtil.IGNORE_PACKAGES);
@@ -321,12 +297,78 @@ public class ApisUtil {
         return classpath;
     }
 
+    /**
+     * Get a value shared within a Maven session. The value is stored with the class name
+     * as the key. If the session is not available or a value of an incompatible class
+     * is stored, for example by another version of this plugin, a new unshared value is returned.
+     * @param session The session, might be {@code null}
+     * @param type The type of the value
+     * @param factory The factory to create the value
+     * @return The value
+     */
+    public static <T> T getSessionValue(final MavenSession session, final Class<T> type, final Supplier<T> factory) {
+        return getSessionValue(session, type, null, factory);
+    }
+
+    /**
+     * Get a value shared within a Maven session for a configuration. The value is stored with
+     * the class name and the configuration as the key, values for different configurations are
+     * not shared. If the session is not available or a value of an incompatible class is stored,
+     * a new unshared value is returned.
+     * @param session The session, might be {@code null}
+     * @param type The type of the value
+     * @param configuration The configuration of the value, might be {@code null}
+     * @param factory The factory to create the value
+     * @return The value
+     */
+    public static <T> T getSessionValue(
+            final MavenSession session, final Class<T> type, final String configuration, final Supplier<T> factory) {
+        if (session == null || session.getRepositorySession() == null) {
+            return factory.get();
+        }
+        final SessionData data = session.getRepositorySession().getData();
+        final String key = configuration == null ? type.getName() : type.getName().concat(":").concat(configuration);
+        while (true) {
+            final Object current = data.get(key);
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+            if (current != null) {
+                return factory.get();
+            }
+            final T value = factory.get();
+            if (data.set(key, null, value)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Get the javadoc classpath for an artifact. The classpath is resolved once per session
+     * and artifact, see {@link JavadocClasspathCache}.
+     * @param log The logger
+     * @param repositorySystem The repository system
+     * @param mavenSession The maven session
+     * @param artifactId The artifact id
+     * @return An unmodifiable map with the artifact ids and paths of the classpath
+     * @throws MojoExecutionException If resolving fails
+     */
     public static Map<ArtifactId, String> buildJavadocClasspath(
             final Log log,
             final RepositorySystem repositorySystem,
             final MavenSession mavenSession,
             final ArtifactId artifactId)
             throws MojoExecutionException {
+        return JavadocClasspathCache.getCache(mavenSession)
+                .get(artifactId, id -> resolveJavadocClasspath(log, repositorySystem, mavenSession, id));
+    }
+
+    private static Map<ArtifactId, String> resolveJavadocClasspath(
+            final Log log,
+            final RepositorySystem repositorySystem,
+            final MavenSession mavenSession,
+            final ArtifactId artifactId)
+            throws MojoExecutionException {
         final Map<ArtifactId, String> javadocClasspath = new HashMap<>();
         log.debug("Retrieving " + artifactId + " and related dependencies...");
 
@@ -421,6 +463,99 @@ public class ApisUtil {
         }
     }
 
+    /**
+     * Run the tasks using up to the given number of threads. If only a single thread
+     * is requested, the tasks are run one after the other in the calling thread. This is
+     * also the case if the calling thread is already running a task of this method, so
+     * nested invocations do not multiply the number of threads.
+     * @param tasks The tasks to run
+     * @param threads The maximum number of threads
+     * @return The results of the tasks, in the order of the tasks
+     * @throws MojoExecutionException If a task fails, the first failure is reported
+     */
+    public static <T> List<T> invokeAll(final List<Callable<T>> tasks, final int threads)
+            throws MojoExecutionException {
+        final List<T> results = new ArrayList<>(tasks.size());
+        if (threads <= 1 || tasks.size() <= 1 || WORKER.get() != null) {
+            for (final Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (final RuntimeException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw toMojoExecutionException(e);
+                }
+            }
+        } else {
+            final List<Callable<T>> workerTasks = new ArrayList<>(tasks.size());
+            for (final Callable<T> task : tasks) {
+                workerTasks.add(() -> {
+                    WORKER.set(Boolean.TRUE);
+                    try {
+                        return task.call();
+                    } finally {
+                        WORKER.remove();
+                    }
+                });
+            }
+            final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+            try {
+                results.addAll(invokeAll(workerTasks, executor));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run the tasks using the given executor. Unlike {@link #invokeAll(List, int)}, the tasks
+     * are always run by the executor, regardless of the calling thread. The tasks must therefore
+     * not wait for other tasks of the same executor which are not running yet.
+     * @param tasks The tasks to run
+     * @param executor The executor
+     * @return The results of the tasks, in the order of the tasks
+     * @throws MojoExecutionException If a task fails, the first failure is reported
+     */
+    public static <T> List<T> invokeAll(final List<Callable<T>> tasks, final ExecutorService executor)
+            throws MojoExecutionException {
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (final Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            final List<T> results = new ArrayList<>(tasks.size());
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw toMojoExecutionException(cause);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for tasks to finish", ie);
+        } finally {
+            // stop the remaining tasks after a failure
+            for (final Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static MojoExecutionException toMojoExecutionException(final Throwable t) {
+        if (t instanceof MojoExecutionException) {
+            return (MojoExecutionException) t;
+        }
+        return new MojoExecutionException(t.getMessage(), t);
+    }
+
     /**
      * Get the list of processors
      * @return The processors - might be empty
@@ -448,6 +583,22 @@ public class ApisUtil {
      */
     public static Map.Entry<Set<String>, Set<String>> getPackages(
             final ApisJarContext ctx, final File file, final String extension) throws MojoExecutionException {
+        try {
+            return getPackages(ctx, ctx.getJarMetadataCache().get(file).getEntryNames(), extension);
+        } catch (final IOException ioe) {
+            throw new MojoExecutionException("Unable to scan file " + file + " : " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Get all packages from the entry names of an archive
+     * @param ctx The generation context
+     * @param entryNames The names of the entries, except the manifest
+     * @param extension The extension to check for
+     * @return A tuple of packages containing files with the extension and packages with files not having the extension
+     */
+    public static Map.Entry<Set<String>, Set<String>> getPackages(
+            final ApisJarContext ctx, final Collection<String> entryNames, final String extension) {
         final Set<String> packages = new TreeSet<>();
         final Set<String> otherPackages = new TreeSet<>();
 
@@ -456,35 +607,28 @@ public class ApisUtil {
             excludes.add(v.concat("/"));
         }
 
-        try (final JarInputStream jis = new JarInputStream(new FileInputStream(file))) {
-            JarEntry entry;
-            while ((entry = jis.getNextJarEntry()) != null) {
-                if (!entry.isDirectory()) {
-                    boolean exclude = false;
-                    for (final String v : excludes) {
-                        if (entry.getName().startsWith(v)) {
-                            exclude = true;
-                            break;
-                        }
+        for (final String name : entryNames) {
+            if (!name.endsWith("/")) {
+                boolean exclude = false;
+                for (final String v : excludes) {
+                    if (name.startsWith(v)) {
+                        exclude = true;
+                        break;
                     }
-                    if (!exclude) {
-                        final int lastPos = entry.getName().lastIndexOf('/');
-                        if (lastPos != -1) {
-                            final String packageName =
-                                    entry.getName().substring(0, lastPos).replace('/', '.');
-
-                            if (entry.getName().endsWith(extension)) {
-                                packages.add(packageName);
-                            } else {
-                                otherPackages.add(packageName);
-                            }
+                }
+                if (!exclude) {
+                    final int lastPos = name.lastIndexOf('/');
+                    if (lastPos != -1) {
+                        final String packageName = name.substring(0, lastPos).replace('/', '.');
+
+                        if (name.endsWith(extension)) {
+                            packages.add(packageName);
+                        } else {
+                            otherPackages.add(packageName);
                         }
                     }
                 }
-                jis.closeEntry();
             }
-        } catch (final IOException ioe) {
-            throw new MojoExecutionException("Unable to scan file " + file + " : " + ioe.getMessage());
         }
 
         otherPackages.removeAll(packages);
@@ -26,7 +26,8 @@ public enum ArtifactType {
     DEPENDENCIES("apideps", "txt", "ref"),
     CND("cnd", "cnd", "jar"),
     REPORT("report", "txt", "txt"),
-    DEPENDENCY_REPORT("dependency-report", "txt", "txt");
+    DEPENDENCY_REPORT("dependency-report", "txt", "txt"),
+    FINGERPRINT("fingerprint", "txt", "txt");
 
     private final String id;
 
@@ -45,11 +45,13 @@ public class ClassFileProcessor implements Processor {
         try {
             final String extension = ".class";
             final List<String> providerTypes = new ArrayList<>();
+            // use a separate pool as regions might be processed concurrently
+            final ClassPool pool = new ClassPool(true);
             for (final Source s : sources) {
                 for (final File f : s.getFiles()) {
                     final String pckName = getPackageName(s.getBaseDirectory(), f, extension);
                     if (pckName != null) {
-                        processClassFile(pckName, s.getBaseDirectory(), f, providerTypes);
+                        processClassFile(pool, pckName, s.getBaseDirectory(), f, providerTypes);
                     }
                 }
             }
@@ -96,9 +98,13 @@ public class ClassFileProcessor implements Processor {
     }
 
     private void processClassFile(
-            final String pckName, final File baseDirectory, final File f, final List<String> providerTypes)
+            final ClassPool pool,
+            final String pckName,
+            final File baseDirectory,
+            final File f,
+            final List<String> providerTypes)
             throws Exception {
-        final CtClass cc = ClassPool.getDefault().makeClass(new FileInputStream(f));
+        final CtClass cc = pool.makeClass(new FileInputStream(f));
         try {
             cc.setName(pckName.concat(".")
                     .concat(f.getName().substring(0, f.getName().length() - 6)));
@@ -0,0 +1,462 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.sling.feature.maven.Digests;
+
+/**
+ * A cache for deflated archives which is shared between builds. Each entry is a
+ * directory identified by a key calculated from the content of the archive and
+ * the include patterns used for deflating.
+ * <p>
+ * Entries are locked while they are created, deflated into a temporary directory
+ * and then moved into place, therefore several builds can use the cache at the same time. Entries
+ * are also locked while they are used, so they are not removed in the meantime. If the cache
+ * exceeds the configured size, the least recently used entries are removed by {@link #evict()}.
+ */
+public class DeflateCache {
+
+    /**
+     * Callback deflating an archive into a directory
+     */
+    @FunctionalInterface
+    public interface Deflater {
+
+        void deflate(File directory) throws MojoExecutionException;
+    }
+
+    /**
+     * Callback using the content of an entry
+     */
+    @FunctionalInterface
+    public interface ContentHandler {
+
+        void handle(File content) throws IOException;
+    }
+
+    /**
+     * Action run while an entry is locked
+     */
+    @FunctionalInterface
+    private interface LockedAction<T> {
+
+        T run() throws IOException, MojoExecutionException;
+    }
+
+    private static final String CONTENT = "content";
+
+    private static final String SIZE = "size";
+
+    private static final String INFO_PREFIX = "info-";
+
+    private static final String TMP_PREFIX = ".tmp-";
+
+    private static final String LOCKS = ".locks";
+
+    /** Locks per lock file, shared by all builds running in this process. */
+    private static final Map<String, ReentrantLock> LOCKS_IN_PROCESS = new ConcurrentHashMap<>();
+
+    /** Temporary directories older than this are left overs from crashed builds. */
+    private static final long TMP_MAX_AGE = TimeUnit.DAYS.toMillis(1);
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final Log log;
+
+    /**
+     * Create a new cache
+     * @param directory The cache directory
+     * @param maxSize The maximum size of the cache in bytes
+     * @param log The logger
+     */
+    public DeflateCache(final File directory, final long maxSize, final Log log) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.log = log;
+    }
+
+    /**
+     * Calculate the key for an archive
+     * @param namespace The namespace, like "bin" or "sources"
+     * @param archive The archive
+     * @param includes The include patterns used for deflating
+     * @return The key
+     * @throws IOException If the archive can't be read
+     */
+    public String getKey(final String namespace, final File archive, final String... includes) throws IOException {
+        return getKey(namespace, null, archive, includes);
+    }
+
+    /**
+     * Calculate the key for an archive
+     * @param namespace The namespace, like "bin" or "sources"
+     * @param id Additional identifier for the content, like the artifact id (optional)
+     * @param archive The archive
+     * @param includes The include patterns used for deflating
+     * @return The key
+     * @throws IOException If the archive can't be read
+     */
+    public String getKey(final String namespace, final String id, final File archive, final String... includes)
+            throws IOException {
+        final MessageDigest digest = Digests.sha256();
+        if (id != null) {
+            digest.update(id.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        try (final InputStream in = Files.newInputStream(archive.toPath())) {
+            final byte[] buffer = new byte[65536];
+            int l;
+            while ((l = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, l);
+            }
+        }
+        final Set<String> sortedIncludes = new TreeSet<>(Arrays.asList(includes));
+        for (final String include : sortedIncludes) {
+            digest.update(include.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return namespace + '-' + Digests.toHex(digest.digest());
+    }
+
+    /**
+     * Get a cached entry
+     * @param key The key
+     * @return The directory with the deflated content or {@code null}
+     */
+    public File get(final String key) {
+        final File entry = new File(this.directory, key);
+        final File content = new File(entry, CONTENT);
+        if (content.isDirectory()) {
+            // mark as recently used
+            entry.setLastModified(System.currentTimeMillis());
+            return content;
+        }
+        return null;
+    }
+
+    /**
+     * Add an entry to the cache. The entry is locked while it is created, if the entry
+     * is created concurrently by another thread or build, the entry of that one is used.
+     * @param key The key
+     * @param deflater The deflater creating the content
+     * @return The directory with the deflated content
+     * @throws IOException If the entry can't be added
+     * @throws MojoExecutionException If deflating fails
+     */
+    public File put(final String key, final Deflater deflater) throws IOException, MojoExecutionException {
+        return this.withLock(key, true, () -> {
+            final File existing = this.get(key);
+            if (existing != null) {
+                log.debug("Cache entry " + key + " has been added concurrently");
+                return existing;
+            }
+            return this.create(key, deflater);
+        });
+    }
+
+    /**
+     * Use an entry, it is added to the cache first if it is not cached yet. The entry
+     * is locked while the handler runs, therefore it is not removed in the meantime.
+     * @param key The key
+     * @param deflater The deflater creating the content if the entry is not cached
+     * @param handler The handler using the content, for example by {@link #copy(File, File) copying} it
+     * @return {@code true} if the entry has been cached before
+     * @throws IOException If the entry can't be added or the handler fails
+     * @throws MojoExecutionException If deflating fails
+     */
+    public boolean use(final String key, final Deflater deflater, final ContentHandler handler)
+            throws IOException, MojoExecutionException {
+        return this.withLock(key, true, () -> {
+            File content = this.get(key);
+            final boolean cached = content != null;
+            if (!cached) {
+                content = this.create(key, deflater);
+            }
+            handler.handle(content);
+            return cached;
+        });
+    }
+
+    private File getLockFile(final String key) {
+        return new File(new File(this.directory, LOCKS), key);
+    }
+
+    /**
+     * Run an action while holding the lock of an entry
+     * @param key The key of the entry
+     * @param wait Whether to wait for the lock
+     * @param action The action
+     * @return The result of the action or {@code null} if the lock is not available without waiting
+     */
+    private <T> T withLock(final String key, final boolean wait, final LockedAction<T> action)
+            throws IOException, MojoExecutionException {
+        final File lockFile = this.getLockFile(key);
+        // file locks are held per process, therefore lock the threads of this process first
+        final ReentrantLock processLock =
+                LOCKS_IN_PROCESS.computeIfAbsent(lockFile.getAbsolutePath(), k -> new ReentrantLock());
+        if (wait) {
+            processLock.lock();
+        } else if (!processLock.tryLock()) {
+            return null;
+        }
+        try {
+            while (true) {
+                lockFile.getParentFile().mkdirs();
+                try (final FileChannel channel =
+                        FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    try (final FileLock lock = wait ? channel.lock() : channel.tryLock()) {
+                        if (lock == null) {
+                            return null;
+                        }
+                        // the lock file is removed when the entry is evicted, then lock the new one
+                        if (lockFile.exists()) {
+                            return action.run();
+                        }
+                    }
+                }
+            }
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    private File create(final String key, final Deflater deflater) throws IOException, MojoExecutionException {
+        final Path tmp = Files.createTempDirectory(this.directory.toPath(), TMP_PREFIX);
+        try {
+            final File content = new File(tmp.toFile(), CONTENT);
+            content.mkdirs();
+            deflater.deflate(content);
+            final long size = FileUtils.sizeOfDirectory(content);
+            Files.write(tmp.resolve(SIZE), String.valueOf(size).getBytes(StandardCharsets.UTF_8));
+
+            final File entry = new File(this.directory, key);
+            try {
+                Files.move(tmp, entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException e) {
+                if (!new File(entry, CONTENT).isDirectory()) {
+                    throw e;
+                }
+                log.debug("Cache entry " + key + " has been added concurrently");
+            }
+            return new File(entry, CONTENT);
+        } finally {
+            if (Files.exists(tmp)) {
+                FileUtils.deleteQuietly(tmp.toFile());
+            }
+        }
+    }
+
+    /**
+     * Store additional information for an entry. This method must be called from
+     * within the {@link Deflater}.
+     * @param content The directory passed to the deflater
+     * @param name The name of the information
+     * @param lines The information
+     * @throws IOException If writing fails
+     */
+    public void writeInfo(final File content, final String name, final Collection<String> lines) throws IOException {
+        Files.write(
+                new File(content.getParentFile(), INFO_PREFIX.concat(name)).toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read additional information for an entry
+     * @param content The cached content
+     * @param name The name of the information
+     * @return The information or {@code null} if not available
+     * @throws IOException If reading fails
+     */
+    public List<String> readInfo(final File content, final String name) throws IOException {
+        final File f = new File(content.getParentFile(), INFO_PREFIX.concat(name));
+        if (!f.exists()) {
+            return null;
+        }
+        return Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copy the content of a cached entry into a directory. Files are hard linked if
+     * possible and copied otherwise. Existing files in the target are not overwritten.
+     * Files which might be modified later on must therefore be replaced, not rewritten.
+     * @param content The cached content
+     * @param target The target directory
+     * @throws IOException If copying fails
+     */
+    public void copy(final File content, final File target) throws IOException {
+        final Path sourcePath = content.toPath();
+        final Path targetPath = target.toPath();
+        Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
+
+            private boolean link = true;
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+                    throws IOException {
+                Files.createDirectories(targetPath.resolve(sourcePath.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                final Path targetFile = targetPath.resolve(sourcePath.relativize(file));
+                if (!Files.exists(targetFile)) {
+                    if (link) {
+                        try {
+                            Files.createLink(targetFile, file);
+                        } catch (final IOException | UnsupportedOperationException e) {
+                            // different file system or not supported
+                            link = false;
+                        }
+                    }
+                    if (!link) {
+                        Files.copy(file, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Remove the least recently used entries until the cache fits into the maximum size.
+     * As all entries are listed, this should be called once per build and not for every
+     * added entry. Entries currently used by other threads or builds are kept.
+     */
+    public void evict() {
+        final File[] files = this.directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final List<File> entries = new ArrayList<>();
+        long totalSize = 0;
+        for (final File f : files) {
+            if (f.getName().startsWith(TMP_PREFIX)) {
+                if (f.lastModified() < System.currentTimeMillis() - TMP_MAX_AGE) {
+                    FileUtils.deleteQuietly(f);
+                }
+            } else if (f.isDirectory() && !f.getName().equals(LOCKS)) {
+                entries.add(f);
+                totalSize += getSize(f);
+            }
+        }
+        if (totalSize > this.maxSize) {
+            entries.sort(Comparator.comparingLong(File::lastModified));
+            for (final File entry : entries) {
+                if (totalSize <= this.maxSize) {
+                    break;
+                }
+                final long size = getSize(entry);
+                if (this.remove(entry.getName())) {
+                    totalSize -= size;
+                }
+            }
+        }
+        this.removeUnusedLockFiles();
+    }
+
+    /**
+     * Remove an entry and its lock file, unless it is in use
+     * @return {@code true} if the entry has been removed
+     */
+    private boolean remove(final String key) {
+        final File entry = new File(this.directory, key);
+        try {
+            final Boolean removed = this.withLock(key, false, () -> {
+                // rename first, so concurrent builds do not use a partially removed entry
+                final File removedEntry = new File(this.directory, TMP_PREFIX + UUID.randomUUID());
+                if (!entry.renameTo(removedEntry)) {
+                    return false;
+                }
+                log.debug("Removing cache entry " + key);
+                FileUtils.deleteQuietly(removedEntry);
+                FileUtils.deleteQuietly(this.getLockFile(key));
+                return true;
+            });
+            return Boolean.TRUE.equals(removed);
+        } catch (final IOException | MojoExecutionException e) {
+            log.debug("Unable to remove cache entry " + key + " : " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remove the lock files of entries which do not exist, unless they are in use
+     */
+    private void removeUnusedLockFiles() {
+        final String[] names = new File(this.directory, LOCKS).list();
+        if (names == null) {
+            return;
+        }
+        for (final String key : names) {
+            if (!new File(this.directory, key).exists()) {
+                try {
+                    this.withLock(key, false, () -> {
+                        if (!new File(this.directory, key).exists()) {
+                            FileUtils.deleteQuietly(this.getLockFile(key));
+                        }
+                        return null;
+                    });
+                } catch (final IOException | MojoExecutionException e) {
+                    log.debug("Unable to remove lock file for " + key + " : " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private long getSize(final File entry) {
+        try {
+            return Long.parseLong(
+                    new String(Files.readAllBytes(new File(entry, SIZE).toPath()), StandardCharsets.UTF_8).trim());
+        } catch (final IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+}
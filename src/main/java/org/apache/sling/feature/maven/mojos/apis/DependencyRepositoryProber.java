@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Checks whether artifacts are available in dependency repositories. HTTP
+ * repositories are probed with HEAD requests, several requests are sent
+ * concurrently. The results are cached per location and can optionally be
+ * persisted to a file. Persisted results expire after a configurable time.
+ * Failed requests, for example because of server errors, are not cached.
+ * <p>
+ * The requests are sent by daemon threads which terminate once they are idle,
+ * therefore a prober does not need to be closed and can be shared between builds
+ * using the same configuration.
+ */
+public class DependencyRepositoryProber {
+
+    private static final int TIMEOUT = 30000;
+
+    private static final String FOUND = "found";
+
+    private static final String MISSING = "missing";
+
+    /**
+     * The result of a probe
+     */
+    private static final class Result {
+
+        final boolean found;
+
+        /** Results which might change with the next request, like server errors, are not persisted. */
+        final boolean persistable;
+
+        final long timestamp;
+
+        Result(final boolean found, final boolean persistable, final long timestamp) {
+            this.found = found;
+            this.persistable = persistable;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final Map<String, Result> results = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<Boolean>> probes = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor;
+
+    private final File persistenceFile;
+
+    private final long timeToLive;
+
+    /**
+     * Create a new prober
+     * @param threads The maximum number of concurrent requests
+     * @param persistenceFile The file to persist the results to, might be {@code null}
+     * @param timeToLive The time in milliseconds persisted results are valid
+     */
+    public DependencyRepositoryProber(final int threads, final File persistenceFile, final long timeToLive) {
+        if (threads > 1) {
+            this.executor = new ThreadPoolExecutor(
+                    threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        final Thread thread = new Thread(runnable, "apis-jar-repository-probe");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+        } else {
+            this.executor = null;
+        }
+        this.persistenceFile = persistenceFile;
+        this.timeToLive = timeToLive;
+        if (persistenceFile != null && persistenceFile.exists()) {
+            this.load();
+        }
+    }
+
+    /**
+     * Check whether all artifacts are available in at least one of the repositories. The
+     * repositories are asked in the given order, all artifacts missing in a repository
+     * are probed at the same time.
+     * @param log The logger
+     * @param repositories The repository URLs, each ending with a slash
+     * @param paths The paths of the artifacts within a repository
+     * @return {@code true} if all artifacts are found
+     * @throws MojoExecutionException If a repository URL is invalid
+     */
+    public boolean exists(final Log log, final Collection<String> repositories, final Collection<String> paths)
+            throws MojoExecutionException {
+        final Set<String> missing = new LinkedHashSet<>(paths);
+        for (final String repository : repositories) {
+            if (missing.isEmpty()) {
+                break;
+            }
+            try {
+                new URL(repository);
+            } catch (final MalformedURLException mue) {
+                throw new MojoExecutionException("Unable to find dependency on ".concat(repository), mue);
+            }
+            final Map<String, CompletableFuture<Boolean>> running = new LinkedHashMap<>();
+            for (final String path : missing) {
+                running.put(path, this.probe(log, repository.concat(path)));
+            }
+            for (final Map.Entry<String, CompletableFuture<Boolean>> entry : running.entrySet()) {
+                final String location = repository.concat(entry.getKey());
+                if (entry.getValue().join()) {
+                    log.debug("Found ".concat(location));
+                    missing.remove(entry.getKey());
+                } else {
+                    log.debug("Missed ".concat(location));
+                }
+            }
+        }
+        return missing.isEmpty();
+    }
+
+    private CompletableFuture<Boolean> probe(final Log log, final String location) {
+        final Result cached = this.results.get(location);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.found);
+        }
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        final CompletableFuture<Boolean> existing = this.probes.putIfAbsent(location, future);
+        if (existing != null) {
+            return existing;
+        }
+        final Runnable task = () -> {
+            try {
+                final Result result = request(log, location);
+                // results which might change, like server errors, are probed again on the next request
+                if (result.persistable) {
+                    this.results.put(location, result);
+                }
+                this.probes.remove(location, future);
+                future.complete(result.found);
+            } catch (final RuntimeException e) {
+                this.probes.remove(location, future);
+                future.completeExceptionally(e);
+            }
+        };
+        if (this.executor != null) {
+            this.executor.execute(task);
+        } else {
+            task.run();
+        }
+        return future;
+    }
+
+    private static Result request(final Log log, final String location) {
+        final long now = System.currentTimeMillis();
+        try {
+            final URLConnection connection = new URL(location).openConnection();
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            if (connection instanceof HttpURLConnection) {
+                final HttpURLConnection http = (HttpURLConnection) connection;
+                http.setRequestMethod("HEAD");
+                final int status = http.getResponseCode();
+                // consume the (empty) response to keep the connection alive
+                try (final InputStream in = status < 400 ? http.getInputStream() : http.getErrorStream()) {
+                    // nothing to read
+                }
+                if (status >= 200 && status < 300) {
+                    return new Result(true, true, now);
+                }
+                if (status == 404 || status == 410) {
+                    return new Result(false, true, now);
+                }
+                log.debug("Unexpected status " + status + " for " + location);
+                return new Result(false, false, now);
+            }
+            connection.getInputStream().close();
+            return new Result(true, true, now);
+        } catch (final FileNotFoundException e) {
+            return new Result(false, true, now);
+        } catch (final IOException e) {
+            // not available
+            log.debug("Unable to access ".concat(location).concat(" : ").concat(e.toString()));
+            return new Result(false, false, now);
+        }
+    }
+
+    private void load() {
+        final Properties props = new Properties();
+        try (final InputStream in = Files.newInputStream(this.persistenceFile.toPath())) {
+            props.load(in);
+        } catch (final IOException | IllegalArgumentException e) {
+            // ignore unreadable file, it is overwritten when the results are saved
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        for (final String location : props.stringPropertyNames()) {
+            final String[] value = props.getProperty(location).split(":");
+            if (value.length == 2) {
+                try {
+                    final long timestamp = Long.parseLong(value[1]);
+                    if (timestamp + this.timeToLive > now) {
+                        this.results.put(location, new Result(FOUND.equals(value[0]), true, timestamp));
+                    }
+                } catch (final NumberFormatException nfe) {
+                    // ignore invalid entry
+                }
+            }
+        }
+    }
+
+    /**
+     * Persist the results, if a persistence file is configured
+     * @throws IOException If writing fails
+     */
+    public synchronized void save() throws IOException {
+        if (this.persistenceFile == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final Properties props = new Properties();
+        for (final Map.Entry<String, Result> entry : this.results.entrySet()) {
+            final Result result = entry.getValue();
+            if (result.persistable && result.timestamp + this.timeToLive > now) {
+                props.setProperty(
+                        entry.getKey(), (result.found ? FOUND : MISSING) + ':' + result.timestamp);
+            }
+        }
+        this.persistenceFile.getParentFile().mkdirs();
+        final File tmp = new File(this.persistenceFile.getParentFile(), this.persistenceFile.getName() + ".tmp");
+        try (final OutputStream out = Files.newOutputStream(tmp.toPath())) {
+            props.store(out, null);
+        }
+        Files.move(tmp.toPath(), this.persistenceFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -30,8 +30,20 @@ public class DirectorySource implements Source {
 
     private final DefaultFileSet fileSet;
 
+    private final List<File> files;
+
     public DirectorySource(final DefaultFileSet set) {
+        this(set, null);
+    }
+
+    /**
+     * Create a source for a file set where the included files are already known
+     * @param set The file set
+     * @param files The included files, if {@code null} the directory is scanned
+     */
+    public DirectorySource(final DefaultFileSet set, final List<File> files) {
         this.fileSet = set;
+        this.files = files;
     }
 
     @Override
@@ -41,6 +53,9 @@ public class DirectorySource implements Source {
 
     @Override
     public List<File> getFiles() {
+        if (this.files != null) {
+            return this.files;
+        }
         final DirectoryScanner ds = new DirectoryScanner();
         ds.setBasedir(this.fileSet.getDirectory());
         final String[] inc = this.fileSet.getIncludes();
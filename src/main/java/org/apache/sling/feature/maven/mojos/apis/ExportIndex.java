@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.feature.extension.apiregions.api.ApiExport;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegion;
+import org.apache.sling.feature.extension.apiregions.api.ApiRegions;
+
+/**
+ * Immutable index of the exports of a set of api regions. For each package, the
+ * index provides the regions exporting the package together with the exports.
+ * The regions must not be changed once the index is created.
+ */
+public class ExportIndex {
+
+    /**
+     * The exports of a single package
+     */
+    public static final class Entry {
+
+        private final BitSet regions = new BitSet();
+
+        private final ApiExport[] exports;
+
+        private final ApiExport[] allExports;
+
+        Entry(final int size) {
+            this.exports = new ApiExport[size];
+            this.allExports = new ApiExport[size];
+        }
+
+        /**
+         * Get the next region directly exporting the package
+         * @param from The position to start from
+         * @return The position of the region or {@code -1}
+         */
+        public int nextRegion(final int from) {
+            return regions.nextSetBit(from);
+        }
+
+        /**
+         * Get the export of the first region directly exporting the package
+         * @return The export or {@code null}
+         */
+        public ApiExport getFirstExport() {
+            final int index = regions.nextSetBit(0);
+            return index == -1 ? null : exports[index];
+        }
+    }
+
+    private final List<ApiRegion> regions;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Create the index
+     * @param apiRegions The api regions
+     */
+    public ExportIndex(final ApiRegions apiRegions) {
+        this.regions = apiRegions.listRegions();
+        for (int i = 0; i < this.regions.size(); i++) {
+            final ApiRegion region = this.regions.get(i);
+            for (final ApiExport exp : region.listExports()) {
+                final Entry entry = this.getOrCreateEntry(exp.getName());
+                if (entry.exports[i] == null) {
+                    entry.regions.set(i);
+                    entry.exports[i] = exp;
+                }
+            }
+            for (final ApiExport exp : region.listAllExports()) {
+                final Entry entry = this.getOrCreateEntry(exp.getName());
+                if (entry.allExports[i] == null) {
+                    entry.allExports[i] = exp;
+                }
+            }
+        }
+    }
+
+    private Entry getOrCreateEntry(final String name) {
+        return this.entries.computeIfAbsent(name, key -> new Entry(this.regions.size()));
+    }
+
+    /**
+     * Get the entry for a package
+     * @param packageName The package name
+     * @return The entry or {@code null} if no region exports the package
+     */
+    public Entry get(final String packageName) {
+        return this.entries.get(packageName);
+    }
+
+    /**
+     * Get the position of a region in the index
+     * @param region The region
+     * @return The position or {@code -1} if the region is not part of the index
+     */
+    public int indexOf(final ApiRegion region) {
+        for (int i = 0; i < this.regions.size(); i++) {
+            if (this.regions.get(i) == region) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the export of a package in a region, like {@link ApiRegion#getExportByName(String)}
+     * @param index The position of the region
+     * @param packageName The package name
+     * @return The export or {@code null}
+     */
+    public ApiExport getExport(final int index, final String packageName) {
+        final Entry entry = this.entries.get(packageName);
+        return entry == null ? null : entry.exports[index];
+    }
+
+    /**
+     * Get the export of a package in a region or its parents, like {@link ApiRegion#getAllExportByName(String)}
+     * @param index The position of the region
+     * @param packageName The package name
+     * @return The export or {@code null}
+     */
+    public ApiExport getAllExport(final int index, final String packageName) {
+        final Entry entry = this.entries.get(packageName);
+        return entry == null ? null : entry.allExports[index];
+    }
+}
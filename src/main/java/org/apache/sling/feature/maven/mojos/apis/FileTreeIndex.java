@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.codehaus.plexus.util.AbstractScanner;
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Index of a directory tree containing java packages, like a deflated bundle
+ * or a sources directory. The tree is walked once: empty directories are removed,
+ * the files are recorded per package and an optional handler is called for each file.
+ * Later steps use the index instead of scanning the directory again.
+ */
+public class FileTreeIndex {
+
+    /**
+     * Handler called for each file while the tree is walked
+     */
+    @FunctionalInterface
+    public interface FileHandler {
+
+        /**
+         * Handle a file
+         * @param file The file
+         * @param name The relative path of the file, using slashes
+         * @throws IOException If handling fails
+         */
+        void handle(Path file, String name) throws IOException;
+    }
+
+    private final File directory;
+
+    /** The relative paths of the files per package, a package is a directory which is not empty */
+    private final Map<String, List<String>> packages = new TreeMap<>();
+
+    private FileTreeIndex(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Walk a directory tree and create the index. Empty directories below the
+     * root directory are removed.
+     * @param directory The root directory
+     * @param handler Optional handler called for each file
+     * @return The index
+     * @throws IOException If walking the tree fails
+     */
+    public static FileTreeIndex build(final File directory, final FileHandler handler) throws IOException {
+        final FileTreeIndex index = new FileTreeIndex(directory);
+        final Path root = directory.toPath();
+        // number of remaining entries for each directory currently visited
+        final Deque<int[]> counts = new ArrayDeque<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                counts.push(new int[1]);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                counts.peek()[0]++;
+                final String name = getName(root, file);
+                final int lastSlash = name.lastIndexOf('/');
+                final String pck = lastSlash == -1 ? "" : name.substring(0, lastSlash).replace('/', '.');
+                index.packages.computeIfAbsent(pck, key -> new ArrayList<>()).add(name);
+                if (handler != null) {
+                    handler.handle(file, name);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                final int count = counts.pop()[0];
+                if (!dir.equals(root)) {
+                    if (count == 0) {
+                        // empty dir -> remove
+                        Files.deleteIfExists(dir);
+                    } else {
+                        counts.peek()[0]++;
+                        index.packages.computeIfAbsent(
+                                getName(root, dir).replace('/', '.'), key -> new ArrayList<>());
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return index;
+    }
+
+    private static String getName(final Path root, final Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * The root directory of the index
+     * @return The directory
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Get all packages, these are all directories below the root directory which are not empty
+     * @return The set of package names
+     */
+    public Set<String> getPackages() {
+        final Set<String> result = new TreeSet<>(this.packages.keySet());
+        result.remove("");
+        return result;
+    }
+
+    /**
+     * Check whether a package directly contains a file with the extension
+     * @param pck The package
+     * @param extension The file extension including the dot
+     * @return {@code true} if such a file exists
+     */
+    public boolean hasFile(final String pck, final String extension) {
+        for (final String name : this.packages.getOrDefault(pck, Collections.emptyList())) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the files directly contained in the packages. Files matching the
+     * default excludes, like SCM metadata, are not returned.
+     * @param pcks The packages
+     * @return The list of files
+     */
+    public List<File> getFiles(final Collection<String> pcks) {
+        final List<File> result = new ArrayList<>();
+        for (final String pck : pcks) {
+            for (final String name : this.packages.getOrDefault(pck, Collections.emptyList())) {
+                if (!isDefaultExcluded(name)) {
+                    result.add(new File(this.directory, name));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isDefaultExcluded(final String name) {
+        for (final String pattern : AbstractScanner.DEFAULTEXCLUDES) {
+            if (SelectorUtils.matchPath(pattern, name, "/", true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
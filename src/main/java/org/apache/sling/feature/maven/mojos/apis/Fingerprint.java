@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.sling.feature.maven.Digests;
+
+/**
+ * A fingerprint of the input for generating some output. The values added to
+ * the fingerprint are hashed, the order of adding values is significant.
+ */
+public class Fingerprint {
+
+    private final MessageDigest digest = Digests.sha256();
+
+    /**
+     * Add a value
+     * @param name The name of the value
+     * @param value The value, might be {@code null}
+     * @return This fingerprint
+     */
+    public Fingerprint add(final String name, final Object value) {
+        this.digest.update(name.getBytes(StandardCharsets.UTF_8));
+        this.digest.update((byte) 0);
+        this.digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        this.digest.update((byte) '\n');
+        return this;
+    }
+
+    /**
+     * Get the value of the fingerprint. No more values can be added afterwards.
+     * @return The value as a hex string
+     */
+    public String getValue() {
+        return Digests.toHex(this.digest.digest());
+    }
+
+    /**
+     * Add a file. The file is represented by its path, length and last modification
+     * time, the contents are not read.
+     * @param name The name of the value
+     * @param file The file, might be {@code null}
+     * @return This fingerprint
+     */
+    public Fingerprint addFile(final String name, final File file) {
+        if (file == null) {
+            return this.add(name, null);
+        }
+        return this.add(name, file.getAbsolutePath() + ':' + file.length() + ':' + file.lastModified());
+    }
+
+    /**
+     * Add the contents of a file or directory. For a directory, the relative paths and
+     * contents of all files within the directory tree are added.
+     * @param name The name of the value
+     * @param file The file or directory, might be {@code null}
+     * @return This fingerprint
+     * @throws IOException If reading fails
+     */
+    public Fingerprint addContents(final String name, final File file) throws IOException {
+        if (file == null || !file.exists()) {
+            return this.add(name, null);
+        }
+        this.add(name, file.getAbsolutePath());
+        final Path root = file.toPath();
+        final List<Path> files;
+        try (final Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        final byte[] buffer = new byte[8192];
+        for (final Path p : files) {
+            this.add("path", root.relativize(p).toString().replace(File.separatorChar, '/'));
+            try (final InputStream in = Files.newInputStream(p)) {
+                int l;
+                while ((l = in.read(buffer)) > 0) {
+                    this.digest.update(buffer, 0, l);
+                }
+            }
+            this.digest.update((byte) '\n');
+        }
+        return this;
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.sling.feature.maven.Digests;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Retrieves sources from git repositories. For each repository, a bare mirror is kept
+ * in the cache directory and shared between bundles and builds. Only the single commit
+ * of a tag is fetched, and only the java sources of the module with the requested
+ * artifact id are extracted. The path of the sources within a tag is remembered, so the
+ * poms of a repository are only searched once per tag and artifact id.
+ * <p>
+ * The cache directory might be shared by several processes, the mirrors are locked
+ * while they are updated. The git executable must be available on the path.
+ */
+public class GitSourceCache {
+
+    private static final String PREFIX = "scm:git:";
+
+    private static final String MODULES_FILE = "module-paths.properties";
+
+    private static final String LOCKS = ".locks";
+
+    private static final String TMP_PREFIX = ".tmp-";
+
+    private static final String[] SOURCE_DIRS = {"src/main/java/", "src/java/"};
+
+    private static final String NULL_FILE = File.separatorChar == '\\' ? "NUL" : "/dev/null";
+
+    private static final Map<String, Object> LOCK_OBJECTS = new ConcurrentHashMap<>();
+
+    private final File directory;
+
+    private final Log log;
+
+    /**
+     * Create a new cache
+     * @param directory The cache directory
+     * @param log The logger
+     */
+    public GitSourceCache(final File directory, final Log log) {
+        this.directory = directory;
+        this.log = log;
+    }
+
+    /**
+     * Check whether the connection is a git connection
+     * @param connection The SCM connection
+     * @return {@code true} if git is used
+     */
+    public static boolean isGit(final String connection) {
+        return connection != null && connection.startsWith(PREFIX);
+    }
+
+    /**
+     * Extract the java sources of a module
+     * @param connection The SCM connection, starting with {@code scm:git:}
+     * @param tag The tag, {@code null} for the default branch
+     * @param artifactId The artifact id of the module
+     * @param target The directory to extract the sources to
+     * @return The directory containing the java sources or {@code null} if the module has no java sources
+     * @throws IOException If retrieving the sources fails
+     */
+    public File getSources(final String connection, final String tag, final String artifactId, final File target)
+            throws IOException {
+        final String url = connection.substring(PREFIX.length());
+        final File mirror = new File(this.directory, Digests.sha256Hex(url).concat(".git"));
+        final String sourcePath;
+        final String commit;
+        // the directory might be shared by several processes, file locks are held per
+        // process, therefore synchronize the threads of this process first
+        final File lockFile = new File(new File(this.directory, LOCKS), mirror.getName());
+        synchronized (LOCK_OBJECTS.computeIfAbsent(lockFile.getAbsolutePath(), key -> new Object())) {
+            lockFile.getParentFile().mkdirs();
+            try (final FileChannel channel =
+                            FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    final FileLock lock = channel.lock()) {
+                this.removeStaleFiles(mirror);
+                commit = this.fetch(mirror, url, tag);
+                sourcePath = this.getSourcePath(mirror, commit, tag, artifactId);
+            }
+        }
+        if (sourcePath == null) {
+            return null;
+        }
+        final File sources = new File(target, sourcePath);
+        if (!sources.exists()) {
+            this.extract(mirror, commit, sourcePath, target);
+        }
+        return sources;
+    }
+
+    /**
+     * Remove the temporary files of a mirror left behind by crashed runs. As the mirror
+     * is locked, no other process is using them.
+     */
+    private void removeStaleFiles(final File mirror) throws IOException {
+        final String prefix = TMP_PREFIX.concat(mirror.getName());
+        final File[] files = this.directory.listFiles((dir, name) -> name.startsWith(prefix));
+        if (files != null) {
+            for (final File file : files) {
+                this.log.debug("Removing stale " + file);
+                org.apache.commons.io.FileUtils.forceDelete(file);
+            }
+        }
+        final File[] mirrorFiles = mirror.listFiles((dir, name) -> name.startsWith(TMP_PREFIX));
+        if (mirrorFiles != null) {
+            for (final File file : mirrorFiles) {
+                this.log.debug("Removing stale " + file);
+                org.apache.commons.io.FileUtils.forceDelete(file);
+            }
+        }
+    }
+
+    /**
+     * Fetch the commit of the tag into the mirror
+     * @return The commit id
+     */
+    private String fetch(final File mirror, final String url, final String tag) throws IOException {
+        if (!mirror.exists()) {
+            this.log.debug("Creating git mirror " + mirror + " for " + url);
+            final File tmp = Files.createTempDirectory(this.directory.toPath(), TMP_PREFIX.concat(mirror.getName())).toFile();
+            git(tmp, "init", "--bare", "--quiet");
+            Files.move(tmp.toPath(), mirror.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        if (tag != null) {
+            final String ref = "refs/tags/".concat(tag);
+            final String existing = gitOptional(mirror, "rev-parse", "--verify", "--quiet", ref + "^{commit}");
+            if (existing != null) {
+                this.log.debug("Using tag " + tag + " from git mirror " + mirror);
+                return existing;
+            }
+            this.log.info("Fetching tag " + tag + " from " + url);
+            git(mirror, "fetch", "--quiet", "--depth", "1", url, "+" + ref + ":" + ref);
+            return git(mirror, "rev-parse", "--verify", ref + "^{commit}");
+        }
+        // no tag: always fetch the current head
+        this.log.info("Fetching HEAD from " + url);
+        git(mirror, "fetch", "--quiet", "--depth", "1", url, "HEAD");
+        return git(mirror, "rev-parse", "--verify", "FETCH_HEAD^{commit}");
+    }
+
+    /**
+     * Get the path of the java sources of the module within the repository. The path is
+     * cached per tag, or commit if no tag is used, and artifact id.
+     * @return The path, ending with a slash, or {@code null}
+     */
+    private String getSourcePath(final File mirror, final String commit, final String tag, final String artifactId)
+            throws IOException {
+        final String key = (tag != null ? tag : commit).concat(":").concat(artifactId);
+        final File modulesFile = new File(mirror, MODULES_FILE);
+        final Properties modules = new Properties();
+        if (modulesFile.exists()) {
+            try (final InputStream in = Files.newInputStream(modulesFile.toPath())) {
+                modules.load(in);
+            }
+        }
+        String sourcePath = modules.getProperty(key);
+        if (sourcePath != null) {
+            this.log.debug("Using cached source path '" + sourcePath + "' for " + artifactId);
+        } else {
+            final List<String> files =
+                    Arrays.asList(git(mirror, "ls-tree", "-r", "--name-only", commit).split("\n"));
+            final String modulePath = findModule(mirror, commit, artifactId, files);
+            sourcePath = "";
+            for (final String dir : SOURCE_DIRS) {
+                final String path = modulePath.concat(dir);
+                if (files.stream().anyMatch(name -> name.startsWith(path))) {
+                    sourcePath = path;
+                    break;
+                }
+            }
+            modules.setProperty(key, sourcePath);
+            final File tmp = File.createTempFile(TMP_PREFIX, ".properties", mirror);
+            try (final OutputStream out = Files.newOutputStream(tmp.toPath())) {
+                modules.store(out, null);
+            }
+            Files.move(tmp.toPath(), modulesFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return sourcePath.isEmpty() ? null : sourcePath;
+    }
+
+    /**
+     * Find the module with the artifact id. Poms closer to the root are checked first.
+     * If no module matches, the root of the repository is used.
+     * @return The module path, either empty or ending with a slash
+     */
+    private String findModule(final File mirror, final String commit, final String artifactId, final List<String> files)
+            throws IOException {
+        final List<String> poms = new ArrayList<>();
+        for (final String name : files) {
+            if (name.equals("pom.xml") || name.endsWith("/pom.xml")) {
+                poms.add(name);
+            }
+        }
+        poms.sort(Comparator.comparingInt((String name) -> name.split("/").length)
+                .thenComparing(Comparator.naturalOrder()));
+        final MavenXpp3Reader reader = new MavenXpp3Reader();
+        for (final String pom : poms) {
+            final byte[] content = gitBytes(mirror, "cat-file", "blob", commit + ":" + pom);
+            try {
+                final Model model = reader.read(new ByteArrayInputStream(content), false);
+                if (artifactId.equals(model.getArtifactId())) {
+                    return pom.substring(0, pom.length() - "pom.xml".length());
+                }
+            } catch (final XmlPullParserException e) {
+                this.log.debug("Ignoring invalid pom " + pom + " : " + e.getMessage());
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Extract a path of a commit into the target directory
+     */
+    private void extract(final File mirror, final String commit, final String path, final File target)
+            throws IOException {
+        this.log.debug("Extracting " + path + " from git mirror " + mirror);
+        // extract into a temporary directory first to never leave partial sources
+        final File parent = target.getParentFile();
+        parent.mkdirs();
+        final File tmp = Files.createTempDirectory(parent.toPath(), TMP_PREFIX.concat(target.getName())).toFile();
+        final Path root = tmp.toPath().toAbsolutePath().normalize();
+        try {
+            execute(
+                    mirror,
+                    in -> {
+                        try (final TarArchiveInputStream tar = new TarArchiveInputStream(in)) {
+                            TarArchiveEntry entry;
+                            while ((entry = tar.getNextEntry()) != null) {
+                                final Path file = root.resolve(entry.getName()).normalize();
+                                if (!file.startsWith(root)) {
+                                    throw new IOException("Invalid entry in archive: " + entry.getName());
+                                }
+                                if (entry.isDirectory()) {
+                                    Files.createDirectories(file);
+                                } else if (entry.isFile()) {
+                                    Files.createDirectories(file.getParent());
+                                    Files.copy(tar, file, StandardCopyOption.REPLACE_EXISTING);
+                                }
+                            }
+                        }
+                    },
+                    "archive",
+                    "--format=tar",
+                    commit,
+                    path);
+        } catch (final IOException | RuntimeException e) {
+            org.apache.commons.io.FileUtils.deleteDirectory(tmp);
+            throw e;
+        }
+        org.apache.commons.io.FileUtils.deleteDirectory(target);
+        try {
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            // another process might have extracted the same sources in the meantime
+            org.apache.commons.io.FileUtils.deleteDirectory(tmp);
+            if (!target.exists()) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Handler for the output of a git command
+     */
+    @FunctionalInterface
+    private interface OutputHandler {
+        void handle(InputStream in) throws IOException;
+    }
+
+    private static String git(final File dir, final String... args) throws IOException {
+        return new String(gitBytes(dir, args), StandardCharsets.UTF_8).trim();
+    }
+
+    private static String gitOptional(final File dir, final String... args) throws IOException {
+        try {
+            return git(dir, args);
+        } catch (final GitException e) {
+            return null;
+        }
+    }
+
+    private static byte[] gitBytes(final File dir, final String... args) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        execute(dir, in -> IOUtils.copy(in, out), args);
+        return out.toByteArray();
+    }
+
+    private static void execute(final File dir, final OutputHandler handler, final String... args)
+            throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        // errors are written to a file to avoid blocking on a full pipe
+        final File errors = File.createTempFile("git", ".err");
+        try {
+            final ProcessBuilder builder = new ProcessBuilder(command)
+                    .directory(dir)
+                    .redirectError(errors)
+                    .redirectInput(ProcessBuilder.Redirect.from(new File(NULL_FILE)));
+            builder.environment().put("GIT_TERMINAL_PROMPT", "0");
+            final Process process = builder.start();
+            try (final InputStream in = process.getInputStream()) {
+                handler.handle(in);
+            } catch (final IOException | RuntimeException e) {
+                // nobody reads the output anymore, git might block on a full pipe
+                process.destroy();
+                try {
+                    final int exitValue = waitFor(process, args[0]);
+                    if (exitValue != 0) {
+                        e.addSuppressed(failure(args[0], exitValue, errors));
+                    }
+                } catch (final IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            final int exitValue = waitFor(process, args[0]);
+            if (exitValue != 0) {
+                throw failure(args[0], exitValue, errors);
+            }
+        } finally {
+            errors.delete();
+        }
+    }
+
+    private static GitException failure(final String command, final int exitValue, final File errors)
+            throws IOException {
+        return new GitException("git " + command + " failed with exit code " + exitValue + " : "
+                + new String(Files.readAllBytes(errors.toPath()), StandardCharsets.UTF_8).trim());
+    }
+
+    private static int waitFor(final Process process, final String command) throws IOException {
+        try {
+            return process.waitFor();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("Interrupted while waiting for git " + command, e);
+        }
+    }
+
+    /**
+     * A failed git command
+     */
+    private static final class GitException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        GitException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Appends entries from other archives to a jar without deflating them to disk.
+ * The compressed data of the entries is copied as is. The directory entries added
+ * for the copied entries get the configured time, or the time of the entry they are
+ * added for, therefore the same input always results in the same jar.
+ */
+public class JarEntryCopier {
+
+    private final File target;
+
+    private final List<File> archives = new ArrayList<>();
+
+    private final List<String[]> includes = new ArrayList<>();
+
+    private final List<String> copiedNames = new ArrayList<>();
+
+    private FileTime directoryTime;
+
+    /**
+     * Create a new copier
+     * @param target The jar to append the entries to
+     */
+    public JarEntryCopier(final File target) {
+        this.target = target;
+    }
+
+    /**
+     * Set the time of the added directory entries, for example from {@code project.build.outputTimestamp}
+     * @param time The time or {@code null} to use the time of the entry a directory is added for
+     */
+    public void setDirectoryTime(final FileTime time) {
+        this.directoryTime = time;
+    }
+
+    /**
+     * Add an archive
+     * @param archive The archive
+     * @param includes The include patterns for the entries to copy
+     */
+    public void add(final File archive, final String... includes) {
+        this.archives.add(archive);
+        this.includes.add(includes);
+    }
+
+    /**
+     * Copy the entries. The entries of the target come first, followed by the entries
+     * of the archives in the order they were added. If an entry exists more than once,
+     * the first one is used.
+     * @throws IOException If copying fails
+     */
+    public void copy() throws IOException {
+        if (this.archives.isEmpty()) {
+            return;
+        }
+        final File tmp = new File(this.target.getParentFile(), this.target.getName().concat(".tmp"));
+        try {
+            final Set<String> names = new HashSet<>();
+            try (final ZipArchiveOutputStream out = new ZipArchiveOutputStream(tmp)) {
+                try (final ZipFile zipFile = open(this.target)) {
+                    copyEntries(zipFile, out, names, null, null, null);
+                }
+                for (int i = 0; i < this.archives.size(); i++) {
+                    try (final ZipFile zipFile = open(this.archives.get(i))) {
+                        copyEntries(
+                                zipFile, out, names, this.includes.get(i), this.copiedNames, this.directoryTime);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), this.target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Get the names of the entries copied from the archives
+     * @return The list of names
+     */
+    public List<String> getCopiedNames() {
+        return this.copiedNames;
+    }
+
+    private static ZipFile open(final File file) throws IOException {
+        return ZipFile.builder().setFile(file).get();
+    }
+
+    private static void copyEntries(
+            final ZipFile zipFile,
+            final ZipArchiveOutputStream out,
+            final Set<String> names,
+            final String[] includes,
+            final List<String> copied,
+            final FileTime directoryTime)
+            throws IOException {
+        final Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+        while (entries.hasMoreElements()) {
+            final ZipArchiveEntry entry = entries.nextElement();
+            if (includes != null && (entry.isDirectory() || !isIncluded(entry.getName(), includes))) {
+                continue;
+            }
+            if (names.add(entry.getName())) {
+                if (includes != null) {
+                    addParentDirectories(
+                            out,
+                            names,
+                            entry.getName(),
+                            directoryTime != null ? directoryTime.toMillis() : entry.getTime());
+                }
+                out.addRawArchiveEntry(entry, zipFile.getRawInputStream(entry));
+                if (copied != null) {
+                    copied.add(entry.getName());
+                }
+            }
+        }
+    }
+
+    private static void addParentDirectories(
+            final ZipArchiveOutputStream out, final Set<String> names, final String name, final long time)
+            throws IOException {
+        final int lastSlash = name.lastIndexOf('/');
+        if (lastSlash != -1) {
+            final String dirName = name.substring(0, lastSlash + 1);
+            if (names.add(dirName)) {
+                addParentDirectories(out, names, dirName.substring(0, dirName.length() - 1), time);
+                final ZipArchiveEntry dir = new ZipArchiveEntry(dirName);
+                dir.setTime(time);
+                dir.setMethod(ZipArchiveEntry.STORED);
+                dir.setSize(0);
+                dir.setCrc(0);
+                out.putArchiveEntry(dir);
+                out.closeArchiveEntry();
+            }
+        }
+    }
+
+    private static boolean isIncluded(final String name, final String[] includes) {
+        for (final String include : includes) {
+            if (SelectorUtils.matchPath(include, name, "/", true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
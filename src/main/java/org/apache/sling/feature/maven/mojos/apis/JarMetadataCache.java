@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.apache.felix.utils.manifest.Clause;
+import org.apache.felix.utils.manifest.Parser;
+import org.osgi.framework.Constants;
+
+/**
+ * Cache for the metadata of jar files. The metadata is read from the central
+ * directory of the jar, therefore each jar is opened only once.
+ * If a jar file changes, its metadata is read again.
+ */
+public class JarMetadataCache {
+
+    /**
+     * The metadata of a jar file
+     */
+    public static final class JarMetadata {
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final Manifest manifest;
+
+        private final List<String> entryNames;
+
+        private volatile Clause[] exportedPackages;
+
+        private volatile Clause[] providedCapabilities;
+
+        JarMetadata(
+                final long lastModified, final long length, final Manifest manifest, final List<String> entryNames) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.manifest = manifest;
+            this.entryNames = entryNames;
+        }
+
+        /**
+         * Get the manifest
+         * @return The manifest or {@code null}
+         */
+        public Manifest getManifest() {
+            return manifest;
+        }
+
+        /**
+         * Get the names of all entries, except the manifest, in the order of the
+         * central directory. Directory names end with a slash.
+         * @return The list of names
+         */
+        public List<String> getEntryNames() {
+            return entryNames;
+        }
+
+        /**
+         * Get the parsed Export-Package header
+         * @return The clauses, might be empty
+         */
+        public Clause[] getExportedPackages() {
+            Clause[] result = this.exportedPackages;
+            if (result == null) {
+                result = parse(Constants.EXPORT_PACKAGE);
+                this.exportedPackages = result;
+            }
+            return result;
+        }
+
+        /**
+         * Get the parsed Provide-Capability header
+         * @return The clauses, might be empty
+         */
+        public Clause[] getProvidedCapabilities() {
+            Clause[] result = this.providedCapabilities;
+            if (result == null) {
+                result = parse(Constants.PROVIDE_CAPABILITY);
+                this.providedCapabilities = result;
+            }
+            return result;
+        }
+
+        private Clause[] parse(final String header) {
+            final String value = this.manifest == null ? null : this.manifest.getMainAttributes().getValue(header);
+            return Parser.parseHeader(value);
+        }
+    }
+
+    private final Map<File, JarMetadata> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Get the metadata for a jar file
+     * @param file The jar file
+     * @return The metadata
+     * @throws IOException If the file can't be read
+     */
+    public JarMetadata get(final File file) throws IOException {
+        final JarMetadata cached = this.cache.get(file);
+        if (cached != null && cached.lastModified == file.lastModified() && cached.length == file.length()) {
+            return cached;
+        }
+        final JarMetadata metadata = read(file);
+        this.cache.put(file, metadata);
+        return metadata;
+    }
+
+    /**
+     * Read the metadata of a jar file without using or updating the cache.
+     * This is used for files which are read only once, like generated archives.
+     * @param file The jar file
+     * @return The metadata
+     * @throws IOException If the file can't be read
+     */
+    public static JarMetadata read(final File file) throws IOException {
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        try (final JarFile jarFile = new JarFile(file, false)) {
+            final List<String> names = new ArrayList<>();
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final String name = entries.nextElement().getName();
+                if (!JarFile.MANIFEST_NAME.equalsIgnoreCase(name)) {
+                    names.add(name);
+                }
+            }
+            return new JarMetadata(lastModified, length, jarFile.getManifest(), Collections.unmodifiableList(names));
+        }
+    }
+}
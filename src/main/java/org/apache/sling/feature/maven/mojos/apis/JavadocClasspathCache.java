@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.sling.feature.ArtifactId;
+
+/**
+ * Cache for the resolved javadoc classpath of artifacts. The cache is shared
+ * within a Maven session. If several threads ask for the same artifact at the
+ * same time, the classpath is resolved only once.
+ */
+public class JavadocClasspathCache {
+
+    /**
+     * Resolves the classpath of an artifact
+     */
+    @FunctionalInterface
+    public interface Resolver {
+
+        /**
+         * Resolve the classpath
+         * @param artifactId The artifact
+         * @return A map with the artifact ids and the paths of the classpath entries
+         * @throws MojoExecutionException If resolving fails
+         */
+        Map<ArtifactId, String> resolve(ArtifactId artifactId) throws MojoExecutionException;
+    }
+
+    private final Memoizer<ArtifactId, Map<ArtifactId, String>> classpaths =
+            new Memoizer<>(id -> "Unable to resolve javadoc classpath for ".concat(id.toMvnId()));
+
+    /**
+     * Get the cache for a Maven session
+     * @param session The session, might be {@code null}
+     * @return The cache
+     */
+    public static JavadocClasspathCache getCache(final MavenSession session) {
+        return ApisUtil.getSessionValue(session, JavadocClasspathCache.class, JavadocClasspathCache::new);
+    }
+
+    /**
+     * Get the classpath of an artifact, resolve it if it is not cached yet
+     * @param artifactId The artifact
+     * @param resolver The resolver used if the classpath is not cached
+     * @return An unmodifiable map with the artifact ids and the paths of the classpath entries
+     * @throws MojoExecutionException If resolving fails
+     */
+    public Map<ArtifactId, String> get(final ArtifactId artifactId, final Resolver resolver)
+            throws MojoExecutionException {
+        return this.classpaths.get(artifactId, id -> Collections.unmodifiableMap(resolver.resolve(id)));
+    }
+
+    /**
+     * The number of requests answered from the cache
+     * @return The number of hits
+     */
+    public long getHits() {
+        return this.classpaths.getHits();
+    }
+
+    /**
+     * The number of requests which needed resolving
+     * @return The number of misses
+     */
+    public long getMisses() {
+        return this.classpaths.getMisses();
+    }
+}
@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.Collection;
+import java.util.Optional;
+import java.util.spi.ToolProvider;
 
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -87,8 +89,31 @@ public final class JavadocExecutor {
     }
 
     public void execute(File workingDir, Log logger, boolean ignoreErrors) throws MojoExecutionException {
+        this.execute(workingDir, logger, ignoreErrors, false);
+    }
+
+    /**
+     * Execute javadoc
+     * @param workingDir The working directory for a forked process
+     * @param logger The logger receiving the output
+     * @param ignoreErrors Whether errors reported by javadoc are ignored
+     * @param inProcess Whether javadoc should run within the current VM. If the javadoc
+     *                  tool is not available, a process is forked
+     * @throws MojoExecutionException If generation fails
+     */
+    public void execute(File workingDir, Log logger, boolean ignoreErrors, boolean inProcess)
+            throws MojoExecutionException {
         argFileWriter.close();
 
+        if (inProcess) {
+            final Optional<ToolProvider> tool = ToolProvider.findFirst("javadoc");
+            if (tool.isPresent()) {
+                executeInProcess(tool.get(), logger, ignoreErrors);
+                return;
+            }
+            logger.info("Javadoc tool not available in the current VM, forking javadoc process");
+        }
+
         CommandLine javadocCommand = new CommandLine(getJavadocExecutable());
         javadocCommand.addArgument('@' + argFile.getAbsolutePath(), false);
 
@@ -110,6 +135,19 @@ public final class JavadocExecutor {
         }
     }
 
+    private void executeInProcess(final ToolProvider tool, final Log logger, final boolean ignoreErrors)
+            throws MojoExecutionException {
+        logger.info("Executing javadoc tool in process: @" + argFile.getAbsolutePath());
+
+        final int exitValue;
+        try (PrintWriter out = new PrintWriter(new LoggerOutputStream(logger), true)) {
+            exitValue = tool.run(out, out, '@' + argFile.getAbsolutePath());
+        }
+        if (!ignoreErrors && exitValue != 0) {
+            throw new MojoExecutionException("Javadoc generation failed. See log for more details.");
+        }
+    }
+
     /**
      * Try to find javadocExe from System.getProperty( "java.home" ) By default,
      * System.getProperty( "java.home" ) = JRE_HOME and JRE_HOME should be in the
@@ -187,8 +225,10 @@ public final class JavadocExecutor {
 
         @Override
         public void flush() throws IOException {
-            log.info(output);
-            output.setLength(0);
+            if (output.length() > 0) {
+                log.info(output);
+                output.setLength(0);
+            }
         }
 
         @Override
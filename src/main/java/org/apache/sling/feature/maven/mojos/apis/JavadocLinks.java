@@ -19,10 +19,8 @@
 package org.apache.sling.feature.maven.mojos.apis;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -35,34 +33,38 @@ public class JavadocLinks {
 
     private final Set<String> docLinks = new HashSet<>();
 
+    private final PackageListCache packageListCache;
+
+    /**
+     * Create links
+     * @param packageListCache The cache for the package lists
+     */
+    public JavadocLinks(final PackageListCache packageListCache) {
+        this.packageListCache = packageListCache;
+    }
+
     public void calculateLinks(
             final List<String> globalJavaDocLinks, final Collection<ArtifactInfo> infos, final Artifact framework)
             throws MojoExecutionException {
-        final Map<String, Set<String>> linkedPackagesMap = new HashMap<>();
         this.docLinks.clear();
         this.linkedGlobalPackages.clear();
-        for (final String val : globalJavaDocLinks) {
-            docLinks.add(val);
-            ApisUtil.getPackageList(val, linkedGlobalPackages, linkedPackagesMap);
-        }
+        this.docLinks.addAll(globalJavaDocLinks);
         for (final ArtifactInfo info : infos) {
             final List<String> links = ApisUtil.getJavadocLinks(info.getArtifact());
             if (links != null) {
-                for (final String v : links) {
-                    ApisUtil.getPackageList(v, linkedGlobalPackages, linkedPackagesMap);
-                    docLinks.add(v);
-                }
+                this.docLinks.addAll(links);
             }
         }
         if (framework != null) {
             final List<String> links = ApisUtil.getJavadocLinks(framework);
             if (links != null) {
-                for (final String v : links) {
-                    ApisUtil.getPackageList(v, linkedGlobalPackages, linkedPackagesMap);
-                    docLinks.add(v);
-                }
+                this.docLinks.addAll(links);
             }
         }
+        // fetch all package lists at once
+        for (final Set<String> packages : this.packageListCache.get(this.docLinks).values()) {
+            this.linkedGlobalPackages.addAll(packages);
+        }
     }
 
     public Set<String> getJavadocLinks() {
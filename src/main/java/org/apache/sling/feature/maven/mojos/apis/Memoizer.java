@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Thread-safe memoizer for values which are expensive to load. If several threads
+ * ask for the same key at the same time, the value is loaded only once and the other
+ * threads wait for it. Failures are not cached, the next request loads the value again.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class Memoizer<K, V> {
+
+    /**
+     * Loads the value for a key
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+
+        /**
+         * Load the value
+         * @param key The key
+         * @return The value
+         * @throws MojoExecutionException If loading fails
+         */
+        V load(K key) throws MojoExecutionException;
+    }
+
+    private final Map<K, CompletableFuture<V>> values = new ConcurrentHashMap<>();
+
+    private final Function<K, String> failureMessage;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create a new memoizer
+     * @param failureMessage Creates the message reported to threads waiting for a value which could not be loaded
+     */
+    public Memoizer(final Function<K, String> failureMessage) {
+        this.failureMessage = failureMessage;
+    }
+
+    /**
+     * Get the value for a key, load it if it is not available yet
+     * @param key The key
+     * @param loader The loader used if the value is not available
+     * @return The value
+     * @throws MojoExecutionException If loading fails
+     */
+    public V get(final K key, final Loader<K, V> loader) throws MojoExecutionException {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> existing = this.values.putIfAbsent(key, future);
+        if (existing == null) {
+            this.misses.incrementAndGet();
+            try {
+                future.complete(loader.load(key));
+            } catch (final MojoExecutionException | RuntimeException e) {
+                // do not cache failures
+                this.values.remove(key, future);
+                future.completeExceptionally(e);
+                throw e;
+            }
+            return future.join();
+        }
+        this.hits.incrementAndGet();
+        try {
+            return existing.join();
+        } catch (final CompletionException e) {
+            throw new MojoExecutionException(this.failureMessage.apply(key), e.getCause());
+        }
+    }
+
+    /**
+     * The number of requests answered with an available or currently loading value
+     * @return The number of hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * The number of requests which needed loading
+     * @return The number of misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.sling.feature.maven.Digests;
+
+/**
+ * Cache for the package lists of javadoc links. Javadoc provides the list of
+ * documented packages either as {@code package-list} or, since Java 10, as
+ * {@code element-list}. Both are supported.
+ * <p>
+ * The lists are fetched concurrently and kept in memory. If a directory is configured,
+ * the lists are persisted and revalidated using ETag and Last-Modified. In offline
+ * mode, only persisted lists are used.
+ * <p>
+ * An instance can be shared by several executions within a build. The fetching
+ * threads are daemon threads which end once they are idle for a minute, so a
+ * shared instance does not need to be shut down.
+ */
+public class PackageListCache {
+
+    private static final int TIMEOUT = 30000;
+
+    private static final int MAX_THREADS = 8;
+
+    private static final String PACKAGE_LIST = "package-list";
+
+    private static final String ELEMENT_LIST = "element-list";
+
+    private static final String MODULE_PREFIX = "module:";
+
+    private static final String PROP_URL = "url";
+
+    private static final String PROP_NAME = "name";
+
+    private static final String PROP_ETAG = "etag";
+
+    private static final String PROP_LAST_MODIFIED = "last-modified";
+
+    private static final String PROP_PACKAGES = "packages";
+
+    private final Map<String, CompletableFuture<Set<String>>> cache = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor;
+
+    private final File directory;
+
+    private final boolean offline;
+
+    private final Log log;
+
+    /**
+     * Create a new cache
+     * @param directory The directory to persist the lists, might be {@code null}
+     * @param offline Whether the network must not be used
+     * @param log The logger
+     */
+    public PackageListCache(final File directory, final boolean offline, final Log log) {
+        this.directory = directory;
+        this.offline = offline;
+        this.log = log;
+        this.executor = new ThreadPoolExecutor(
+                MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "apis-jar-package-list");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the package lists for javadoc links. All lists not cached yet are fetched concurrently.
+     * @param javadocUrls The javadoc base urls
+     * @return A map with the url, without a trailing slash, as the key and the set of packages as value
+     * @throws MojoExecutionException If a list can't be fetched
+     */
+    public Map<String, Set<String>> get(final Collection<String> javadocUrls) throws MojoExecutionException {
+        final Map<String, CompletableFuture<Set<String>>> running = new LinkedHashMap<>();
+        for (final String val : javadocUrls) {
+            final String javadocUrl = val.endsWith("/") ? val.substring(0, val.length() - 1) : val;
+            running.computeIfAbsent(
+                    javadocUrl,
+                    key -> this.cache.computeIfAbsent(
+                            key, url -> CompletableFuture.supplyAsync(() -> this.fetch(url), this.executor)));
+        }
+        final Map<String, Set<String>> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, CompletableFuture<Set<String>>> entry : running.entrySet()) {
+            try {
+                result.put(entry.getKey(), entry.getValue().join());
+            } catch (final CompletionException e) {
+                // do not cache failures
+                this.cache.remove(entry.getKey(), entry.getValue());
+                if (e.getCause() instanceof PackageListException) {
+                    throw new MojoExecutionException(e.getCause().getMessage(), e.getCause().getCause());
+                }
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Shut down the threads fetching the lists. Lists which are already cached
+     * can still be retrieved afterwards. Must not be called on a shared instance.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    private Set<String> fetch(final String javadocUrl) {
+        final File file = this.getFile(javadocUrl);
+        final Properties cached = this.load(file);
+        if (this.offline) {
+            if (cached == null) {
+                throw new PackageListException("Offline and no cached package-list available for " + javadocUrl, null);
+            }
+            return getPackages(cached);
+        }
+        // try the list found the last time first
+        final String first = cached != null ? cached.getProperty(PROP_NAME, PACKAGE_LIST) : PACKAGE_LIST;
+        final String second = PACKAGE_LIST.equals(first) ? ELEMENT_LIST : PACKAGE_LIST;
+        IOException failure = null;
+        for (final String name : new String[] {first, second}) {
+            try {
+                final Properties props = this.request(javadocUrl, name, name.equals(first) ? cached : null);
+                if (props != null) {
+                    if (props != cached) {
+                        this.store(file, props);
+                    }
+                    return getPackages(props);
+                }
+            } catch (final IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (cached != null) {
+            this.log.warn("Unable to fetch package-list for " + javadocUrl + ", using cached list");
+            return getPackages(cached);
+        }
+        throw new PackageListException(
+                "Unable to find/read package-list at ".concat(javadocUrl).concat("/").concat(PACKAGE_LIST), failure);
+    }
+
+    /**
+     * Request a list
+     * @return The properties of the list or {@code null} if the list does not exist
+     */
+    private Properties request(final String javadocUrl, final String name, final Properties cached)
+            throws IOException {
+        final String location = javadocUrl.concat("/").concat(name);
+        final URLConnection connection = new URL(location).openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        if (connection instanceof HttpURLConnection) {
+            final HttpURLConnection http = (HttpURLConnection) connection;
+            if (cached != null && cached.getProperty(PROP_ETAG) != null) {
+                http.setRequestProperty("If-None-Match", cached.getProperty(PROP_ETAG));
+            }
+            if (cached != null && cached.getProperty(PROP_LAST_MODIFIED) != null) {
+                http.setRequestProperty("If-Modified-Since", cached.getProperty(PROP_LAST_MODIFIED));
+            }
+            final int status = http.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                this.log.debug("Using cached ".concat(location));
+                return cached;
+            }
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected status " + status + " for " + location);
+            }
+        }
+        final Set<String> packages = new TreeSet<>();
+        try (final BufferedReader reader =
+                new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith(MODULE_PREFIX)) {
+                    packages.add(line);
+                }
+            }
+        } catch (final FileNotFoundException e) {
+            return null;
+        }
+        this.log.debug("Fetched ".concat(location));
+        final Properties props = new Properties();
+        props.setProperty(PROP_URL, javadocUrl);
+        props.setProperty(PROP_NAME, name);
+        props.setProperty(PROP_PACKAGES, String.join(",", packages));
+        if (connection.getHeaderField("ETag") != null) {
+            props.setProperty(PROP_ETAG, connection.getHeaderField("ETag"));
+        }
+        if (connection.getHeaderField("Last-Modified") != null) {
+            props.setProperty(PROP_LAST_MODIFIED, connection.getHeaderField("Last-Modified"));
+        }
+        return props;
+    }
+
+    private static Set<String> getPackages(final Properties props) {
+        final Set<String> result = new TreeSet<>();
+        for (final String name : props.getProperty(PROP_PACKAGES, "").split(",")) {
+            if (!name.isEmpty()) {
+                result.add(name);
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private File getFile(final String javadocUrl) {
+        if (this.directory == null) {
+            return null;
+        }
+        return new File(this.directory, Digests.sha256Hex(javadocUrl).concat(".properties"));
+    }
+
+    private Properties load(final File file) {
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        final Properties props = new Properties();
+        try (final InputStream in = Files.newInputStream(file.toPath())) {
+            props.load(in);
+        } catch (final IOException | IllegalArgumentException e) {
+            this.log.debug("Ignoring unreadable cache file " + file + " : " + e.getMessage());
+            return null;
+        }
+        return props;
+    }
+
+    private void store(final File file, final Properties props) {
+        if (file == null) {
+            return;
+        }
+        this.directory.mkdirs();
+        try {
+            final File tmp = File.createTempFile(".tmp-", ".properties", this.directory);
+            try (final OutputStream out = Files.newOutputStream(tmp.toPath())) {
+                props.store(out, null);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            this.log.warn("Unable to write cache file " + file + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unchecked exception used to report failures from the fetching threads
+     */
+    private static final class PackageListException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        PackageListException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
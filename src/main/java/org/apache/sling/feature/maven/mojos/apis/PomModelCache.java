@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.sling.feature.ArtifactId;
+
+/**
+ * Cache for the raw models of POMs. The cache is shared within a Maven session,
+ * therefore parent POMs shared by many artifacts are only read once. If several
+ * threads ask for the same POM at the same time, it is read only once.
+ */
+public class PomModelCache {
+
+    /**
+     * Reads the model of a POM
+     */
+    @FunctionalInterface
+    public interface Reader {
+
+        /**
+         * Read the model
+         * @param pomArtifactId The artifact id of the POM
+         * @return The model
+         * @throws MojoExecutionException If the POM can't be retrieved or read
+         */
+        Model read(ArtifactId pomArtifactId) throws MojoExecutionException;
+    }
+
+    private final Memoizer<ArtifactId, Model> models =
+            new Memoizer<>(id -> "Unable to read POM ".concat(id.toMvnId()));
+
+    /**
+     * Get the cache for a Maven session
+     * @param session The session, might be {@code null}
+     * @return The cache
+     */
+    public static PomModelCache getCache(final MavenSession session) {
+        return ApisUtil.getSessionValue(session, PomModelCache.class, PomModelCache::new);
+    }
+
+    /**
+     * Get the model of a POM, read it if it is not cached yet
+     * @param pomArtifactId The artifact id of the POM
+     * @param reader The reader used if the model is not cached
+     * @return The model
+     * @throws MojoExecutionException If reading fails
+     */
+    public Model get(final ArtifactId pomArtifactId, final Reader reader) throws MojoExecutionException {
+        return this.models.get(pomArtifactId, reader::read);
+    }
+}
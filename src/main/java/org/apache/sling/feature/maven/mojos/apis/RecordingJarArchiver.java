@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.jar.JarArchiver;
+import org.codehaus.plexus.archiver.zip.ConcurrentJarCreator;
+
+/**
+ * Jar archiver recording the names of the files it writes. This allows to verify
+ * the content of a created jar without reading it again.
+ */
+public class RecordingJarArchiver extends JarArchiver {
+
+    private final Set<String> entryNames = ConcurrentHashMap.newKeySet();
+
+    @Override
+    protected void zipFile(
+            final InputStreamSupplier is,
+            final ConcurrentJarCreator zOut,
+            final String vPath,
+            final long lastModified,
+            final File fromArchive,
+            final int mode,
+            final String symlinkDestination,
+            final boolean addInParallel)
+            throws IOException, ArchiverException {
+        super.zipFile(is, zOut, vPath, lastModified, fromArchive, mode, symlinkDestination, addInParallel);
+        if (!JarFile.MANIFEST_NAME.equals(vPath)) {
+            this.entryNames.add(vPath);
+        }
+    }
+
+    /**
+     * Get the names of the files written to the jar, except the manifest
+     * @return The set of names
+     */
+    public Set<String> getEntryNames() {
+        return this.entryNames;
+    }
+}
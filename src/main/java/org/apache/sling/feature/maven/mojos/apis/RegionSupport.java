@@ -19,14 +19,12 @@
 package org.apache.sling.feature.maven.mojos.apis;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 
 import org.apache.felix.utils.manifest.Clause;
@@ -39,6 +37,7 @@ import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.extension.apiregions.api.ApiExport;
 import org.apache.sling.feature.extension.apiregions.api.ApiRegion;
 import org.apache.sling.feature.extension.apiregions.api.ApiRegions;
+import org.apache.sling.feature.maven.mojos.apis.JarMetadataCache.JarMetadata;
 import org.osgi.framework.Constants;
 
 public class RegionSupport {
@@ -53,17 +52,36 @@ public class RegionSupport {
 
     private final boolean toggleApiOnly;
 
+    private final JarMetadataCache jarMetadataCache;
+
+    /** The regions returned by {@link #getApiRegions(Feature)} */
+    private volatile ApiRegions indexedRegions;
+
+    /** The index for the {@link #indexedRegions}. */
+    private volatile ExportIndex exportIndex;
+
     public RegionSupport(
             final Log logger,
             final boolean incrementalApis,
             final boolean toggleApiOnly,
             final Set<String> includeRegions,
             final Set<String> excludeRegions) {
+        this(logger, incrementalApis, toggleApiOnly, includeRegions, excludeRegions, new JarMetadataCache());
+    }
+
+    public RegionSupport(
+            final Log logger,
+            final boolean incrementalApis,
+            final boolean toggleApiOnly,
+            final Set<String> includeRegions,
+            final Set<String> excludeRegions,
+            final JarMetadataCache jarMetadataCache) {
         this.log = logger;
         this.incrementalApis = incrementalApis;
         this.includeRegions = includeRegions;
         this.excludeRegions = excludeRegions;
         this.toggleApiOnly = toggleApiOnly;
+        this.jarMetadataCache = jarMetadataCache;
     }
 
     /**
@@ -103,13 +121,16 @@ public class RegionSupport {
                 log.info("Feature file " + feature.getId().toMvnId()
                         + " has no included api regions, no API JAR will be created");
                 regions = null;
+            } else {
+                this.exportIndex = new ExportIndex(regions);
+                this.indexedRegions = regions;
             }
         } else {
-            // create exports on the fly
+            // create exports on the fly, artifacts might be processed concurrently
             regions.add(new ApiRegion(ApiRegion.GLOBAL) {
 
                 @Override
-                public ApiExport getExportByName(final String name) {
+                public synchronized ApiExport getExportByName(final String name) {
                     ApiExport exp = super.getExportByName(name);
                     if (exp == null) {
                         exp = new ApiExport(name);
@@ -117,12 +138,50 @@ public class RegionSupport {
                     }
                     return exp;
                 }
+
+                @Override
+                public synchronized ApiExport getAllExportByName(final String name) {
+                    return super.getAllExportByName(name);
+                }
             });
         }
 
         return regions;
     }
 
+    /**
+     * Get the export index for the api regions
+     * @param apiRegions The api regions
+     * @return The index or {@code null} if the regions are not indexed
+     */
+    private ExportIndex getExportIndex(final ApiRegions apiRegions) {
+        return apiRegions == this.indexedRegions ? this.exportIndex : null;
+    }
+
+    /**
+     * Get the export of a package in a region, see {@link ApiRegion#getExportByName(String)}
+     * @param region The region
+     * @param packageName The package name
+     * @return The export or {@code null}
+     */
+    public ApiExport getExportByName(final ApiRegion region, final String packageName) {
+        final ExportIndex index = this.exportIndex;
+        final int pos = index == null ? -1 : index.indexOf(region);
+        return pos == -1 ? region.getExportByName(packageName) : index.getExport(pos, packageName);
+    }
+
+    /**
+     * Get the export of a package in a region or its parents, see {@link ApiRegion#getAllExportByName(String)}
+     * @param region The region
+     * @param packageName The package name
+     * @return The export or {@code null}
+     */
+    public ApiExport getAllExportByName(final ApiRegion region, final String packageName) {
+        final ExportIndex index = this.exportIndex;
+        final int pos = index == null ? -1 : index.indexOf(region);
+        return pos == -1 ? region.getAllExportByName(packageName) : index.getAllExport(pos, packageName);
+    }
+
     /**
      * Check if the region is included
      *
@@ -191,16 +250,29 @@ public class RegionSupport {
             final Artifact bundle)
             throws MojoExecutionException {
         final Set<String> result = new HashSet<>();
+        final ExportIndex index = this.getExportIndex(apiRegions);
 
         // filter for each region
         for (final Clause exportedPackage : exportedPackages) {
             final String packageName = exportedPackage.getName();
 
-            for (ApiRegion apiRegion : apiRegions.listRegions()) {
-                final ApiExport exp = apiRegion.getExportByName(packageName);
-                if (exp != null) {
-                    if (this.include(exp, enabledToggles)) {
-                        result.add(exportedPackage.getName());
+            if (index != null) {
+                final ExportIndex.Entry entry = index.get(packageName);
+                if (entry != null) {
+                    for (int i = entry.nextRegion(0); i >= 0; i = entry.nextRegion(i + 1)) {
+                        if (this.include(index.getExport(i, packageName), enabledToggles)) {
+                            result.add(packageName);
+                            break;
+                        }
+                    }
+                }
+            } else {
+                for (ApiRegion apiRegion : apiRegions.listRegions()) {
+                    final ApiExport exp = apiRegion.getExportByName(packageName);
+                    if (exp != null) {
+                        if (this.include(exp, enabledToggles)) {
+                            result.add(exportedPackage.getName());
+                        }
                     }
                 }
             }
@@ -212,6 +284,53 @@ public class RegionSupport {
         return result;
     }
 
+    /**
+     * Get the previous version of an artifact to use due to disabled toggles. For each package,
+     * the export of the first region exporting the package is checked.
+     *
+     * @param apiRegions The API Regions to use
+     * @param enabledToggles The enabled toggles
+     * @param usedExportedPackages The used exported packages of the artifact
+     * @param artifact The artifact
+     * @return The previous artifact id or {@code null}
+     * @throws MojoExecutionException If more than one previous artifact is configured
+     */
+    public ArtifactId getPreviousArtifactId(
+            final ApiRegions apiRegions,
+            final Set<String> enabledToggles,
+            final Set<String> usedExportedPackages,
+            final Artifact artifact)
+            throws MojoExecutionException {
+        final ExportIndex index = this.getExportIndex(apiRegions);
+        ArtifactId previous = null;
+        for (final String pckName : usedExportedPackages) {
+            ApiExport exp = null;
+            if (index != null) {
+                final ExportIndex.Entry entry = index.get(pckName);
+                exp = entry == null ? null : entry.getFirstExport();
+            } else {
+                for (final ApiRegion region : apiRegions.listRegions()) {
+                    exp = region.getExportByName(pckName);
+                    if (exp != null) {
+                        break;
+                    }
+                }
+            }
+            if (exp != null
+                    && exp.getToggle() != null
+                    && !enabledToggles.contains(exp.getToggle())
+                    && exp.getPreviousArtifactId() != null) {
+                if (previous != null && previous.compareTo(exp.getPreviousArtifactId()) != 0) {
+                    throw new MojoExecutionException("More than one previous version artifact configured for "
+                            + artifact.getId().toMvnId() + " : " + previous.toMvnId() + ", "
+                            + exp.getPreviousArtifactId().toMvnId());
+                }
+                previous = exp.getPreviousArtifactId();
+            }
+        }
+        return previous;
+    }
+
     /**
      * Compute exports based on a single region
      *
@@ -232,7 +351,7 @@ public class RegionSupport {
             final String packageName = exportedPackage.getName();
 
             if (allPackages.contains(packageName)) {
-                final ApiExport exp = apiRegion.getExportByName(packageName);
+                final ApiExport exp = this.getExportByName(apiRegion, packageName);
                 if (exp != null) {
                     result.add(exportedPackage);
                 }
@@ -250,15 +369,27 @@ public class RegionSupport {
     }
 
     public Manifest getManifest(final ArtifactId artifactId, final File bundleFile) throws MojoExecutionException {
-        try (JarInputStream jis = new JarInputStream(new FileInputStream(bundleFile))) {
+        return getJarMetadata(artifactId, bundleFile).getManifest();
+    }
+
+    /**
+     * Get the metadata of a bundle
+     * @param artifactId The artifact id
+     * @param bundleFile The bundle file
+     * @return The metadata, the manifest is always available
+     * @throws MojoExecutionException If the file can't be read or does not have a manifest
+     */
+    public JarMetadata getJarMetadata(final ArtifactId artifactId, final File bundleFile)
+            throws MojoExecutionException {
+        try {
             log.debug("Reading Manifest headers from bundle " + bundleFile);
 
-            final Manifest manifest = jis.getManifest();
+            final JarMetadata metadata = this.jarMetadataCache.get(bundleFile);
 
-            if (manifest == null) {
+            if (metadata.getManifest() == null) {
                 throw new MojoExecutionException("Artifact + " + artifactId.toMvnId() + " does not  have a manifest.");
             }
-            return manifest;
+            return metadata;
         } catch (final IOException e) {
             throw new MojoExecutionException(
                     "An error occurred while reading manifest from file " + bundleFile + " for artifact "
@@ -279,9 +410,9 @@ public class RegionSupport {
             throws MojoExecutionException {
         final Set<Clause> packages = new LinkedHashSet<>();
 
-        final Manifest manifest = getManifest(artifact.getId(), artifactFile);
-        if (manifest.getMainAttributes().getValue(Constants.BUNDLE_MANIFESTVERSION) != null) {
-            for (final Clause c : getExportedPackages(manifest)) {
+        final JarMetadata metadata = getJarMetadata(artifact.getId(), artifactFile);
+        if (metadata.getManifest().getMainAttributes().getValue(Constants.BUNDLE_MANIFESTVERSION) != null) {
+            for (final Clause c : metadata.getExportedPackages()) {
                 packages.add(c);
             }
         } else {
@@ -306,24 +437,20 @@ public class RegionSupport {
             final ApiRegion region,
             final Clause[] exportedPackageClauses,
             final Set<Clause> usedExportedPackagesPerRegion) {
+        final Set<String> usedNames = new HashSet<>();
+        for (final Clause current : usedExportedPackagesPerRegion) {
+            usedNames.add(current.getName());
+        }
         // check whether all packages are exported in this region
         String reason = null;
         for (final Clause c : exportedPackageClauses) {
-            boolean found = false;
-            for (final Clause current : usedExportedPackagesPerRegion) {
-                if (current.getName().equals(c.getName())) {
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
+            if (!usedNames.contains(c.getName())) {
                 final String msg = "Package ".concat(c.getName()).concat(" not exported.");
                 reason = reason == null ? msg : reason.concat(" ").concat(msg);
             } else {
                 // check deprecation - if deprecation is set, artifact can't be used as a
                 // dependency
-                final ApiExport exp = region.getAllExportByName(c.getName());
+                final ApiExport exp = this.getAllExportByName(region, c.getName());
                 if (exp != null
                         && (exp.getDeprecation().getPackageInfo() != null
                                 || !exp.getDeprecation().getMemberInfos().isEmpty())) {
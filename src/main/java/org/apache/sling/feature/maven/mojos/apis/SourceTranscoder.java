@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Converts java sources to UTF-8 while they are copied. The content is decoded
+ * and encoded chunk by chunk, the buffers are reused for all files. Malformed
+ * input is replaced, like when reading a file into a string.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class SourceTranscoder {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CharsetDecoder decoder;
+
+    private final CharsetEncoder encoder;
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+
+    private final ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+
+    private final CharBuffer charBuffer = CharBuffer.allocate(BUFFER_SIZE);
+
+    private final ByteBuffer outputBuffer = ByteBuffer.allocate(BUFFER_SIZE * 4);
+
+    /**
+     * Create a new transcoder
+     * @param encoding The encoding of the sources
+     */
+    public SourceTranscoder(final String encoding) {
+        this.decoder = Charset.forName(encoding)
+                .newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.encoder = StandardCharsets.UTF_8
+                .newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Extract a sources archive. Java sources are converted to UTF-8 while they are
+     * extracted, all other files are copied as is. Existing files are not overwritten.
+     * @param archive The archive
+     * @param directory The target directory
+     * @param includes The include patterns for the entries to extract
+     * @throws IOException If extracting fails
+     */
+    public void extract(final File archive, final File directory, final String... includes) throws IOException {
+        final Path root = directory.toPath().toAbsolutePath().normalize();
+        try (final ZipFile zipFile = ZipFile.builder().setFile(archive).get()) {
+            final Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                final ZipArchiveEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !isIncluded(entry.getName(), includes)) {
+                    continue;
+                }
+                final Path target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IOException("Invalid entry " + entry.getName() + " in " + archive);
+                }
+                if (Files.exists(target)) {
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                try (final InputStream in = zipFile.getInputStream(entry)) {
+                    this.copy(in, target, entry.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy a file. A java source is converted to UTF-8, all other files are copied as is.
+     * @param source The source file
+     * @param target The target file
+     * @throws IOException If copying fails
+     */
+    public void copy(final File source, final File target) throws IOException {
+        try (final InputStream in = Files.newInputStream(source.toPath())) {
+            this.copy(in, target.toPath(), source.getName());
+        }
+    }
+
+    private void copy(final InputStream in, final Path target, final String name) throws IOException {
+        if (name.endsWith(ArtifactType.SOURCES.getContentExtension())) {
+            try (final OutputStream out = Files.newOutputStream(target)) {
+                this.transcode(in, out);
+            }
+        } else {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isIncluded(final String name, final String[] includes) {
+        for (final String include : includes) {
+            if (SelectorUtils.matchPath(include, name, "/", true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy the input to the output, converting it to UTF-8. The streams are not closed.
+     * @param in The input stream
+     * @param out The output stream
+     * @throws IOException If reading or writing fails
+     */
+    public void transcode(final InputStream in, final OutputStream out) throws IOException {
+        this.decoder.reset();
+        this.encoder.reset();
+        this.inputBuffer.clear();
+        this.charBuffer.clear();
+        this.outputBuffer.clear();
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            final int read = in.read(this.input, this.inputBuffer.position(), this.inputBuffer.remaining());
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                this.inputBuffer.position(this.inputBuffer.position() + read);
+            }
+            this.inputBuffer.flip();
+            CoderResult result;
+            do {
+                result = this.decoder.decode(this.inputBuffer, this.charBuffer, endOfInput);
+                this.encodeChars(out, false);
+            } while (result.isOverflow());
+            // keep incomplete multi byte sequences for the next read
+            this.inputBuffer.compact();
+        }
+        while (this.decoder.flush(this.charBuffer).isOverflow()) {
+            this.encodeChars(out, false);
+        }
+        this.encodeChars(out, true);
+        while (this.encoder.flush(this.outputBuffer).isOverflow()) {
+            this.writeBytes(out);
+        }
+        this.writeBytes(out);
+    }
+
+    private void encodeChars(final OutputStream out, final boolean endOfInput) throws IOException {
+        this.charBuffer.flip();
+        while (this.encoder.encode(this.charBuffer, this.outputBuffer, endOfInput).isOverflow()) {
+            this.writeBytes(out);
+        }
+        // keep a high surrogate without its low surrogate for the next chunk
+        this.charBuffer.compact();
+        this.writeBytes(out);
+    }
+
+    private void writeBytes(final OutputStream out) throws IOException {
+        this.outputBuffer.flip();
+        out.write(this.outputBuffer.array(), this.outputBuffer.arrayOffset(), this.outputBuffer.limit());
+        this.outputBuffer.clear();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import org.apache.sling.feature.ArtifactId;
+
+/**
+ * Records the durations of the phases of the api jar generation per artifact
+ * and per region, together with the bytes read and written and cache statistics.
+ * The timings can be written as a JSON report. All methods are thread safe.
+ * <p>
+ * Phases might be nested, like the checkout from SCM within the sources phase, and
+ * the phases of different artifacts or regions might run concurrently. Therefore the
+ * durations of the phases do not add up to the total duration.
+ * <p>
+ * The bytes are measured as follows:
+ * <ul>
+ * <li>{@link #DEFLATE}: the size of the archive read</li>
+ * <li>{@link #SOURCES}: the size of the source archives read</li>
+ * <li>{@link #SCM_CHECKOUT}: the size of the sources copied from the checkout, these bytes
+ * are not part of the bytes of the enclosing sources phase</li>
+ * <li>{@link #ARCHIVE}: the size of the jar written</li>
+ * <li>{@link #VERIFY}: the size of the jar read</li>
+ * </ul>
+ * The other phases, including {@link #JAVADOC}, do not record bytes, the report omits values of zero.
+ */
+public class Timings {
+
+    /** Processing of an artifact, including all other artifact phases */
+    public static final String ARTIFACT = "artifact";
+
+    /** Deflating a binary */
+    public static final String DEFLATE = "deflate";
+
+    /** Downloading and deflating sources, including the SCM checkout */
+    public static final String SOURCES = "sources";
+
+    /** Checking out sources from SCM */
+    public static final String SCM_CHECKOUT = "scm-checkout";
+
+    /** Resolving the javadoc classpath of an artifact */
+    public static final String JAVADOC_CLASSPATH = "javadoc-classpath";
+
+    /** Running javadoc */
+    public static final String JAVADOC = "javadoc";
+
+    /** Creating a jar */
+    public static final String ARCHIVE = "archive";
+
+    /** Verifying a jar */
+    public static final String VERIFY = "verify";
+
+    /**
+     * A running timer, closing it records the duration
+     */
+    public final class Timer implements AutoCloseable {
+
+        private final Stats[] stats;
+
+        private final long start = System.nanoTime();
+
+        private long bytesRead;
+
+        private long bytesWritten;
+
+        private Timer(final Stats[] stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * Add to the number of bytes read in this phase
+         * @param bytes The number of bytes
+         */
+        public void addBytesRead(final long bytes) {
+            this.bytesRead += bytes;
+        }
+
+        /**
+         * Add to the number of bytes written in this phase
+         * @param bytes The number of bytes
+         */
+        public void addBytesWritten(final long bytes) {
+            this.bytesWritten += bytes;
+        }
+
+        @Override
+        public void close() {
+            final long duration = System.nanoTime() - this.start;
+            for (final Stats s : this.stats) {
+                s.add(duration, this.bytesRead, this.bytesWritten);
+            }
+        }
+    }
+
+    private static final class Stats {
+
+        final LongAdder count = new LongAdder();
+
+        final LongAdder nanos = new LongAdder();
+
+        final LongAdder bytesRead = new LongAdder();
+
+        final LongAdder bytesWritten = new LongAdder();
+
+        void add(final long duration, final long read, final long written) {
+            this.count.increment();
+            this.nanos.add(duration);
+            this.bytesRead.add(read);
+            this.bytesWritten.add(written);
+        }
+
+        void write(final JsonGenerator generator, final String name) {
+            generator.writeStartObject(name);
+            generator.write("count", this.count.sum());
+            generator.write("millis", TimeUnit.NANOSECONDS.toMillis(this.nanos.sum()));
+            if (this.bytesRead.sum() > 0) {
+                generator.write("bytesRead", this.bytesRead.sum());
+            }
+            if (this.bytesWritten.sum() > 0) {
+                generator.write("bytesWritten", this.bytesWritten.sum());
+            }
+            generator.writeEnd();
+        }
+    }
+
+    private final long start = System.nanoTime();
+
+    private final Map<String, Stats> phases = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Stats>> artifacts = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Stats>> regions = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder[]> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Start a phase for an artifact
+     * @param phase The phase
+     * @param artifactId The artifact
+     * @return The timer, which needs to be closed once the phase is finished
+     */
+    public Timer startArtifact(final String phase, final ArtifactId artifactId) {
+        return new Timer(new Stats[] {
+            this.phases.computeIfAbsent(phase, key -> new Stats()),
+            get(this.artifacts, artifactId.toMvnId(), phase)
+        });
+    }
+
+    /**
+     * Start a phase for a region
+     * @param phase The phase
+     * @param regionName The region
+     * @return The timer, which needs to be closed once the phase is finished
+     */
+    public Timer startRegion(final String phase, final String regionName) {
+        return new Timer(new Stats[] {
+            this.phases.computeIfAbsent(phase, key -> new Stats()), get(this.regions, regionName, phase)
+        });
+    }
+
+    private static Stats get(final Map<String, Map<String, Stats>> map, final String name, final String phase) {
+        return map.computeIfAbsent(name, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(phase, key -> new Stats());
+    }
+
+    /**
+     * Record the usage of a cache
+     * @param cache The name of the cache
+     * @param hit {@code true} if the value was found in the cache
+     */
+    public void recordCache(final String cache, final boolean hit) {
+        this.caches.computeIfAbsent(cache, key -> new LongAdder[] {new LongAdder(), new LongAdder()})[hit ? 0 : 1]
+                .increment();
+    }
+
+    /**
+     * Record the statistics of a cache
+     * @param cache The name of the cache
+     * @param hits The number of hits
+     * @param misses The number of misses
+     */
+    public void recordCache(final String cache, final long hits, final long misses) {
+        final LongAdder[] counters =
+                this.caches.computeIfAbsent(cache, key -> new LongAdder[] {new LongAdder(), new LongAdder()});
+        counters[0].add(hits);
+        counters[1].add(misses);
+    }
+
+    /**
+     * Write the timings as JSON
+     * @param file The file
+     * @param featureId The feature
+     * @throws IOException If writing fails
+     */
+    public void write(final File file, final ArtifactId featureId) throws IOException {
+        try (final Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+                final JsonGenerator generator = Json.createGeneratorFactory(
+                                Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true))
+                        .createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.write("feature", featureId.toMvnId());
+            generator.write("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.start));
+
+            generator.writeStartObject("phases");
+            for (final Map.Entry<String, Stats> entry : new TreeMap<>(this.phases).entrySet()) {
+                entry.getValue().write(generator, entry.getKey());
+            }
+            generator.writeEnd();
+
+            writeGroups(generator, "artifacts", this.artifacts);
+            writeGroups(generator, "regions", this.regions);
+
+            generator.writeStartObject("caches");
+            for (final Map.Entry<String, LongAdder[]> entry : new TreeMap<>(this.caches).entrySet()) {
+                generator.writeStartObject(entry.getKey());
+                generator.write("hits", entry.getValue()[0].sum());
+                generator.write("misses", entry.getValue()[1].sum());
+                generator.writeEnd();
+            }
+            generator.writeEnd();
+
+            generator.writeEnd();
+        }
+    }
+
+    private static void writeGroups(
+            final JsonGenerator generator, final String name, final Map<String, Map<String, Stats>> groups) {
+        generator.writeStartObject(name);
+        for (final Map.Entry<String, Map<String, Stats>> group : new TreeMap<>(groups).entrySet()) {
+            generator.writeStartObject(group.getKey());
+            for (final Map.Entry<String, Stats> entry : new TreeMap<>(group.getValue()).entrySet()) {
+                entry.getValue().write(generator, entry.getKey());
+            }
+            generator.writeEnd();
+        }
+        generator.writeEnd();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Feature;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class FeatureCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Logger logger = Mockito.mock(Logger.class);
+
+    private FeatureProjectInfo info;
+
+    private File featureFile;
+
+    @Before
+    public void setup() throws IOException {
+        final File basedir = this.folder.newFolder("project");
+        final Model model = new Model();
+        model.setGroupId("g");
+        model.setArtifactId("a");
+        model.setVersion("1");
+        model.setPackaging("slingosgifeature");
+        model.setBuild(new Build());
+        model.getBuild().setDirectory(new File(basedir, "target").getAbsolutePath());
+        final MavenProject project = new MavenProject(model);
+        project.setFile(new File(basedir, "pom.xml"));
+
+        this.info = new FeatureProjectInfo();
+        this.info.project = project;
+        this.info.plugin = new Plugin();
+        this.info.plugin.setGroupId("org.apache.sling");
+        this.info.plugin.setArtifactId("slingfeature-maven-plugin");
+
+        this.featureFile = new File(basedir, "src/main/features/feature.json");
+        this.featureFile.getParentFile().mkdirs();
+        this.write(this.featureFile, "{\"id\":\"g:a:slingosgifeature:1\"}");
+    }
+
+    private void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FeatureCache createCache() throws IOException {
+        return new FeatureCache(this.info, FeatureProjectConfig.getMainConfig(this.info), "processor");
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        final Feature feature = new Feature(ArtifactId.parse("g:a:slingosgifeature:1"));
+        this.info.features.put("feature.json", feature);
+        this.info.assembledFeatures.put("feature.json", feature);
+
+        assertNull(this.createCache().load(this.logger));
+        this.createCache()
+                .save(
+                        this.logger,
+                        Collections.singleton("g:b"),
+                        Collections.emptySet(),
+                        List.<String[]>of(new String[] {"g:c:slingosgifeature:1", "provided"}));
+
+        final FeatureCache.Entry entry = this.createCache().load(this.logger);
+        assertNotNull(entry);
+        assertEquals(Collections.singleton("g:b"), entry.reactorPrototypes);
+        assertEquals(1, entry.dependencies.size());
+        assertArrayEquals(new String[] {"g:c:slingosgifeature:1", "provided"}, entry.dependencies.get(0));
+        assertEquals(feature.getId(), entry.features.get("feature.json").getId());
+        assertEquals(feature.getId(), entry.assembledFeatures.get("feature.json").getId());
+    }
+
+    @Test
+    public void testChangedInputs() throws Exception {
+        this.info.features.put("feature.json", new Feature(ArtifactId.parse("g:a:slingosgifeature:1")));
+        this.createCache().save(this.logger, Collections.emptySet(), Collections.emptySet(), List.of());
+        assertNotNull(this.createCache().load(this.logger));
+
+        // changed feature file
+        this.write(this.featureFile, "{\"id\":\"g:a:slingosgifeature:2\"}");
+        assertNull(this.createCache().load(this.logger));
+        this.createCache().save(this.logger, Collections.emptySet(), Collections.emptySet(), List.of());
+        assertNotNull(this.createCache().load(this.logger));
+
+        // changed project property used for substitution
+        final String configuration =
+                "<configuration><replacePropertyVariables>p</replacePropertyVariables></configuration>";
+        this.info.plugin.setConfiguration(Xpp3DomBuilder.build(new StringReader(configuration)));
+        this.createCache().save(this.logger, Collections.emptySet(), Collections.emptySet(), List.of());
+        assertNotNull(this.createCache().load(this.logger));
+        this.info.project.getProperties().setProperty("p", "v");
+        assertNull(this.createCache().load(this.logger));
+
+        // changed declared dependency
+        this.createCache().save(this.logger, Collections.emptySet(), Collections.emptySet(), List.of());
+        assertNotNull(this.createCache().load(this.logger));
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId("g");
+        dependency.setArtifactId("d");
+        dependency.setVersion("1");
+        this.info.project.getDependencies().add(dependency);
+        assertNull(this.createCache().load(this.logger));
+
+        // changed prototype file
+        final File prototype = this.folder.newFile("prototype.json");
+        this.write(prototype, "{}");
+        this.createCache().save(this.logger, Collections.emptySet(), Collections.singleton(prototype), List.of());
+        assertNotNull(this.createCache().load(this.logger));
+        this.write(prototype, "{\"changed\":true}");
+        assertNull(this.createCache().load(this.logger));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeatureSnapshotTest {
+
+    private final List<String> decoded = new ArrayList<>();
+
+    private byte[] write(final Map<String, String> values) throws IOException {
+        return FeatureSnapshot.write(values, v -> v.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, String> read(final byte[] snapshot) throws IOException {
+        return FeatureSnapshot.read(snapshot, in -> {
+            final String value = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            this.decoded.add(value);
+            return value;
+        });
+    }
+
+    @Test
+    public void testLazyDecoding() throws IOException {
+        final Map<String, String> values = new LinkedHashMap<>();
+        values.put("b", "feature b");
+        values.put("a", "feature a");
+        values.put(":aggregate:c:true", "feature \u00e4");
+
+        final Map<String, String> result = this.read(this.write(values));
+        assertEquals(3, result.size());
+        assertTrue(this.decoded.isEmpty());
+
+        assertEquals("feature a", result.get("a"));
+        assertEquals(1, this.decoded.size());
+        assertEquals("feature a", result.get("a"));
+        assertEquals(1, this.decoded.size());
+
+        // sorted by key
+        assertEquals(List.of(":aggregate:c:true", "a", "b"), new ArrayList<>(result.keySet()));
+        assertEquals(1, this.decoded.size());
+
+        assertEquals(values, result);
+        assertEquals(3, this.decoded.size());
+    }
+
+    @Test
+    public void testModification() throws IOException {
+        final Map<String, String> values = new LinkedHashMap<>();
+        values.put("a", "feature a");
+        values.put("b", "feature b");
+        final Map<String, String> result = this.read(this.write(values));
+
+        assertNull(result.put("c", "feature c"));
+        assertEquals("feature c", result.get("c"));
+        assertTrue(result.remove("a", "feature a"));
+        assertFalse(result.containsKey("a"));
+
+        final Iterator<Map.Entry<String, String>> iter = result.entrySet().iterator();
+        assertEquals("b", iter.next().getKey());
+        iter.remove();
+        assertEquals(Map.of("c", "feature c"), result);
+        assertEquals(List.of("feature a"), this.decoded);
+    }
+
+    @Test
+    public void testInvalidSnapshot() throws IOException {
+        final byte[] snapshot = this.write(Map.of("a", "feature a"));
+        try {
+            this.read(new byte[] {1, 2, 3, 4, 0, 0, 0, 1});
+            fail();
+        } catch (final IOException expected) {
+            // expected
+        }
+        try {
+            this.read(Arrays.copyOf(snapshot, snapshot.length - 1));
+            fail();
+        } catch (final IOException expected) {
+            // expected
+        }
+    }
+}
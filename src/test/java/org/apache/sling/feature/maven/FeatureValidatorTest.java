@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import jakarta.json.Json;
+import jakarta.json.JsonReader;
+import org.codehaus.plexus.logging.Logger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeatureValidatorTest {
+
+    private static final String VALID = "{\"id\":\"g:a:1\"}";
+
+    private static final String INVALID = "{\"id\":\"g:a:1\",\"bundles\":true}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Logger logger = Mockito.mock(Logger.class);
+
+    private void validate(final FeatureValidator validator, final String name, final String json) {
+        try (final JsonReader reader = Json.createReader(new StringReader(json))) {
+            validator.validate(new File(name), reader.readObject(), json);
+        }
+    }
+
+    @Test
+    public void testValidatedFilesArePersisted() throws Exception {
+        final File dir = this.folder.newFolder();
+        final FeatureValidator validator = new FeatureValidator(dir);
+        this.validate(validator, "feature.json", VALID);
+        this.validate(validator, "copy.json", VALID);
+        validator.save(this.logger);
+
+        final File file = new File(dir, "validated-features.txt");
+        assertTrue(file.exists());
+        final List<String> hashes = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, hashes.size());
+
+        // unchanged validator does not write the file again
+        file.delete();
+        final FeatureValidator second = new FeatureValidator(dir);
+        second.save(this.logger);
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testOnlyFilesOfCurrentBuildArePersisted() throws Exception {
+        final File dir = this.folder.newFolder();
+        final FeatureValidator validator = new FeatureValidator(dir);
+        this.validate(validator, "feature.json", VALID);
+        this.validate(validator, "other.json", "{\"id\":\"g:b:1\"}");
+        validator.save(this.logger);
+
+        final File file = new File(dir, "validated-features.txt");
+        final List<String> hashes = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, hashes.size());
+
+        // the second build only uses the first file
+        final FeatureValidator second = new FeatureValidator(dir);
+        this.validate(second, "feature.json", VALID);
+        second.save(this.logger);
+        final List<String> remaining = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, remaining.size());
+        assertTrue(hashes.contains(remaining.get(0)));
+        assertEquals(1, dir.list().length);
+    }
+
+    @Test
+    public void testInvalidFileIsNotPersisted() throws Exception {
+        final File dir = this.folder.newFolder();
+        final FeatureValidator validator = new FeatureValidator(dir);
+        try {
+            this.validate(validator, "feature.json", INVALID);
+            fail("Invalid feature must be reported");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getMessage().contains("feature.json"));
+        }
+        validator.save(this.logger);
+        assertFalse(new File(dir, "validated-features.txt").exists());
+    }
+}
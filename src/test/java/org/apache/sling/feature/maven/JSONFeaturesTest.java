@@ -21,9 +21,15 @@ package org.apache.sling.feature.maven;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
 
+import jakarta.json.JsonObject;
+import org.apache.sling.feature.ArtifactId;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.io.json.FeatureJSONReader;
@@ -69,4 +75,29 @@ public class JSONFeaturesTest {
             assertEquals("<a>XML</a>", ext.getText());
         }
     }
+
+    @Test
+    public void testReadWithReplacer() throws IOException {
+        final String json = "{ // comment\n \"bundles\": [{\"id\": \"g:b:${v}\", \"start-order\": 5}],"
+                + " \"${key}\": \"${quoted}\" }";
+        final UnaryOperator<String> replacer = value -> value.replace("${v}", "1.0")
+                .replace("${key}", "variables")
+                .replace("${quoted}", "a \"b\"");
+        final JsonObject featureObj =
+                JSONFeatures.read(new StringReader(json), ArtifactId.parse("g:a:1"), "location", replacer);
+
+        // id is added as first property
+        assertEquals(Arrays.asList("id", "bundles", "variables"), new ArrayList<>(featureObj.keySet()));
+        assertEquals("g:a:1", featureObj.getString("id"));
+        final JsonObject bundle = featureObj.getJsonArray("bundles").getJsonObject(0);
+        assertEquals("g:b:1.0", bundle.getString("id"));
+        assertEquals(5, bundle.getInt("start-order"));
+        // replaced values are not interpreted as JSON
+        assertEquals("a \"b\"", featureObj.getString("variables"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadNoObject() throws IOException {
+        JSONFeatures.read(new StringReader("[]"), ArtifactId.parse("g:a:1"), "location", UnaryOperator.identity());
+    }
 }
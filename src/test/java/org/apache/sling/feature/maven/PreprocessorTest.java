@@ -20,7 +20,14 @@ package org.apache.sling.feature.maven;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Exclusion;
@@ -31,6 +38,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class PreprocessorTest {
     @Test
@@ -62,6 +70,76 @@ public class PreprocessorTest {
         assertEquals("*", ex.getArtifactId());
     }
 
+    @Test
+    public void testSortByDependencies() {
+        final Map<String, List<String>> deps = Map.of(
+                "a", Arrays.asList("b", "c"), "b", Arrays.asList("c"), "c", Collections.emptyList());
+        assertEquals(
+                Arrays.asList("c", "b", "a"),
+                Preprocessor.sort(Arrays.asList("a", "b", "c"), deps::get, n -> n, "in project p"));
+    }
+
+    @Test
+    public void testSortReportsCycle() {
+        final Map<String, List<String>> deps = Map.of(
+                "a", Arrays.asList("b"), "b", Arrays.asList("c"), "c", Arrays.asList("b"));
+        try {
+            Preprocessor.sort(Arrays.asList("a", "b", "c"), deps::get, n -> n, "in project p");
+            fail();
+        } catch (final RuntimeException e) {
+            assertEquals("Circular dependency in features in project p : b -> c -> b", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetThreads() {
+        final Logger logger = Mockito.mock(Logger.class);
+        assertEquals(4, Preprocessor.getThreads(null, 4, logger));
+        assertEquals(8, Preprocessor.getThreads(null, 64, logger));
+        assertEquals(16, Preprocessor.getThreads("16", 64, logger));
+        assertEquals(2, Preprocessor.getThreads(" 2 ", 64, logger));
+        Mockito.verifyNoInteractions(logger);
+
+        assertEquals(8, Preprocessor.getThreads("0", 64, logger));
+        assertEquals(8, Preprocessor.getThreads("many", 64, logger));
+        Mockito.verify(logger, Mockito.times(2)).warn(Mockito.anyString());
+    }
+
+    @Test
+    public void testCallAllKeepsOrderOnSingleThread() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the outer task occupies the only thread, the nested tasks are run by the caller
+            final List<Integer> result = executor.submit(() -> {
+                        final List<Supplier<Integer>> tasks = new ArrayList<>();
+                        for (int i = 0; i < 10; i++) {
+                            final int value = i;
+                            tasks.add(() -> value);
+                        }
+                        return Preprocessor.callAll(tasks, executor);
+                    })
+                    .get(10, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), result);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCallAllReportsFailure() {
+        final List<Supplier<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> 1);
+        tasks.add(() -> {
+            throw new IllegalStateException("failed");
+        });
+        try {
+            Preprocessor.callAll(tasks, null);
+            fail();
+        } catch (final IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
     private Method getPrivateMethod(Object o, String name) {
         for (Method m : o.getClass().getDeclaredMethods()) {
             if (m.getName().equals(name)) {
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ApisUtilTest {
+
+    private List<Callable<Integer>> createTasks(final int count) {
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final int value = i;
+            tasks.add(() -> {
+                // later tasks finish first
+                Thread.sleep(count - value);
+                return value;
+            });
+        }
+        return tasks;
+    }
+
+    @Test
+    public void testInvokeAllKeepsOrder() throws MojoExecutionException {
+        for (final int threads : new int[] {1, 4}) {
+            final List<Integer> result = ApisUtil.invokeAll(createTasks(20), threads);
+            assertEquals(20, result.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i, result.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testInvokeAllReportsFailure() {
+        for (final int threads : new int[] {1, 4}) {
+            final List<Callable<Integer>> tasks = createTasks(5);
+            tasks.add(() -> {
+                throw new MojoExecutionException("failure");
+            });
+            try {
+                ApisUtil.invokeAll(tasks, threads);
+                fail();
+            } catch (final MojoExecutionException e) {
+                assertEquals("failure", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testNestedInvokeAllRunsInWorkerThread() throws MojoExecutionException {
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(() -> {
+                final Thread worker = Thread.currentThread();
+                final List<Callable<Thread>> nested = new ArrayList<>();
+                for (int j = 0; j < 4; j++) {
+                    nested.add(Thread::currentThread);
+                }
+                for (final Thread thread : ApisUtil.invokeAll(nested, 4)) {
+                    assertSame(worker, thread);
+                }
+                return 0;
+            });
+        }
+        assertEquals(4, ApisUtil.invokeAll(tasks, 4).size());
+    }
+
+    @Test
+    public void testInvokeAllWithExecutorFromWorkerThread() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                tasks.add(() -> {
+                    final Thread worker = Thread.currentThread();
+                    final List<Callable<Thread>> nested = new ArrayList<>();
+                    for (int j = 0; j < 4; j++) {
+                        nested.add(Thread::currentThread);
+                    }
+                    for (final Thread thread : ApisUtil.invokeAll(nested, executor)) {
+                        assertNotSame(worker, thread);
+                    }
+                    return 0;
+                });
+            }
+            assertEquals(4, ApisUtil.invokeAll(tasks, 4).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeflateCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File createArchive(final String content) throws IOException {
+        final File f = tmp.newFile();
+        Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private void writeFile(final File dir, final String name, final int size) throws IOException {
+        final File f = new File(dir, name);
+        f.getParentFile().mkdirs();
+        Files.write(f.toPath(), new byte[size]);
+    }
+
+    @Test
+    public void testKey() throws IOException {
+        final DeflateCache cache = new DeflateCache(tmp.newFolder(), 1024, new SystemStreamLog());
+        final File a = createArchive("a");
+        final File b = createArchive("b");
+
+        assertEquals(cache.getKey("bin", a, "x/*", "y/*"), cache.getKey("bin", a, "y/*", "x/*"));
+        assertNotEquals(cache.getKey("bin", a, "x/*"), cache.getKey("bin", b, "x/*"));
+        assertNotEquals(cache.getKey("bin", a, "x/*"), cache.getKey("bin", a, "y/*"));
+        assertNotEquals(cache.getKey("bin", a, "x/*"), cache.getKey("sources", a, "x/*"));
+    }
+
+    @Test
+    public void testPutGetCopy() throws IOException, MojoExecutionException {
+        final DeflateCache cache = new DeflateCache(tmp.newFolder(), 1024, new SystemStreamLog());
+        final String key = cache.getKey("bin", createArchive("a"));
+
+        assertNull(cache.get(key));
+        final File content = cache.put(key, dir -> {
+            try {
+                writeFile(dir, "org/apache/A.class", 10);
+            } catch (final IOException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+        });
+        assertEquals(content, cache.get(key));
+
+        final File target = tmp.newFolder();
+        cache.copy(content, target);
+        assertTrue(new File(target, "org/apache/A.class").isFile());
+    }
+
+    @Test
+    public void testConcurrentPut() throws Exception {
+        final DeflateCache cache = new DeflateCache(tmp.newFolder(), 1024, new SystemStreamLog());
+        final String key = cache.getKey("sources", "g:a:1", createArchive("a"));
+        final AtomicInteger count = new AtomicInteger();
+
+        final List<Callable<File>> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(() -> cache.put(key, dir -> {
+                count.incrementAndGet();
+                writeContent(dir, 10);
+                try {
+                    cache.writeInfo(dir, "packages", Collections.singletonList("org.apache"));
+                } catch (final IOException e) {
+                    throw new MojoExecutionException(e.getMessage(), e);
+                }
+            }));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (final Future<File> content : executor.invokeAll(tasks)) {
+                assertEquals(cache.get(key), content.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, count.get());
+        assertEquals(Collections.singletonList("org.apache"), cache.readInfo(cache.get(key), "packages"));
+    }
+
+    @Test
+    public void testEviction() throws IOException, MojoExecutionException {
+        final DeflateCache cache = new DeflateCache(tmp.newFolder(), 150, new SystemStreamLog());
+
+        final String key1 = cache.getKey("bin", createArchive("a"));
+        cache.put(key1, dir -> writeContent(dir, 100));
+        final File entry1 = cache.get(key1).getParentFile();
+        entry1.setLastModified(System.currentTimeMillis() - 10000);
+
+        final String key2 = cache.getKey("bin", createArchive("b"));
+        cache.put(key2, dir -> writeContent(dir, 100));
+
+        // entries are only removed when evicting
+        assertNotNull(cache.get(key1));
+        entry1.setLastModified(System.currentTimeMillis() - 10000);
+        cache.evict();
+
+        assertNull(cache.get(key1));
+        assertNotNull(cache.get(key2));
+        // the lock file is removed together with the entry
+        final File locks = new File(entry1.getParentFile(), ".locks");
+        assertFalse(new File(locks, key1).exists());
+        assertTrue(new File(locks, key2).exists());
+    }
+
+    @Test
+    public void testEvictionKeepsEntryInUse() throws Exception {
+        final DeflateCache cache = new DeflateCache(tmp.newFolder(), 50, new SystemStreamLog());
+        final String key = cache.getKey("bin", createArchive("a"));
+        final File target = tmp.newFolder();
+
+        final CountDownLatch inUse = new CountDownLatch(1);
+        final CountDownLatch evicted = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Boolean> cached =
+                    executor.submit(() -> cache.use(key, dir -> writeContent(dir, 100), content -> {
+                        inUse.countDown();
+                        try {
+                            evicted.await();
+                        } catch (final InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        cache.copy(content, target);
+                    }));
+            inUse.await();
+            // the entry is too big, but used by the other thread
+            cache.evict();
+            evicted.countDown();
+            assertFalse(cached.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(new File(target, "A.class").isFile());
+
+        // once it is not used anymore, it is removed
+        assertTrue(cache.use(key, dir -> writeContent(dir, 100), content -> {}));
+        cache.evict();
+        assertNull(cache.get(key));
+    }
+
+    private void writeContent(final File dir, final int size) throws MojoExecutionException {
+        try {
+            writeFile(dir, "A.class", size);
+        } catch (final IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyRepositoryProberTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+
+    private final Set<String> available = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+
+    private String repository;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            final String path = exchange.getRequestURI().getPath().substring(1);
+            requests.add(exchange.getRequestMethod() + " " + path);
+            exchange.sendResponseHeaders(failing.contains(path) ? 500 : available.contains(path) ? 200 : 404, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        repository = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExists() throws Exception {
+        available.addAll(Arrays.asList("g/a/1/a-1.jar", "g/b/1/b-1.jar"));
+        final DependencyRepositoryProber prober = new DependencyRepositoryProber(4, null, 0);
+
+        final List<String> repos = Collections.singletonList(repository);
+        assertTrue(prober.exists(log, repos, Arrays.asList("g/a/1/a-1.jar", "g/b/1/b-1.jar")));
+        assertFalse(prober.exists(log, repos, Arrays.asList("g/a/1/a-1.jar", "g/c/1/c-1.jar")));
+        assertEquals(3, requests.size());
+        assertTrue(requests.stream().allMatch(r -> r.startsWith("HEAD ")));
+
+        // cached
+        assertFalse(prober.exists(log, repos, Collections.singletonList("g/c/1/c-1.jar")));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testSecondRepository() throws Exception {
+        available.add("g/a/1/a-1.jar");
+        final DependencyRepositoryProber prober = new DependencyRepositoryProber(1, null, 0);
+
+        final List<String> repos = Arrays.asList(repository + "missing/", repository);
+        assertTrue(prober.exists(log, repos, Collections.singletonList("g/a/1/a-1.jar")));
+        assertEquals(Arrays.asList("HEAD missing/g/a/1/a-1.jar", "HEAD g/a/1/a-1.jar"), requests);
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        available.add("g/a/1/a-1.jar");
+        final File file = new File(tmp.getRoot(), "probes.properties");
+        final List<String> repos = Collections.singletonList(repository);
+
+        final DependencyRepositoryProber prober = new DependencyRepositoryProber(2, file, 60000);
+        assertTrue(prober.exists(log, repos, Collections.singletonList("g/a/1/a-1.jar")));
+        assertFalse(prober.exists(log, repos, Collections.singletonList("g/b/1/b-1.jar")));
+        prober.save();
+        assertEquals(2, requests.size());
+
+        final DependencyRepositoryProber reloaded = new DependencyRepositoryProber(2, file, 60000);
+        assertTrue(reloaded.exists(log, repos, Collections.singletonList("g/a/1/a-1.jar")));
+        assertFalse(reloaded.exists(log, repos, Collections.singletonList("g/b/1/b-1.jar")));
+        assertEquals(2, requests.size());
+
+        // expired
+        final DependencyRepositoryProber expired = new DependencyRepositoryProber(2, file, -1);
+        assertTrue(expired.exists(log, repos, Collections.singletonList("g/a/1/a-1.jar")));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        available.add("g/a/1/a-1.jar");
+        failing.add("g/a/1/a-1.jar");
+        final DependencyRepositoryProber prober = new DependencyRepositoryProber(2, null, 0);
+
+        final List<String> repos = Collections.singletonList(repository);
+        assertFalse(prober.exists(log, repos, Collections.singletonList("g/a/1/a-1.jar")));
+        assertEquals(1, requests.size());
+
+        failing.clear();
+        assertTrue(prober.exists(log, repos, Collections.singletonList("g/a/1/a-1.jar")));
+        assertEquals(2, requests.size());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileTreeIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File create(final File root, final String name) throws IOException {
+        final File file = new File(root, name);
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+        return file;
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        final File root = tmp.newFolder();
+        create(root, "a/b/A.class");
+        create(root, "a/b/res.txt");
+        create(root, "a/b/.DS_Store");
+        create(root, "a/c/C.txt");
+        new File(root, "a/empty/sub").mkdirs();
+        new File(root, "x/y").mkdirs();
+
+        final List<String> handled = new ArrayList<>();
+        final FileTreeIndex index = FileTreeIndex.build(root, (file, name) -> handled.add(name));
+
+        assertEquals(Arrays.asList("a", "a.b", "a.c"), new ArrayList<>(index.getPackages()));
+        assertTrue(index.hasFile("a.b", ".class"));
+        assertFalse(index.hasFile("a.c", ".class"));
+        assertFalse(index.hasFile("a", ".txt"));
+
+        // empty directories are removed
+        assertFalse(new File(root, "a/empty").exists());
+        assertFalse(new File(root, "x").exists());
+        assertTrue(root.exists());
+
+        Collections.sort(handled);
+        assertEquals(Arrays.asList("a/b/.DS_Store", "a/b/A.class", "a/b/res.txt", "a/c/C.txt"), handled);
+
+        final List<File> files = index.getFiles(Arrays.asList("a.b", "unknown"));
+        Collections.sort(files);
+        assertEquals(Arrays.asList(new File(root, "a/b/A.class"), new File(root, "a/b/res.txt")), files);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class FingerprintTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testValues() {
+        final String value = new Fingerprint().add("a", "1").add("b", null).getValue();
+        assertEquals(64, value.length());
+        assertEquals(value, new Fingerprint().add("a", "1").add("b", null).getValue());
+        assertNotEquals(value, new Fingerprint().add("b", null).add("a", "1").getValue());
+        assertNotEquals(
+                new Fingerprint().add("a", "bc").getValue(),
+                new Fingerprint().add("ab", "c").getValue());
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        final File file = tmp.newFile();
+        final String value = new Fingerprint().addFile("f", file).getValue();
+        assertEquals(value, new Fingerprint().addFile("f", file).getValue());
+
+        Files.write(file.toPath(), "content".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(value, new Fingerprint().addFile("f", file).getValue());
+    }
+
+    @Test
+    public void testDirectoryContents() throws IOException {
+        final File dir = tmp.newFolder();
+        final File file = new File(dir, "a/b.txt");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "content".getBytes(StandardCharsets.UTF_8));
+        final long lastModified = file.lastModified();
+        final String value = new Fingerprint().addContents("d", dir).getValue();
+        assertEquals(value, new Fingerprint().addContents("d", dir).getValue());
+
+        // same length and modification time, but different contents
+        Files.write(file.toPath(), "CONTENT".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+        assertNotEquals(value, new Fingerprint().addContents("d", dir).getValue());
+
+        // new file
+        final String changed = new Fingerprint().addContents("d", dir).getValue();
+        Files.write(new File(dir, "c.txt").toPath(), new byte[0]);
+        assertNotEquals(changed, new Fingerprint().addContents("d", dir).getValue());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GitSourceCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private String connection;
+
+    private static void git(final File dir, final String... args) throws Exception {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        final Process process =
+                new ProcessBuilder(command).directory(dir).inheritIO().start();
+        assertEquals(0, process.waitFor());
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String pom(final String artifactId) {
+        return "<project><modelVersion>4.0.0</modelVersion><artifactId>" + artifactId + "</artifactId></project>";
+    }
+
+    @Before
+    public void createRepository() throws Exception {
+        try {
+            Assume.assumeTrue(new ProcessBuilder("git", "--version").start().waitFor() == 0);
+        } catch (final IOException e) {
+            Assume.assumeNoException(e);
+        }
+        final File work = tmp.newFolder("work");
+        git(work, "init", "--quiet");
+        write(new File(work, "pom.xml"), pom("parent"));
+        write(new File(work, "api/pom.xml"), pom("api"));
+        write(new File(work, "api/src/main/java/org/a/A.java"), "package org.a;");
+        write(new File(work, "impl/pom.xml"), pom("impl"));
+        write(new File(work, "impl/src/main/java/org/b/B.java"), "package org.b;");
+        write(new File(work, "resources/pom.xml"), pom("resources"));
+        git(work, "add", ".");
+        git(work, "-c", "user.name=test", "-c", "user.email=test@example.org", "commit", "--quiet", "-m", "init");
+        git(work, "tag", "v1");
+
+        final File bare = new File(tmp.getRoot(), "repo.git");
+        git(tmp.getRoot(), "clone", "--quiet", "--bare", work.getAbsolutePath(), bare.getAbsolutePath());
+        connection = "scm:git:file://" + bare.getAbsolutePath();
+    }
+
+    @Test
+    public void testGetSources() throws Exception {
+        final File cacheDir = tmp.newFolder("cache");
+        final GitSourceCache cache = new GitSourceCache(cacheDir, new SystemStreamLog());
+
+        final File target = new File(tmp.getRoot(), "checkout-api");
+        final File sources = cache.getSources(connection, "v1", "api", target);
+        assertEquals(new File(target, "api/src/main/java/"), sources);
+        assertTrue(new File(sources, "org/a/A.java").exists());
+        // only the sources of the module are extracted
+        assertFalse(new File(target, "impl").exists());
+        assertFalse(new File(target, "api/pom.xml").exists());
+
+        // module without sources
+        assertNull(cache.getSources(connection, "v1", "resources", new File(tmp.getRoot(), "checkout-res")));
+
+        // a new instance reuses the mirror and the module lookup
+        final File[] mirrors = cacheDir.listFiles((dir, name) -> name.endsWith(".git"));
+        assertEquals(1, mirrors.length);
+        assertTrue(new File(mirrors[0], "module-paths.properties").exists());
+        final File implTarget = new File(tmp.getRoot(), "checkout-impl");
+        final File implSources =
+                new GitSourceCache(cacheDir, new SystemStreamLog()).getSources(connection, "v1", "impl", implTarget);
+        assertTrue(new File(implSources, "org/b/B.java").exists());
+    }
+
+    @Test
+    public void testStaleFilesRemoved() throws Exception {
+        final File cacheDir = tmp.newFolder("cache");
+        final GitSourceCache cache = new GitSourceCache(cacheDir, new SystemStreamLog());
+        cache.getSources(connection, "v1", "api", new File(tmp.getRoot(), "checkout-api"));
+
+        // leftovers of a crashed run
+        final File mirror = cacheDir.listFiles((dir, name) -> name.endsWith(".git"))[0];
+        final File staleMirror = new File(cacheDir, ".tmp-" + mirror.getName() + "123");
+        write(new File(staleMirror, "HEAD"), "ref: refs/heads/master");
+        final File staleModules = new File(mirror, ".tmp-123.properties");
+        write(staleModules, "");
+
+        cache.getSources(connection, "v1", "impl", new File(tmp.getRoot(), "checkout-impl"));
+        assertFalse(staleMirror.exists());
+        assertFalse(staleModules.exists());
+        assertTrue(mirror.exists());
+    }
+
+    @Test
+    public void testHead() throws Exception {
+        final GitSourceCache cache = new GitSourceCache(tmp.newFolder("cache"), new SystemStreamLog());
+        final File sources = cache.getSources(connection, null, "impl", new File(tmp.getRoot(), "checkout"));
+        assertTrue(new File(sources, "org/b/B.java").exists());
+    }
+
+    @Test
+    public void testIsGit() {
+        assertTrue(GitSourceCache.isGit("scm:git:https://example.org/repo.git"));
+        assertFalse(GitSourceCache.isGit("scm:svn:https://example.org/repo"));
+        assertFalse(GitSourceCache.isGit(null));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class JarEntryCopierTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File createZip(final String... names) throws IOException {
+        final File f = tmp.newFile();
+        try (final ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(f))) {
+            for (final String name : names) {
+                zos.putNextEntry(new ZipEntry(name));
+                zos.write(name.getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return f;
+    }
+
+    @Test
+    public void testCopy() throws IOException {
+        final File target = createZip("META-INF/MANIFEST.MF", "LICENSE");
+        final File bundle1 = createZip("org/a/A.class", "org/a/b/B.class", "other/C.class", "LICENSE");
+        final File bundle2 = createZip("org/a/A.class", "org/c/C.class");
+
+        final JarEntryCopier copier = new JarEntryCopier(target);
+        copier.add(bundle1, "org/a/*", "LICENSE");
+        copier.add(bundle2, "org/a/*", "org/c/*");
+        copier.copy();
+
+        final List<String> names = new ArrayList<>();
+        try (final ZipFile zipFile = new ZipFile(target)) {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                names.add(entry.getName());
+                if (!entry.isDirectory()) {
+                    assertEquals(
+                            entry.getName(),
+                            IOUtils.toString(zipFile.getInputStream(entry), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        assertEquals(
+                List.of(
+                        "META-INF/MANIFEST.MF",
+                        "LICENSE",
+                        "org/",
+                        "org/a/",
+                        "org/a/A.class",
+                        "org/c/",
+                        "org/c/C.class"),
+                names);
+        assertEquals(List.of("org/a/A.class", "org/c/C.class"), copier.getCopiedNames());
+    }
+
+    private byte[] copy(final File target, final File bundle, final FileTime directoryTime) throws IOException {
+        final File copy = tmp.newFile();
+        Files.copy(target.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final JarEntryCopier copier = new JarEntryCopier(copy);
+        copier.setDirectoryTime(directoryTime);
+        copier.add(bundle, "org/a/*", "org/a/b/*");
+        copier.copy();
+        return Files.readAllBytes(copy.toPath());
+    }
+
+    @Test
+    public void testCopyIsReproducible() throws Exception {
+        final File target = createZip("META-INF/MANIFEST.MF");
+        final File bundle = createZip("org/a/A.class", "org/a/b/B.class");
+        final FileTime time = FileTime.from(Instant.parse("2024-01-01T10:00:00Z"));
+
+        final byte[] first = copy(target, bundle, null);
+        final byte[] firstWithTime = copy(target, bundle, time);
+        // zip entries have a resolution of two seconds
+        Thread.sleep(2000);
+        assertArrayEquals(first, copy(target, bundle, null));
+        assertArrayEquals(firstWithTime, copy(target, bundle, time));
+
+        final File withTime = tmp.newFile();
+        Files.write(withTime.toPath(), firstWithTime);
+        try (final ZipFile zipFile = new ZipFile(withTime)) {
+            assertEquals(time.toMillis(), zipFile.getEntry("org/").getTime());
+            assertEquals(time.toMillis(), zipFile.getEntry("org/a/b/").getTime());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class JarMetadataCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File createJar(final String exportPackage, final String... names) throws IOException {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Export-Package", exportPackage);
+        final File f = tmp.newFile();
+        try (final JarOutputStream jos = new JarOutputStream(new FileOutputStream(f), manifest)) {
+            for (final String name : names) {
+                jos.putNextEntry(new ZipEntry(name));
+                jos.closeEntry();
+            }
+        }
+        return f;
+    }
+
+    @Test
+    public void testMetadata() throws IOException {
+        final File jar = createJar("org.a;version=1,org.b", "org/a/", "org/a/A.class", "org/b/B.class");
+        final JarMetadataCache cache = new JarMetadataCache();
+
+        final JarMetadataCache.JarMetadata metadata = cache.get(jar);
+        assertEquals(Arrays.asList("org/a/", "org/a/A.class", "org/b/B.class"), metadata.getEntryNames());
+        assertEquals(2, metadata.getExportedPackages().length);
+        assertEquals("org.a", metadata.getExportedPackages()[0].getName());
+        assertEquals(0, metadata.getProvidedCapabilities().length);
+
+        assertSame(metadata, cache.get(jar));
+    }
+
+    @Test
+    public void testChangedFile() throws IOException {
+        final File jar = createJar("org.a", "org/a/A.class");
+        final JarMetadataCache cache = new JarMetadataCache();
+        assertEquals(1, cache.get(jar).getEntryNames().size());
+
+        final File changed = createJar("org.a", "org/a/A.class", "org/a/B.class");
+        jar.delete();
+        changed.renameTo(jar);
+        assertEquals(2, cache.get(jar).getEntryNames().size());
+    }
+
+    @Test
+    public void testReadBypassesCache() throws IOException {
+        final File jar = createJar("org.a", "org/a/A.class");
+        final JarMetadataCache cache = new JarMetadataCache();
+        final JarMetadataCache.JarMetadata cached = cache.get(jar);
+
+        final JarMetadataCache.JarMetadata read = JarMetadataCache.read(jar);
+        assertNotSame(cached, read);
+        assertEquals(Arrays.asList("org/a/A.class"), read.getEntryNames());
+        assertSame(cached, cache.get(jar));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.sling.feature.ArtifactId;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class JavadocClasspathCacheTest {
+
+    private static final ArtifactId ID = ArtifactId.parse("g:a:1");
+
+    @Test
+    public void testSingleResolve() throws Exception {
+        final JavadocClasspathCache cache = new JavadocClasspathCache();
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Map<ArtifactId, String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> cache.get(ID, id -> {
+                    count.incrementAndGet();
+                    try {
+                        latch.await();
+                    } catch (final InterruptedException e) {
+                        throw new MojoExecutionException("interrupted", e);
+                    }
+                    return Collections.singletonMap(id, "a.jar");
+                })));
+            }
+            latch.countDown();
+            for (final Future<Map<ArtifactId, String>> f : futures) {
+                assertEquals("a.jar", f.get().get(ID));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, count.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    public void testFailureNotCached() throws Exception {
+        final JavadocClasspathCache cache = new JavadocClasspathCache();
+        try {
+            cache.get(ID, id -> {
+                throw new MojoExecutionException("failed");
+            });
+            fail();
+        } catch (final MojoExecutionException expected) {
+            // expected
+        }
+        assertEquals("a.jar", cache.get(ID, id -> Collections.singletonMap(id, "a.jar")).get(ID));
+        assertEquals(2, cache.getMisses());
+    }
+}
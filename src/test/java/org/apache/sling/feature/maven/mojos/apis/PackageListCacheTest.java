@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PackageListCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Map<String, String> lists = new ConcurrentHashMap<>();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+
+    private String base;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            final String path = exchange.getRequestURI().getPath();
+            final String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            requests.add(path + (etag != null ? " " + etag : ""));
+            final String list = lists.get(path);
+            if (list == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (("\"" + list.hashCode() + "\"").equals(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                final byte[] content = list.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"" + list.hashCode() + "\"");
+                exchange.sendResponseHeaders(200, content.length);
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testPackageAndElementList() throws Exception {
+        lists.put("/a/package-list", "org.a\norg.a.b\n");
+        lists.put("/b/element-list", "module:java.base\njava.lang\njava.util\n");
+        final PackageListCache cache = new PackageListCache(null, false, new SystemStreamLog());
+
+        final Map<String, Set<String>> result = cache.get(Arrays.asList(base + "/a/", base + "/b"));
+        assertEquals(new TreeSet<>(Arrays.asList("org.a", "org.a.b")), result.get(base + "/a"));
+        assertEquals(new TreeSet<>(Arrays.asList("java.lang", "java.util")), result.get(base + "/b"));
+        assertEquals(3, requests.size());
+
+        // cached in memory, also after shutting down
+        cache.shutdown();
+        cache.get(Arrays.asList(base + "/a", base + "/b/"));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testRevalidationAndOffline() throws Exception {
+        lists.put("/a/package-list", "org.a\n");
+        final PackageListCache cache = new PackageListCache(tmp.getRoot(), false, new SystemStreamLog());
+        cache.get(Collections.singletonList(base + "/a"));
+        assertEquals(Collections.singletonList("/a/package-list"), requests);
+
+        // new cache instance revalidates using the etag
+        final PackageListCache revalidating = new PackageListCache(tmp.getRoot(), false, new SystemStreamLog());
+        assertEquals(
+                Collections.singleton("org.a"),
+                revalidating.get(Collections.singletonList(base + "/a")).get(base + "/a"));
+        assertEquals(2, requests.size());
+        assertEquals("/a/package-list \"" + "org.a\n".hashCode() + "\"", requests.get(1));
+
+        // offline
+        final PackageListCache offline = new PackageListCache(tmp.getRoot(), true, new SystemStreamLog());
+        assertEquals(
+                Collections.singleton("org.a"),
+                offline.get(Collections.singletonList(base + "/a")).get(base + "/a"));
+        assertEquals(2, requests.size());
+        try {
+            offline.get(Collections.singletonList(base + "/b"));
+            fail();
+        } catch (final MojoExecutionException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testMissingList() throws Exception {
+        new PackageListCache(null, false, new SystemStreamLog()).get(Collections.singletonList(base + "/c"));
+    }
+}
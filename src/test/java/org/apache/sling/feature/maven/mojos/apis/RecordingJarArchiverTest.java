@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+public class RecordingJarArchiverTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private void create(final File root, final String name) throws IOException {
+        final File file = new File(root, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), name.getBytes());
+    }
+
+    @Test
+    public void testEntryNames() throws Exception {
+        final File dir = tmp.newFolder();
+        create(dir, "org/a/A.class");
+        create(dir, "org/a/b/B.class");
+        create(dir, "org/c/C.class");
+        final File license = tmp.newFile("LICENSE");
+
+        final File target = new File(tmp.getRoot(), "test.jar");
+        final RecordingJarArchiver archiver = new RecordingJarArchiver();
+        final DefaultFileSet fileSet = new DefaultFileSet(dir);
+        fileSet.setIncludes(new String[] {"org/a/*"});
+        archiver.addFileSet(fileSet);
+        archiver.addFile(license, "META-INF/LICENSE");
+        archiver.setDestFile(target);
+        archiver.createArchive();
+
+        final Set<String> expected = new HashSet<>();
+        expected.add("org/a/A.class");
+        expected.add("META-INF/LICENSE");
+        assertEquals(expected, archiver.getEntryNames());
+
+        // the recorded names are the files in the jar
+        final Set<String> names = new TreeSet<>(new JarMetadataCache().get(target).getEntryNames());
+        names.removeIf(n -> n.endsWith("/"));
+        assertEquals(new TreeSet<>(expected), names);
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.sling.feature.maven.mojos.apis;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
 
@@ -26,6 +27,9 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionState;
+import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.extension.apiregions.api.ApiExport;
 import org.apache.sling.feature.extension.apiregions.api.ApiRegion;
@@ -35,6 +39,7 @@ import org.mockito.Mockito;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class RegionSupportTest {
@@ -241,4 +246,57 @@ public class RegionSupportTest {
         assertEquals(1, usedPerRegion.size());
         assertTrue(usedPerRegion.contains(exportedPackages[1]));
     }
+
+    @Test
+    public void testIndexedRegions() throws Exception {
+        final ApiRegions source = new ApiRegions();
+        final ApiRegion global = new ApiRegion("global");
+        global.add(new ApiExport("p1"));
+        final ApiExport e2 = new ApiExport("p2");
+        e2.setToggle("p2-feature");
+        e2.setPreviousArtifactId(ArtifactId.parse("g:b:0.1"));
+        global.add(e2);
+        source.add(global);
+        final ApiRegion internal = new ApiRegion("internal");
+        internal.add(new ApiExport("p3"));
+        source.add(internal);
+
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+        final Extension ext = new Extension(ExtensionType.JSON, ApiRegions.EXTENSION_NAME, ExtensionState.OPTIONAL);
+        ext.setJSON(source.toJSON());
+        f.getExtensions().add(ext);
+
+        final RegionSupport support = new RegionSupport(
+                Mockito.mock(Log.class), false, false, Collections.singleton("*"), Collections.emptySet());
+        final ApiRegions regions = support.getApiRegions(f);
+        assertEquals(2, regions.listRegions().size());
+
+        final Clause[] exportedPackages = new Clause[] {
+            new Clause("p1", null, null), new Clause("p2", null, null), new Clause("p3", null, null),
+            new Clause("p4", null, null)
+        };
+        final Artifact bundle = new Artifact(ArtifactId.parse("g:b:1"));
+        final Set<String> used =
+                support.computeAllUsedExportPackages(regions, Collections.emptySet(), exportedPackages, bundle);
+        assertEquals(3, used.size());
+        assertTrue(used.containsAll(Arrays.asList("p1", "p2", "p3")));
+
+        assertEquals(
+                ArtifactId.parse("g:b:0.1"),
+                support.getPreviousArtifactId(regions, Collections.emptySet(), used, bundle));
+        assertNull(support.getPreviousArtifactId(regions, Collections.singleton("p2-feature"), used, bundle));
+
+        // internal inherits the exports from global
+        final ApiRegion indexedInternal = regions.getRegionByName("internal");
+        assertEquals(
+                3,
+                support.computeUsedExportPackagesPerRegion(indexedInternal, exportedPackages, used)
+                        .size());
+        assertEquals(
+                2,
+                support.computeUsedExportPackagesPerRegion(regions.getRegionByName("global"), exportedPackages, used)
+                        .size());
+        assertNotNull(support.getAllExportByName(indexedInternal, "p1"));
+        assertNull(support.getExportByName(indexedInternal, "p4"));
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SourceTranscoderTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static String createSource() {
+        final StringBuilder sb = new StringBuilder("package a; /* ");
+        for (int i = 0; i < 5000; i++) {
+            sb.append("\u00e4\u00f6\u00fc\u00df\u20ac ");
+        }
+        return sb.append("*/").toString();
+    }
+
+    private static void assertTranscoded(final String content, final String encoding) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SourceTranscoder(encoding)
+                .transcode(new ByteArrayInputStream(content.getBytes(Charset.forName(encoding))), out);
+        assertEquals(content, new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTranscode() throws Exception {
+        final String content = createSource();
+        assertTranscoded(content, "windows-1252");
+        // multi byte sequences span the buffer boundaries
+        assertTranscoded(content, "UTF-16");
+        assertTranscoded(content, "UTF-8");
+        assertTranscoded("", "windows-1252");
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        final String content = createSource();
+        final byte[] resource = content.getBytes(Charset.forName("windows-1252"));
+        final File archive = tmp.newFile("sources.jar");
+        try (final ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive.toPath()))) {
+            out.putNextEntry(new ZipEntry("a/A.java"));
+            out.write(resource);
+            out.putNextEntry(new ZipEntry("a/a.txt"));
+            out.write(resource);
+            out.putNextEntry(new ZipEntry("b/B.java"));
+            out.write(resource);
+        }
+        final File dir = tmp.newFolder();
+        new SourceTranscoder("windows-1252").extract(archive, dir, "a/*");
+
+        assertEquals(
+                content, new String(Files.readAllBytes(new File(dir, "a/A.java").toPath()), StandardCharsets.UTF_8));
+        assertArrayEquals(resource, Files.readAllBytes(new File(dir, "a/a.txt").toPath()));
+        assertFalse(new File(dir, "b").exists());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.maven.mojos.apis;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.file.Files;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import org.apache.sling.feature.ArtifactId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TimingsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        final Timings timings = new Timings();
+        final ArtifactId a = ArtifactId.parse("g:a:1");
+        final ArtifactId b = ArtifactId.parse("g:b:1");
+        try (final Timings.Timer timer = timings.startArtifact(Timings.DEFLATE, a)) {
+            timer.addBytesRead(100);
+        }
+        try (final Timings.Timer timer = timings.startArtifact(Timings.DEFLATE, b)) {
+            timer.addBytesRead(50);
+        }
+        try (final Timings.Timer timer = timings.startRegion(Timings.ARCHIVE, "global")) {
+            timer.addBytesWritten(10);
+        }
+        timings.recordCache("deflate-bin", true);
+        timings.recordCache("deflate-bin", false);
+        timings.recordCache("deflate-bin", 2, 0);
+
+        final File file = tmp.newFile("timings.json");
+        timings.write(file, ArtifactId.parse("g:feature:1"));
+
+        final JsonObject json;
+        try (final Reader reader = Files.newBufferedReader(file.toPath())) {
+            json = Json.createReader(reader).readObject();
+        }
+        assertEquals("g:feature:1", json.getString("feature"));
+        final JsonObject deflate = json.getJsonObject("phases").getJsonObject(Timings.DEFLATE);
+        assertEquals(2, deflate.getInt("count"));
+        assertEquals(150, deflate.getInt("bytesRead"));
+        assertFalse(deflate.containsKey("bytesWritten"));
+        assertEquals(
+                100,
+                json.getJsonObject("artifacts")
+                        .getJsonObject("g:a:1")
+                        .getJsonObject(Timings.DEFLATE)
+                        .getInt("bytesRead"));
+        assertEquals(
+                10,
+                json.getJsonObject("regions")
+                        .getJsonObject("global")
+                        .getJsonObject(Timings.ARCHIVE)
+                        .getInt("bytesWritten"));
+        assertEquals(3, json.getJsonObject("caches").getJsonObject("deflate-bin").getInt("hits"));
+        assertEquals(1, json.getJsonObject("caches").getJsonObject("deflate-bin").getInt("misses"));
+    }
+}